@@ -7,11 +7,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.example.parser.SourceParser;
+import org.example.instrumentation.Instrumentation;
 import org.example.processing.FileExplorer;
+import org.example.processing.FileReport;
+import org.example.processing.MetricsQuery;
 import org.example.processing.StatisticsService;
 import org.example.visitor.MetricsCollector;
 
@@ -23,10 +25,7 @@ import javax.swing.border.TitledBorder;
 public class App {
     private final JTextArea output = new JTextArea();
     private StatisticsService.ProjectMetrics pm;
-    private Map<String,Integer> methodsPerClass;
-    private Map<String,Integer> fieldsPerClass;
-    private Map<String,Integer> methodLocAll;
-    private Map<String,List<String>> methodsByClass;
+    private MetricsQuery query;   // index des métriques : Q11 / Q12 sans re-tri à chaque clic
 
     public static void main(String[] args) throws Exception {
         new App().start(3);
@@ -37,27 +36,26 @@ public class App {
         List<Path> files = FileExplorer.listJavaFiles(root);
         List<MetricsCollector.FileMetrics> all = new ArrayList<>();
 
-        methodsPerClass = new HashMap<>();
-        fieldsPerClass  = new HashMap<>();
-        methodLocAll    = new HashMap<>();
-        methodsByClass  = new HashMap<>();
-
+        FileReport report = new FileReport();
         for (Path f : files) {
-            String source = Files.readString(f, StandardCharsets.UTF_8);
-            CompilationUnit cu = SourceParser.parseFile(f);
-            var fm = MetricsCollector.collect(cu, source, f.toString());
+            // un fichier illisible n'interrompt plus l'analyse : il est signalé dans le bilan
+            long t0 = System.nanoTime();
+            MetricsCollector.FileMetrics fm;
+            try {
+                String source = Files.readString(f, StandardCharsets.UTF_8);
+                CompilationUnit cu = SourceParser.parseSource(source);
+                fm = MetricsCollector.collect(cu, source, f.toString());
+                report.ok(f.toString(), System.nanoTime() - t0, Files.size(f), Instrumentation.countNodes(cu));
+            } catch (Exception ex) {
+                report.failed(f.toString(), System.nanoTime() - t0, ex);
+                continue;
+            }
             all.add(fm);
-
-            fm.methodsPerClass.forEach((k,v)-> methodsPerClass.merge(k,v,Integer::sum));
-            fm.fieldsPerClass.forEach((k,v)->  fieldsPerClass.merge(k,v,Integer::sum));
-            fm.methodLoc.forEach((k,v)->      methodLocAll.put(k,v));
-            fm.methodLoc.keySet().forEach(k -> {
-                String cls = k.contains("#") ? k.substring(0, k.indexOf('#')) : "<unknown>";
-                methodsByClass.computeIfAbsent(cls, __ -> new ArrayList<>()).add(k);
-            });
         }
 
+        System.err.print(report.toText(5));
         pm = StatisticsService.aggregate(all, thresholdX);
+        query = MetricsQuery.of(all);
         SwingUtilities.invokeLater(() -> buildUI(thresholdX));
     }
 
@@ -137,22 +135,19 @@ public class App {
             case 11 -> {
                 String xStr = JOptionPane.showInputDialog(null, "Valeur de X ?", "3");
                 int X = parseOrDefault(xStr, 3);
-                List<String> res = methodsPerClass.entrySet().stream()
-                        .filter(e -> e.getValue() > X)
-                        .sorted((a,b)->Integer.compare(b.getValue(), a.getValue()))
-                        .map(e -> e.getKey() + " (" + e.getValue() + " méthodes)")
-                        .collect(Collectors.toList());
+                List<String> res = new ArrayList<>();
+                for (var h : query.classes(MetricsQuery.ClassMetric.METHODS).greaterThan(X))
+                    res.add(h.key() + " (" + h.value() + " méthodes)");
                 printList(res, "Classes > " + X + " méthodes");
             }
             case 12 -> {
-                String[] classes = methodsByClass.keySet().stream().sorted().toArray(String[]::new);
+                String[] classes = query.classNames().toArray(String[]::new);
                 String choice = (String) JOptionPane.showInputDialog(null, "Choisir une classe :", "Q12",
                         JOptionPane.PLAIN_MESSAGE, null, classes, classes.length > 0 ? classes[0] : null);
                 if (choice != null) {
-                    Map<String,Integer> locForClass = methodLocAll.entrySet().stream()
-                            .filter(e -> e.getKey().startsWith(choice + "#"))
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-                    Map<String,Integer> top = topPercentMap(locForClass, 10);
+                    Map<String,Integer> top = new LinkedHashMap<>();
+                    for (var h : query.methodsOf(choice, MetricsQuery.MethodMetric.LOC).topPercent(10))
+                        top.put(h.key().toString(), h.value());
                     printMap(top, "Top 10% méthodes (classe " + choice + ")");
                 }
             }
@@ -180,18 +175,6 @@ public class App {
         try { return Integer.parseInt(s); } catch (Exception e) { return def; }
     }
 
-    private static LinkedHashMap<String,Integer> topPercentMap(Map<String,Integer> map, int pct) {
-        if (map.isEmpty()) return new LinkedHashMap<>();
-        int n = Math.max(1, (int)Math.ceil(map.size() * (pct/100.0)));
-        return map.entrySet().stream()
-                .sorted((e1,e2)->Integer.compare(e2.getValue(), e1.getValue()))
-                .limit(n)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey, Map.Entry::getValue,
-                        (a,b)->a, LinkedHashMap::new
-                ));
-    }
-
     private String summary() {
         return "Résumé : " +
                 pm.totalFiles + " fichiers | " +
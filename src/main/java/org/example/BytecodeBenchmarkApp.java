@@ -0,0 +1,134 @@
+package org.example;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.bytecode.BytecodeCallGraphExtractor;
+import org.example.model.NodeId;
+import org.example.parser.SourceParser;
+import org.example.processing.CallGraph;
+import org.example.processing.FileExplorer;
+import org.example.processing.IgnoreRules;
+import org.example.visitor.CallGraphVisitor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Banc d'essai : graphe d'appel extrait des sources (JDT, {@link CallGraphVisitor}) contre le bytecode
+ * ({@link BytecodeCallGraphExtractor}) du même projet.
+ *
+ * Usage : BytecodeBenchmarkApp --src DIR --classes DIR|JAR[,...] [--threads N] [--runs 3]
+ *   ex: BytecodeBenchmarkApp --src src/main/java --classes target/classes
+ *
+ * Chaque extracteur est exécuté --runs fois (la première sert de chauffe si runs > 1) ; on affiche le
+ * meilleur temps, le débit (fichiers/s), puis la comparaison des arêtes entre classes déclarées,
+ * au format "pkg.Classe#méthode/arité" (le JDT sans bindings ne connaît que l'arité des cibles).
+ */
+public class BytecodeBenchmarkApp {
+
+    public static void main(String[] args) throws Exception {
+        Path src = null;
+        List<Path> classes = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int runs = 3;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--src" -> src = Paths.get(args[i + 1]);
+                case "--classes" -> { for (String s : args[i + 1].split(",")) classes.add(Paths.get(s)); }
+                case "--threads" -> threads = Math.max(1, Integer.parseInt(args[i + 1]));
+                case "--runs" -> runs = Math.max(1, Integer.parseInt(args[i + 1]));
+                default -> throw new IllegalArgumentException("option inconnue: " + args[i]);
+            }
+        }
+        if (src == null || classes.isEmpty()) {
+            System.err.println("Usage: BytecodeBenchmarkApp --src DIR --classes DIR|JAR[,...] [--threads N] [--runs 3]");
+            System.exit(2);
+            return;
+        }
+
+        List<Path> files = FileExplorer.listJavaFiles(List.of(src), IgnoreRules.defaults());
+        System.out.printf(Locale.ROOT, ">>> %d fichiers source, racines bytecode %s, %d threads, %d passes%n",
+                files.size(), classes, threads, runs);
+
+        CallGraph jdt = null, bytecode = null;
+        long bestJdt = Long.MAX_VALUE, bestBytecode = Long.MAX_VALUE;
+        BytecodeCallGraphExtractor extractor = new BytecodeCallGraphExtractor();
+        for (int r = 0; r < runs; r++) {
+            long t0 = System.nanoTime();
+            jdt = jdtCallGraph(files, threads);
+            bestJdt = Math.min(bestJdt, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            bytecode = extractor.extract(classes, threads);
+            bestBytecode = Math.min(bestBytecode, System.nanoTime() - t0);
+        }
+
+        System.out.printf(Locale.ROOT, "JDT (sources)  : %8.1f ms  %9.0f fichiers/s  %7d méthodes  %8d arêtes%n",
+                bestJdt / 1e6, files.size() / (bestJdt / 1e9), jdt.edges.size(), edgeCount(jdt));
+        System.out.printf(Locale.ROOT, "Bytecode       : %8.1f ms  %9.0f classes/s   %7d méthodes  %8d arêtes  (%d classes, %.1f Mo)%n",
+                bestBytecode / 1e6, extractor.classesRead / (bestBytecode / 1e9), bytecode.edges.size(), edgeCount(bytecode),
+                extractor.classesRead, extractor.bytesRead / (1024.0 * 1024.0));
+        System.out.printf(Locale.ROOT, "Accélération   : x%.1f%n", bestJdt / (double) Math.max(1, bestBytecode));
+        for (String e : extractor.errors) System.err.println("WARN bytecode: " + e);
+
+        // arêtes entre classes déclarées des deux côtés
+        Set<String> declared = new HashSet<>(jdt.declaredClasses);
+        declared.retainAll(bytecode.declaredClasses);
+        Set<String> a = comparable(jdt, declared), b = comparable(bytecode, declared);
+        Set<String> common = new TreeSet<>(a);
+        common.retainAll(b);
+        Set<String> onlyJdt = new TreeSet<>(a), onlyBytecode = new TreeSet<>(b);
+        onlyJdt.removeAll(b);
+        onlyBytecode.removeAll(a);
+        int union = common.size() + onlyJdt.size() + onlyBytecode.size();
+        System.out.printf(Locale.ROOT, "Arêtes entre %d classes communes : %d communes, %d JDT seul, %d bytecode seul (Jaccard %.2f)%n",
+                declared.size(), common.size(), onlyJdt.size(), onlyBytecode.size(),
+                union == 0 ? 1.0 : common.size() / (double) union);
+        onlyJdt.stream().limit(10).forEach(e -> System.out.println("  JDT seul      : " + e));
+        onlyBytecode.stream().limit(10).forEach(e -> System.out.println("  bytecode seul : " + e));
+    }
+
+    /** Chemin JDT de {@link CliApp} : parsing + CallGraphVisitor en parallèle, fusion puis lien. */
+    static CallGraph jdtCallGraph(List<Path> files, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CallGraphVisitor>> parts = new ArrayList<>(files.size());
+            for (Path f : files) {
+                parts.add(pool.submit(() -> {
+                    CompilationUnit cu = SourceParser.parseSource(Files.readString(f, StandardCharsets.UTF_8));
+                    CallGraphVisitor v = new CallGraphVisitor();
+                    cu.accept(v);
+                    return v;
+                }));
+            }
+            CallGraph cg = new CallGraph();
+            for (Future<CallGraphVisitor> p : parts) cg.mergeFrom(p.get());
+            return cg.link();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Arêtes "pkg.A#m/arité -> pkg.B#n/arité" dont les deux classes sont dans {@code declared}. */
+    static Set<String> comparable(CallGraph cg, Set<String> declared) {
+        Set<String> out = new HashSet<>();
+        for (var e : cg.edges.entrySet()) {
+            if (!declared.contains(e.getKey().classKey())) continue;
+            for (NodeId to : e.getValue()) {
+                if (declared.contains(to.classKey())) out.add(key(e.getKey()) + " -> " + key(to));
+            }
+        }
+        return out;
+    }
+
+    private static String key(NodeId n) {
+        return n.classKey() + "#" + n.methodName + "/" + n.arity;
+    }
+
+    static int edgeCount(CallGraph cg) {
+        return cg.edges.values().stream().mapToInt(Set::size).sum();
+    }
+}
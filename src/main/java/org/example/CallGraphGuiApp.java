@@ -1,6 +1,7 @@
 package org.example;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.model.NodeId;
 import org.example.parser.SourceParser;
 import org.example.processing.CallGraph;
 import org.example.processing.FileExplorer;
@@ -9,7 +10,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.List;
@@ -23,10 +23,10 @@ public class CallGraphGuiApp {
         CallGraph cg = new CallGraph();
 
         for (Path f : files) {
-            String source = Files.readString(f, StandardCharsets.UTF_8); // facultatif (non utilisé)
             CompilationUnit cu = SourceParser.parseFile(f);
             cg.mergeFrom(cu);
         }
+        cg.link();
 
         SwingUtilities.invokeLater(() -> show(cg));
     }
@@ -52,12 +52,12 @@ public class CallGraphGuiApp {
 
     // --------------------- Rendu ---------------------
     static class GraphPanel extends JPanel {
-        private final Map<String, Point> pos = new HashMap<>();
-        private final List<String> nodes;
-        private final Map<String, Set<String>> edges;
+        private final Map<NodeId, Point> pos = new HashMap<>();
+        private final List<NodeId> nodes;
+        private final Map<NodeId, Set<NodeId>> edges;
 
-        private String focused = null;
-        private String draggingNode = null;
+        private NodeId focused = null;
+        private NodeId draggingNode = null;
         private Point dragOffset = new Point(0,0);
 
         private double zoom = 1.0;
@@ -74,7 +74,7 @@ public class CallGraphGuiApp {
             addMouseListener(new java.awt.event.MouseAdapter() {
                 @Override public void mouseClicked(java.awt.event.MouseEvent e) {
                     Point wp = toWorld(e.getPoint());
-                    String hit = hitTest(wp);
+                    NodeId hit = hitTest(wp);
                     if (hit != null) { focused = hit.equals(focused) ? null : hit; repaint(); }
                 }
                 @Override public void mousePressed(java.awt.event.MouseEvent e) {
@@ -210,21 +210,22 @@ public class CallGraphGuiApp {
                 }
             }
             // nodes (après) pour que la flèche reste visible au bord
-            for (String n : nodes) drawNode(g2, n, n.equals(focused));
+            for (NodeId n : nodes) drawNode(g2, n, n.equals(focused));
         }
 
         private Rectangle nodeRect(Point c) { return new Rectangle(c.x-80, c.y-18, 160, 36); }
 
-        private String hitTest(Point p) {
+        private NodeId hitTest(Point p) {
             for (var e : pos.entrySet()) {
                 if (nodeRect(e.getValue()).contains(p)) return e.getKey();
             }
             return null;
         }
 
-        private void drawNode(Graphics2D g2, String name, boolean focus) {
-            Point c = pos.get(name);
+        private void drawNode(Graphics2D g2, NodeId node, boolean focus) {
+            Point c = pos.get(node);
             Rectangle r = nodeRect(c);
+            String name = node.label();                                    // affichage court "Class#method"
 
             boolean isExternal = name.startsWith("<external>");           // ex: "<external>#getX"
             boolean isSqrt     = "<external>#sqrt".equals(name);          // cible: ext#sqrt
@@ -256,7 +257,7 @@ public class CallGraphGuiApp {
             g2.drawString(label, tx, ty);
         }
 
-        private void drawEdge(Graphics2D g2, String from, String to, Color col) {
+        private void drawEdge(Graphics2D g2, NodeId from, NodeId to, Color col) {
             Point a = pos.get(from), b = pos.get(to);
             if (a == null || b == null) return;
 
@@ -0,0 +1,625 @@
+package org.example;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+import org.example.parser.SourceParser;
+import org.example.processing.*;
+import org.example.visitor.CallGraphVisitor;
+import org.example.visitor.MetricsCollector;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Exécution sans interface graphique (CI, conteneurs sans display).
+ *
+ * Usage : CliApp [--src DIR|ARCHIVE[,...]] [--scope SPEC | --classes A,B,C] [--threads N] [--format ndjson|json]
+ *                [--out FICHIER] [--cp 0.30] [--threshold X] [--module-depth 3] [--metrics]
+ *                [--file-timeout 60] [--report-top 10] [--exclude GLOB,GLOB] [--no-default-excludes]
+ *                [--max-asts K] [--hotspots 20] [--shard K/N [--shard-by hash|module]] [--partial FICHIER]
+ *                [--merge FICHIER,FICHIER...] [--jfr ENREGISTREMENT.jfr,...] [--dispatch none|cha|rta]
+ *                [--java NIVEAU] [--query REQUÊTE]...
+ *
+ * SPEC suit {@link ClassScope#parse(String)} : "declared" (défaut), "pkg:org.example", "glob:org.*.Shape*"...
+ *
+ * En NDJSON, un enregistrement par ligne est émis dès qu'il est disponible :
+ * "file" (métriques par fichier), "edge" (arêtes du graphe d'appel), "coupling" (paires aux niveaux
+ * classe / package / module), "module", puis "summary"
+ * (durée totale et pic mémoire). En JSON, les mêmes enregistrements sont regroupés dans un document.
+ *
+ * --src accepte plusieurs racines (répété ou séparées par des virgules), dossiers ou archives
+ * .jar/.zip (ex: un "-sources.jar" de dépendance) lues sans extraction ; elles sont parcourues en parallèle.
+ *
+ * Les sources sont découvertes par un parcours parallèle qui élague target/, build/, .git,
+ * node_modules... et applique le .gitignore de la racine et les motifs --exclude ; chaque fichier
+ * est transmis au parsing dès sa découverte.
+ *
+ * Chaque fichier est chronométré (durée, nœuds AST) : la section "fileReport" classe les K fichiers
+ * les plus lents et les plus gros et liste les échecs. Un fichier dont l'analyse dépasse
+ * --file-timeout secondes est abandonné (statut "timeout") sans bloquer le reste du scan ; un fichier qui
+ * attend un jeton d'AST plus longtemps que ce délai est abandonné aussi.
+ *
+ * La section "hotspots" classe les --hotspots méthodes de score complexité cyclomatique × (1 + fan-in)
+ * le plus élevé, avec imbrication, sites d'appel et fan-in / fan-out.
+ *
+ * La section "classes" donne LCOM4, CBO, RFC, DIT et NOC par classe déclarée ({@link ClassMetrics}).
+ *
+ * --max-asts K borne la mémoire : au plus K AST JDT vivants à la fois ({@link AstBudget}) ; un worker
+ * attend un jeton avant de parser et le rend après la dernière visite. Un worker abandonné pour délai
+ * dépassé garde son jeton (et son AST) jusqu'à ce que son parsing rende la main : la borne reste
+ * stricte, mais des parsings bloqués réduisent d'autant le budget des fichiers suivants, qui finissent
+ * en "timeout" si plus aucun jeton ne se libère. Le résumé donne le pic
+ * d'AST vivants ("peakLiveAsts") et le temps d'attente cumulé ("astWaitMs").
+ *
+ * Analyse répartie : --shard K/N ne garde que la K-ième part des fichiers ({@link Shard}, par hachage du
+ * chemin ou par module) et --partial FICHIER écrit un résultat partiel fusionnable ({@link ShardResult}) ;
+ * le graphe n'est alors pas lié et seules les sections "files", "fileReport" et un résumé sont émises.
+ * --merge A,B,... relit des résultats partiels à la place du parcours et produit la sortie complète
+ * (lien du graphe, couplage, modules, points chauds) ; avec --partial, la fusion est elle-même
+ * fusionnable (réduction en arbre). Les shards peuvent tourner dans des processus séparés :
+ *   CliApp --shard 1/2 --partial s1.bin   et   CliApp --shard 2/2 --partial s2.bin   (en parallèle),
+ *   puis CliApp --merge s1.bin,s2.bin
+ *
+ * --jfr lit des enregistrements JFR de production ({@link JfrImporter}, en flux) : les arêtes observées
+ * (section "profile", poids = échantillons jdk.ExecutionSample) remplacent les appels statiques pour le
+ * couplage et le clustering, qui reflètent alors le trafic réel.
+ *
+ * --dispatch étend les appels virtuels après le lien ({@link VirtualDispatch}) : un appel via Shape est
+ * aussi relié aux redéfinitions des sous-types (cha), ou des seuls sous-types instanciés (rta). Les
+ * arêtes ajoutées comptent dans "edges", le couplage et les modules ; le résumé donne "dispatchEdges".
+ *
+ * --query (répétable) interroge les métriques indexées ({@link MetricsQuery#run}, ex: "class.methods>5",
+ * "method.loc:top10", "method.cyclomatic:5..10 @org.example.Circle", "prefix:org.example.") ; section
+ * "queries", un enregistrement "queryHit" par résultat, par valeur décroissante.
+ *
+ * --java fixe le niveau de langage du parsing ({@link SourceParser}, défaut : le plus récent supporté
+ * par JDT ; plafonné à ce dernier avec les fonctionnalités preview). Le résumé donne "javaLevel" et
+ * "recoveredFiles" (fichiers avec erreur de syntaxe, re-parsés avec récupération).
+ *
+ * --metrics active {@link Instrumentation} : section "metrics" (latences par étape), débits dans le
+ * résumé, rapport détaillé sur stderr et MXBean "org.example:type=Instrumentation" pendant le run.
+ */
+public class CliApp {
+
+    /** Options de la ligne de commande. */
+    static final class Options {
+        List<Path> srcRoots = new ArrayList<>();   // dossiers et/ou archives .jar/.zip
+        ClassScope scope = ClassScope.declared();  // par défaut : toutes les classes déclarées dans la racine
+        int threads = Runtime.getRuntime().availableProcessors();
+        String format = "ndjson";
+        Path out = null;                      // null = sortie standard
+        double cp = 0.30;
+        int thresholdX = 3;
+        int moduleDepth = MultiLevelCoupling.DEFAULT_MODULE_DEPTH;
+        boolean metrics = false;
+        long fileTimeoutSec = 60;             // 0 = pas de limite
+        int reportTop = 10;
+        int hotspots = StatisticsService.DEFAULT_HOTSPOTS;
+        int maxAsts = 0;                      // 0 = pas de limite (au plus --threads de fait)
+        List<String> excludes = new ArrayList<>();   // motifs gitignore supplémentaires
+        boolean defaultExcludes = true;              // target, build, .git, node_modules...
+        Shard shard = null;                          // null = toutes les sources
+        Path partialOut = null;                      // résultat partiel à écrire (puis arrêt avant le lien)
+        List<Path> mergeInputs = new ArrayList<>();  // résultats partiels à fusionner (au lieu d'analyser)
+        List<Path> jfr = new ArrayList<>();          // enregistrements JFR : couplage pondéré par le trafic
+        VirtualDispatch.Mode dispatch = VirtualDispatch.Mode.NONE;   // expansion des appels virtuels
+        List<String> queries = new ArrayList<>();    // requêtes sur les métriques (MetricsQuery)
+        String javaLevel = null;                     // niveau de langage effectif (null = défaut de SourceParser)
+
+        IgnoreRules ignoreRules() {
+            IgnoreRules rules = defaultExcludes ? IgnoreRules.defaults() : IgnoreRules.none();
+            return rules.withPatterns(excludes);
+        }
+    }
+
+    /** Attente maximale sur les résultats quand le parcours peut encore livrer des fichiers. */
+    private static final long WALK_POLL_NS = 2_000_000L;
+
+    /** Résultat de l'analyse d'un fichier par un worker. */
+    private record FileResult(Path file, MetricsCollector.FileMetrics metrics,
+                              CallGraphVisitor calls, Exception error,
+                              long nanos, long bytes, int astNodes) {}
+
+    /**
+     * Fichier en cours d'analyse (pour le contrôle du délai). Tant qu'il attend un jeton d'AST, son
+     * délai court depuis la soumission ; une fois le jeton obtenu, depuis le début de l'analyse.
+     * {@code permit} suit le jeton (WAITING -> HOLDING -> RELEASED) : seul le worker le rend, à sa
+     * sortie ; {@link #expire} ne fait que marquer RELEASED un fichier qui ne l'a pas encore obtenu.
+     */
+    private record InFlight(Path file, long submitted, AtomicLong started, AtomicInteger permit) {
+        static final int WAITING = 0, HOLDING = 1, RELEASED = 2;
+
+        InFlight(Path file) {
+            this(file, System.nanoTime(), new AtomicLong(), new AtomicInteger(WAITING));
+        }
+
+        /** Début effectif de l'analyse (jeton d'AST obtenu) ; 0 tant que le fichier attend. */
+        long startNanos() { return started.get(); }
+
+        /** Origine du délai : début de l'analyse, ou soumission tant que le jeton n'est pas obtenu. */
+        long clockNanos() {
+            long s = started.get();
+            return s != 0 ? s : submitted;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt;
+        try {
+            opt = parseArgs(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("ERROR " + ex.getMessage());
+            System.err.println("Usage: CliApp [--src DIR|JAR[,...]] [--scope SPEC | --classes A,B,C] [--threads N] "
+                    + "[--format ndjson|json] [--out FILE] [--cp 0.30] [--threshold X] [--module-depth N] [--metrics] [--file-timeout SEC] [--report-top K]"
+                    + " [--exclude GLOB,GLOB] [--no-default-excludes] [--max-asts K] [--hotspots K]"
+                    + " [--shard K/N [--shard-by hash|module]] [--partial FILE] [--merge FILE,FILE] [--jfr FILE,FILE]"
+                    + " [--dispatch none|cha|rta] [--java LEVEL] [--query Q]...");
+            System.exit(2);
+            return;
+        }
+
+        OutputStream os = opt.out == null ? System.out : Files.newOutputStream(opt.out);
+        int failures;
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+            failures = run(opt, w);
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    static Options parseArgs(String[] args) {
+        Options opt = new Options();
+        String shardSpec = null;
+        Shard.Mode shardMode = Shard.Mode.HASH;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--metrics")) { opt.metrics = true; continue; }
+            if (a.equals("--no-default-excludes")) { opt.defaultExcludes = false; continue; }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("valeur manquante pour " + a);
+            String v = args[++i];
+            switch (a) {
+                case "--src" -> {
+                    for (String s : v.split(",")) opt.srcRoots.add(Paths.get(s).toAbsolutePath().normalize());
+                }
+                case "--scope" -> opt.scope = ClassScope.parse(v);
+                case "--classes" -> opt.scope = ClassScope.parse("names:" + v);
+                case "--threads" -> opt.threads = Math.max(1, Integer.parseInt(v));
+                case "--format" -> {
+                    if (!v.equals("ndjson") && !v.equals("json"))
+                        throw new IllegalArgumentException("format inconnu: " + v);
+                    opt.format = v;
+                }
+                case "--out" -> opt.out = Paths.get(v);
+                case "--cp" -> opt.cp = Double.parseDouble(v);
+                case "--threshold" -> opt.thresholdX = Integer.parseInt(v);
+                case "--module-depth" -> opt.moduleDepth = Integer.parseInt(v);
+                case "--file-timeout" -> opt.fileTimeoutSec = Math.max(0, Long.parseLong(v));
+                case "--report-top" -> opt.reportTop = Math.max(0, Integer.parseInt(v));
+                case "--max-asts" -> opt.maxAsts = Math.max(0, Integer.parseInt(v));
+                case "--hotspots" -> opt.hotspots = Math.max(0, Integer.parseInt(v));
+                case "--exclude" -> opt.excludes.addAll(Arrays.asList(v.split(",")));
+                case "--shard" -> shardSpec = v;
+                case "--shard-by" -> shardMode = Shard.parseMode(v);
+                case "--partial" -> opt.partialOut = Paths.get(v);
+                case "--dispatch" -> opt.dispatch = VirtualDispatch.Mode.parse(v);
+                case "--query" -> {
+                    MetricsQuery.of(List.of()).run(v);   // syntaxe et métrique vérifiées dès la ligne de commande
+                    opt.queries.add(v);
+                }
+                case "--java" -> {
+                    opt.javaLevel = SourceParser.setLanguageLevel(v);
+                    if (SourceParser.previewEnabled())
+                        System.err.println("WARN niveau " + v + " non supporté par JDT, analyse en " + opt.javaLevel + " avec preview");
+                }
+                case "--jfr" -> {
+                    for (String s : v.split(",")) opt.jfr.add(Paths.get(s));
+                }
+                case "--merge" -> {
+                    for (String s : v.split(",")) opt.mergeInputs.add(Paths.get(s));
+                }
+                default -> throw new IllegalArgumentException("option inconnue: " + a);
+            }
+        }
+        if (shardSpec != null) opt.shard = Shard.parse(shardSpec, shardMode);
+        if (opt.shard != null && !opt.mergeInputs.isEmpty())
+            throw new IllegalArgumentException("--shard et --merge sont exclusifs");
+        if (opt.srcRoots.isEmpty()) opt.srcRoots.add(detectSrcRoot());
+        return opt;
+    }
+
+    /** Lance l'analyse et écrit les enregistrements ; renvoie le nombre de fichiers en échec. */
+    static int run(Options opt, Writer w) throws Exception {
+        long t0 = System.nanoTime();
+        boolean ndjson = opt.format.equals("ndjson");
+        if (opt.metrics) {
+            Instrumentation.enable();
+            Instrumentation.registerMBean();
+        }
+        RecordSink sink = new RecordSink(w, ndjson);
+
+        // 1) Analyse des sources (éventuellement d'un seul shard), ou fusion de résultats partiels
+        AstBudget budget = new AstBudget(opt.maxAsts);
+        ShardResult partial;
+        if (opt.mergeInputs.isEmpty()) {
+            partial = ShardResult.forShard(opt.shard);
+            analyzeSources(opt, sink, partial, budget);
+        } else {
+            partial = ShardResult.merge(opt.mergeInputs);
+            sink.section("files");
+            for (var fm : partial.files) sink.record(JsonExporter.fileRecord(fm));
+        }
+        List<MetricsCollector.FileMetrics> all = partial.files;
+        CallGraph callGraph = partial.calls;
+        FileReport report = partial.report;
+
+        // Résultat partiel : graphe non lié (les cibles d'un shard peuvent être déclarées dans un autre)
+        if (opt.partialOut != null) {
+            partial.write(opt.partialOut);
+            return finishPartial(opt, sink, partial, t0);
+        }
+        callGraph.link();
+        int dispatched = VirtualDispatch.expand(callGraph, opt.dispatch);
+        int failures = report.failureCount();
+
+        emitFileReport(opt, sink, report);
+
+        // Métriques de classe (cohésion, couplage, héritage)
+        sink.section("classes");
+        Map<String, ClassMetrics.Result> classMetrics = ClassMetrics.compute(all, callGraph);
+        for (ClassMetrics.Result r : classMetrics.values()) sink.record(JsonExporter.classRecord(r));
+
+        // 2) Arêtes du graphe d'appel
+        sink.section("edges");
+        for (var e : callGraph.edges.entrySet()) {
+            for (NodeId to : e.getValue()) sink.record(JsonExporter.edgeRecord(e.getKey(), to));
+        }
+
+        // 3) Couplage classe / package / module (un seul parcours), puis clustering + modules
+        Set<String> allowed = opt.scope.resolve(callGraph.declaredClasses);
+        MultiLevelCoupling levels;
+        CallProfile profile = null;
+        if (opt.jfr.isEmpty()) {
+            levels = MultiLevelCoupling.fromCallGraph(callGraph, opt.scope, opt.moduleDepth);
+        } else {
+            // couplage pondéré par les échantillons JFR plutôt que par les sites d'appel statiques
+            profile = JfrImporter.importRecordings(opt.jfr, callGraph);
+            sink.section("profile");
+            for (var e : profile.weights.entrySet()) {
+                for (var t : e.getValue().entrySet()) sink.record(JsonExporter.profileEdgeRecord(e.getKey(), t.getKey(), t.getValue()));
+            }
+            levels = MultiLevelCoupling.fromProfile(profile, callGraph, opt.scope, opt.moduleDepth);
+        }
+        CouplingGraph coupling = levels.level(MultiLevelCoupling.Level.CLASS);   // clustering : niveau classe du même parcours
+        sink.section("coupling");
+        for (MultiLevelCoupling.Level level : MultiLevelCoupling.Level.values()) {
+            CouplingGraph g = levels.level(level);
+            String name = level.name().toLowerCase(Locale.ROOT);
+            for (var e : g.counts().entrySet()) {
+                double weight = e.getValue() / (double) g.total();
+                sink.record(JsonExporter.couplingRecord(name, e.getKey(), e.getValue(), weight));
+            }
+        }
+        sink.section("modules");
+        if (!allowed.isEmpty()) {
+            HierarchicalClustering hac = new HierarchicalClustering(allowed, coupling);
+            HierarchicalClustering.Node root = hac.cluster();
+            int maxModules = Math.max(1, allowed.size() / 2);
+            List<ModulesExtractor.Module> modules = ModulesExtractor.cutIntoModules(root, hac, opt.cp, maxModules);
+            for (int i = 0; i < modules.size(); i++) sink.record(JsonExporter.moduleRecord(i + 1, modules.get(i)));
+        }
+
+        // 4) Résumé : métriques globales, durée et pic mémoire
+        StatisticsService.ProjectMetrics pm = StatisticsService.aggregate(all, opt.thresholdX, callGraph, opt.hotspots);
+        sink.section("hotspots");
+        for (int i = 0; i < pm.hotspots.size(); i++) sink.record(JsonExporter.hotspotRecord(i + 1, pm.hotspots.get(i)));
+        if (!opt.queries.isEmpty()) {
+            sink.section("queries");
+            MetricsQuery query = MetricsQuery.of(all);
+            for (String q : opt.queries) {
+                int rank = 1;
+                for (MetricsQuery.Hit<String> h : query.run(q)) sink.record(JsonExporter.queryHitRecord(q, rank++, h));
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        long peakHeap = peakHeapUpperBoundBytes();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("srcRoot", opt.srcRoots.stream().map(Path::toString).collect(Collectors.joining(",")));
+        summary.put("scope", opt.scope.toString());
+        summary.put("threads", opt.threads);
+        summary.put("files", pm.totalFiles);
+        summary.put("failedFiles", report.count(FileReport.Status.FAILED));
+        summary.put("timedOutFiles", report.count(FileReport.Status.TIMEOUT));
+        summary.put("packages", pm.totalPackages);
+        summary.put("classes", pm.totalClasses);
+        summary.put("methods", pm.totalMethods);
+        summary.put("fields", pm.totalFields);
+        summary.put("loc", pm.totalLoc);
+        summary.put("avgCyclomatic", pm.avgCyclomatic);
+        summary.put("maxCyclomatic", pm.maxCyclomatic);
+        summary.put("maxNesting", pm.maxNestingDepth);
+        summary.put("callSites", pm.totalCallSites);
+        summary.put("maxLcom4", classMetrics.values().stream().mapToInt(ClassMetrics.Result::lcom4).max().orElse(0));
+        summary.put("maxCbo", classMetrics.values().stream().mapToInt(ClassMetrics.Result::cbo).max().orElse(0));
+        summary.put("maxDit", classMetrics.values().stream().mapToInt(ClassMetrics.Result::dit).max().orElse(0));
+        summary.put("callEdges", callGraph.edges.values().stream().mapToInt(Set::size).sum());
+        summary.put("dispatch", opt.dispatch.name().toLowerCase(Locale.ROOT));
+        summary.put("dispatchEdges", dispatched);
+        summary.put("javaLevel", SourceParser.languageLevel());
+        if (opt.mergeInputs.isEmpty()) summary.put("recoveredFiles", SourceParser.recoveredFiles());
+        summary.put("interClassCalls", coupling.total());
+        if (profile != null) {
+            summary.put("profileSamples", profile.samples);
+            summary.put("profileMappedSamples", profile.mappedSamples);
+            summary.put("profileEdges", profile.edgeCount());
+            summary.put("profileUnmappedFrames", profile.unmappedFrames);
+        }
+        summary.put("elapsedMs", elapsedMs);
+        summary.put("peakHeapUpperBoundBytes", peakHeap);
+        summary.put("maxLiveAsts", budget.bounded() ? budget.limit() : 0);
+        summary.put("peakLiveAsts", budget.peak());
+        summary.put("astWaitMs", budget.waitNanos() / 1_000_000);
+        if (opt.metrics) {
+            summary.put("filesPerSec", Instrumentation.filesPerSecond());
+            summary.put("astNodes", Instrumentation.astNodes());
+            summary.put("astNodesPerSec", Instrumentation.astNodesPerSecond());
+            summary.put("allocatedBytes", Instrumentation.allocatedBytes());
+            sink.section("metrics");
+            for (Map<String, Object> stage : Instrumentation.stageSnapshots()) sink.record(JsonExporter.object(stage));
+        }
+        sink.section("summary");
+        sink.record(JsonExporter.object(summary));
+        sink.finish();
+
+        System.err.printf(Locale.ROOT, "Terminé en %d ms, pic mémoire heap <= %.1f Mo, pic d'AST vivants = %d, %d fichier(s) en échec%n",
+                elapsedMs, peakHeap / (1024.0 * 1024.0), budget.peak(), failures);
+        System.err.print(report.toText(opt.reportTop));
+        if (opt.metrics) System.err.print(Instrumentation.report());
+        return failures;
+    }
+
+    /** Bilan par fichier : plus lents, plus gros, échecs. */
+    private static void emitFileReport(Options opt, RecordSink sink, FileReport report) throws IOException {
+        sink.section("fileReport");
+        int rank = 1;
+        for (FileReport.Entry e : report.slowest(opt.reportTop)) sink.record(JsonExporter.fileReportRecord("slowFile", rank++, e));
+        rank = 1;
+        for (FileReport.Entry e : report.largest(opt.reportTop)) sink.record(JsonExporter.fileReportRecord("largeFile", rank++, e));
+        for (FileReport.Entry e : report.failures()) sink.record(JsonExporter.fileReportRecord("failedFile", 0, e));
+    }
+
+    /** Fin d'un run qui écrit un résultat partiel : bilan par fichier et résumé du shard, sans lien ni couplage. */
+    private static int finishPartial(Options opt, RecordSink sink, ShardResult partial, long t0) throws IOException {
+        FileReport report = partial.report;
+        int failures = report.failureCount();
+        emitFileReport(opt, sink, report);
+
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        long peakHeap = peakHeapUpperBoundBytes();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("srcRoot", opt.srcRoots.stream().map(Path::toString).collect(Collectors.joining(",")));
+        summary.put("shard", opt.shard == null ? "" : opt.shard.toString());
+        summary.put("shardsCovered", partial.shards.cardinality());
+        summary.put("shardCount", partial.shardCount);
+        summary.put("partial", opt.partialOut.toString());
+        summary.put("partialBytes", Files.size(opt.partialOut));
+        summary.put("files", partial.files.size());
+        summary.put("failedFiles", report.count(FileReport.Status.FAILED));
+        summary.put("timedOutFiles", report.count(FileReport.Status.TIMEOUT));
+        summary.put("javaLevel", SourceParser.languageLevel());
+        if (opt.mergeInputs.isEmpty()) summary.put("recoveredFiles", SourceParser.recoveredFiles());
+        summary.put("callers", partial.calls.edges.size());
+        summary.put("callEdges", partial.calls.edges.values().stream().mapToInt(Set::size).sum());
+        summary.put("elapsedMs", elapsedMs);
+        summary.put("peakHeapUpperBoundBytes", peakHeap);
+        sink.section("summary");
+        sink.record(JsonExporter.object(summary));
+        sink.finish();
+
+        System.err.printf(Locale.ROOT, "Résultat partiel %s écrit en %d ms (%d fichiers, shards %d/%d), pic mémoire heap <= %.1f Mo%n",
+                opt.partialOut, elapsedMs, partial.files.size(), partial.shards.cardinality(), partial.shardCount,
+                peakHeap / (1024.0 * 1024.0));
+        return failures;
+    }
+
+    /**
+     * Parcours, parsing + métriques + arêtes en parallèle ; les fichiers hors du shard sont écartés
+     * dès leur découverte. Les résultats sont accumulés dans {@code out}.
+     */
+    private static void analyzeSources(Options opt, RecordSink sink, ShardResult out, AstBudget budget) throws Exception {
+        List<MetricsCollector.FileMetrics> all = out.files;
+        CallGraph callGraph = out.calls;
+        FileReport report = out.report;
+
+        // Écriture au fil de l'eau (ordre de complétion). Au plus opt.threads fichiers en cours ; un fichier
+        // qui dépasse le délai est abandonné : son thread (démon) finit dans le vide et un nouveau worker prend la suite.
+        ExecutorService pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "analyze-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        long timeoutNs = opt.fileTimeoutSec * 1_000_000_000L;
+        FileExplorer.Scan scan = FileExplorer.scan(opt.srcRoots, opt.ignoreRules(), opt.threads);
+        try {
+            CompletionService<FileResult> cs = new ExecutorCompletionService<>(pool);
+            Map<Future<FileResult>, InFlight> inFlight = new HashMap<>();
+
+            sink.section("files");
+            while (!scan.finished() || !inFlight.isEmpty()) {
+                // emplacements libres : chemins déjà découverts ; n'attend le parcours que si rien ne tourne
+                while (inFlight.size() < opt.threads && !scan.finished()) {
+                    Path f = scan.next(inFlight.isEmpty() ? 50 : 0, TimeUnit.MILLISECONDS);
+                    if (f == null) break;
+                    if (opt.shard != null && !opt.shard.includes(f, opt.srcRoots)) continue;
+                    InFlight task = new InFlight(f);
+                    inFlight.put(cs.submit(() -> analyze(task, budget)), task);
+                }
+                if (inFlight.isEmpty()) continue;
+
+                long wait = timeoutNs > 0 ? untilNextDeadline(inFlight.values(), timeoutNs) : Long.MAX_VALUE;
+                if (!scan.finished() && inFlight.size() < opt.threads) wait = Math.min(wait, WALK_POLL_NS);
+                Future<FileResult> done = cs.poll(wait, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (timeoutNs > 0) expire(inFlight, timeoutNs, report);
+                    continue;
+                }
+                if (inFlight.remove(done) == null) continue;   // déjà abandonné pour délai dépassé
+
+                FileResult r = done.get();
+                if (r.error != null) {
+                    report.failed(FileExplorer.describe(r.file), r.nanos, r.error);
+                    Instrumentation.fileFailed();
+                    System.err.println("WARN parse: " + FileExplorer.describe(r.file) + " : " + r.error.getMessage());
+                    continue;
+                }
+                report.ok(FileExplorer.describe(r.file), r.nanos, r.bytes, r.astNodes);
+                all.add(r.metrics);
+                callGraph.mergeFrom(r.calls);
+                sink.record(JsonExporter.fileRecord(r.metrics));
+            }
+        } finally {
+            pool.shutdownNow();
+            FileExplorer.closeArchives();
+        }
+    }
+
+    /**
+     * Analyse d'un fichier : parsing puis visites, l'AST n'étant référencé que dans ce cadre.
+     * Le jeton du budget est pris avant le parsing et rendu après la dernière visite, même si le
+     * fichier a été abandonné entre-temps : l'AST reste vivant tant que ce thread tourne.
+     */
+    private static FileResult analyze(InFlight task, AstBudget budget) throws InterruptedException {
+        Path f = task.file();
+        budget.acquire();
+        if (!task.permit().compareAndSet(InFlight.WAITING, InFlight.HOLDING)) {
+            budget.release();   // abandonné pendant l'attente du jeton
+            throw new CancellationException("abandonné avant analyse: " + f);
+        }
+        long start = System.nanoTime();
+        task.started().set(start);
+        long alloc0 = Instrumentation.threadAllocatedBytes();
+        try {
+            long t0 = Instrumentation.start();
+            String source = Files.readString(f, StandardCharsets.UTF_8);
+            Instrumentation.stop(Instrumentation.Stage.READ, t0);
+            CompilationUnit cu = SourceParser.parseSource(source);
+            MetricsCollector.FileMetrics fm = MetricsCollector.collect(cu, source, FileExplorer.describe(f));
+            t0 = Instrumentation.start();
+            CallGraphVisitor v = new CallGraphVisitor();
+            cu.accept(v);
+            Instrumentation.stop(Instrumentation.Stage.CALL_VISIT, t0);
+            int nodes = Instrumentation.countNodes(cu);
+            Instrumentation.fileDone(nodes, alloc0);
+            return new FileResult(f, fm, v, null, System.nanoTime() - start, Files.size(f), nodes);
+        } catch (Exception ex) {
+            return new FileResult(f, null, null, ex, System.nanoTime() - start, -1, -1);
+        } finally {
+            if (task.permit().compareAndSet(InFlight.HOLDING, InFlight.RELEASED)) budget.release();
+        }
+    }
+
+    /** Délai restant avant la première échéance parmi les fichiers en cours (au moins 1 ms). */
+    private static long untilNextDeadline(Collection<InFlight> inFlight, long timeoutNs) {
+        long now = System.nanoTime(), wait = timeoutNs;
+        for (InFlight f : inFlight) {
+            wait = Math.min(wait, f.clockNanos() + timeoutNs - now);
+        }
+        return Math.max(wait, 1_000_000L);
+    }
+
+    /**
+     * Abandonne les fichiers qui ont dépassé le délai (analyse trop longue, ou attente d'un jeton
+     * trop longue). Le jeton d'une analyse abandonnée n'est pas rendu ici : son thread tient encore
+     * l'AST, il le rendra en sortant ({@code --max-asts} reste une borne stricte, pic compris).
+     */
+    private static void expire(Map<Future<FileResult>, InFlight> inFlight, long timeoutNs, FileReport report) {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Future<FileResult>, InFlight>> it = inFlight.entrySet().iterator(); it.hasNext(); ) {
+            var e = it.next();
+            InFlight task = e.getValue();
+            long elapsed = now - task.clockNanos();
+            if (elapsed < timeoutNs) continue;
+            boolean waiting = task.startNanos() == 0;
+            e.getKey().cancel(true);   // JDT ignore l'interruption : le thread est simplement abandonné
+            it.remove();
+            task.permit().compareAndSet(InFlight.WAITING, InFlight.RELEASED);   // jeton obtenu plus tard : rendu aussitôt
+            report.timedOut(FileExplorer.describe(task.file()), elapsed);
+            Instrumentation.fileFailed();
+            System.err.println("WARN timeout: " + FileExplorer.describe(task.file()) + " (> " + timeoutNs / 1_000_000_000L + " s"
+                    + (waiting ? ", en attente d'un jeton d'AST)" : ")"));
+        }
+    }
+
+    /**
+     * Somme des pics d'utilisation des pools mémoire de type heap depuis le démarrage de la JVM (ou
+     * le dernier resetPeakUsage). Les pools n'atteignent pas leur pic au même instant : c'est un
+     * majorant du pic réel de la heap, pas une mesure.
+     */
+    static long peakHeapUpperBoundBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static Path detectSrcRoot() {
+        Path cwd = Paths.get("").toAbsolutePath().normalize();
+        Path s2 = cwd.resolve("src/main/java");
+        Path s1 = cwd.resolve("src");
+        return Files.isDirectory(s2) ? s2 : (Files.isDirectory(s1) ? s1 : cwd);
+    }
+
+    /**
+     * Écrit les enregistrements : une ligne par enregistrement en NDJSON (flush immédiat),
+     * ou un document {"files":[...],"edges":[...],"modules":[...],"summary":[...]} en JSON.
+     */
+    static final class RecordSink {
+        private final Writer w;
+        private final boolean ndjson;
+        private boolean firstSection = true;
+        private boolean firstRecord = true;
+
+        RecordSink(Writer w, boolean ndjson) { this.w = w; this.ndjson = ndjson; }
+
+        void section(String name) throws IOException {
+            if (ndjson) return;
+            w.write(firstSection ? "{" : "],");
+            w.write(JsonExporter.quote(name));
+            w.write(":[");
+            firstSection = false;
+            firstRecord = true;
+        }
+
+        void record(String json) throws IOException {
+            if (ndjson) {
+                w.write(json);
+                w.write('\n');
+                w.flush();
+            } else {
+                if (!firstRecord) w.write(',');
+                w.write(json);
+                firstRecord = false;
+            }
+        }
+
+        void finish() throws IOException {
+            if (!ndjson) w.write(firstSection ? "{}\n" : "]}\n");
+            w.flush();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.example;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.instrumentation.Instrumentation;
 import org.example.parser.SourceParser;
 import org.example.processing.*;
 
@@ -12,9 +13,15 @@ import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
 
-/** UI Swing : onglet Dendrogramme + onglet Modules (avec CP). */
+/**
+ * UI Swing : onglet Dendrogramme + onglet Modules (avec CP).
+ * Arguments : [racineSources] [périmètre] — périmètre au format {@link ClassScope#parse(String)},
+ * par défaut les 4 classes du sujet.
+ */
 public class ClusteringGuiApp {
 
+    static final String DEFAULT_SCOPE = "names:Shape,Point,Rectangle,Circle";
+
     public static void main(String[] args) throws Exception {
         // 0) Détection SRC
         Path srcRoot;
@@ -30,17 +37,23 @@ public class ClusteringGuiApp {
         // 1) Construit CallGraph
         var files = FileExplorer.listJavaFiles(srcRoot);
         CallGraph callGraph = new CallGraph();
+        FileReport report = new FileReport();
         for (Path f : files) {
+            long t0 = System.nanoTime();
             try {
                 CompilationUnit cu = SourceParser.parseFile(f);
                 callGraph.mergeFrom(cu);
+                report.ok(f.toString(), System.nanoTime() - t0, Files.size(f), Instrumentation.countNodes(cu));
             } catch (Exception ex) {
-                System.err.println("WARN parse: " + f + " : " + ex.getMessage());
+                report.failed(f.toString(), System.nanoTime() - t0, ex);
             }
         }
+        System.err.print(report.toText(5));
+        callGraph.link();
 
-        // 2) CouplingGraph filtré aux classes internes (tu peux restreindre si besoin)
-        Set<String> allowed = new LinkedHashSet<>(List.of("Shape","Point","Rectangle","Circle"));
+        // 2) CouplingGraph filtré au périmètre choisi (ex: "declared", "pkg:org.example")
+        ClassScope scope = ClassScope.parse(args.length > 1 ? args[1] : DEFAULT_SCOPE);
+        Set<String> allowed = scope.resolve(callGraph.declaredClasses);
         CouplingGraph cg = CouplingGraph.fromCallGraph(callGraph, allowed);
 
         // 3) Clustering hiérarchique
@@ -73,18 +86,22 @@ public class ClusteringGuiApp {
         modulesPanel.add(top, BorderLayout.NORTH);
         modulesPanel.add(new JScrollPane(list), BorderLayout.CENTER);
 
+        // Toutes les découpes (une par palier de CP) calculées une fois : changer CP n'est qu'une recherche
+        int M = root.classes.size();
+        int maxModules = Math.max(1, M / 2);
+        ModulesExtractor.Sweep sweep = ModulesExtractor.sweep(root, hac, maxModules);
+
         run.addActionListener(_ -> {
             double CP;
             try { CP = Double.parseDouble(cpField.getText().trim()); }
             catch (Exception ex) { JOptionPane.showMessageDialog(f, "CP invalide"); return; }
-            int M = root.classes.size();
-            int maxModules = Math.max(1, M / 2);
 
-            List<ModulesExtractor.Module> modules =
-                    ModulesExtractor.cutIntoModules(root, hac, CP, maxModules);
+            ModulesExtractor.Cut cut = sweep.cutAt(CP);
+            List<ModulesExtractor.Module> modules = cut.modules();
 
             model.clear();
-            model.addElement(String.format("M = %d, max modules = %d, CP = %.3f", M, maxModules, CP));
+            model.addElement(String.format("M = %d, max modules = %d, CP = %.3f (même découpe pour CP dans ]%.4f, %.4f])",
+                    M, maxModules, CP, cut.fromCp(), cut.toCp()));
             model.addElement("--------------------------------------------------------------");
             for (int i=0;i<modules.size();i++) {
                 var m = modules.get(i);
@@ -187,7 +204,7 @@ public class ClusteringGuiApp {
             drawEdges(g2, root, true);
 
             // draw leaves on top
-            for (var e : leafBox.entrySet()) drawLeaf(g2, e.getValue(), oneClass(e.getKey()));
+            for (var e : leafBox.entrySet()) drawLeaf(g2, e.getValue(), ClassScope.simpleName(oneClass(e.getKey())));
 
             g2.dispose();
         }
@@ -1,10 +1,13 @@
 package org.example;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.instrumentation.Instrumentation;
 import org.example.parser.SourceParser;
 import org.example.processing.CallGraph;
+import org.example.processing.ClassScope;
 import org.example.processing.CouplingGraph;
 import org.example.processing.FileExplorer;
+import org.example.processing.FileReport;
 
 import javax.swing.*;
 import java.awt.*;
@@ -14,8 +17,15 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.List;
 
+/**
+ * Graphe de couplage entre classes.
+ * Arguments : [racineSources] [périmètre] — périmètre au format {@link ClassScope#parse(String)},
+ * par défaut les 4 classes du sujet.
+ */
 public class CouplingGraphGuiApp {
 
+    static final String DEFAULT_SCOPE = "names:Shape,Point,Rectangle,Circle";
+
     public static void main(String[] args) throws Exception {
         // 1) SRC root (auto si vide)
         Path srcRoot;
@@ -31,18 +41,23 @@ public class CouplingGraphGuiApp {
         // 2) Build call graph (méthode->méthode)
         var javaFiles = FileExplorer.listJavaFiles(srcRoot);
         CallGraph callGraph = new CallGraph();
+        FileReport report = new FileReport();
         for (Path f : javaFiles) {
+            long t0 = System.nanoTime();
             try {
                 CompilationUnit cu = SourceParser.parseFile(f);
                 callGraph.mergeFrom(cu);
+                report.ok(f.toString(), System.nanoTime() - t0, Files.size(f), Instrumentation.countNodes(cu));
             } catch (Exception ex) {
-                System.err.println("WARN parse: " + f + " : " + ex.getMessage());
+                report.failed(f.toString(), System.nanoTime() - t0, ex);
             }
         }
+        System.err.print(report.toText(5));
+        callGraph.link();
 
-        // 3) Couplage restreint aux 4 classes demandées
-        Set<String> allowed = new LinkedHashSet<>(List.of("Shape", "Point", "Rectangle", "Circle"));
-        CouplingGraph coupling = CouplingGraph.fromCallGraph(callGraph, allowed);
+        // 3) Couplage restreint au périmètre (par défaut les 4 classes demandées)
+        ClassScope scope = ClassScope.parse(args.length > 1 ? args[1] : DEFAULT_SCOPE);
+        CouplingGraph coupling = CouplingGraph.fromCallGraph(callGraph, scope);
 
         // 4) UI
         SwingUtilities.invokeLater(() -> showUI(coupling));
@@ -72,10 +87,10 @@ public class CouplingGraphGuiApp {
             } catch (Exception ex) { JOptionPane.showMessageDialog(frame, ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE); }
         });
 
-        JLabel legend = new JLabel("  Nœuds = {Shape, Point, Rectangle, Circle} • Arêtes = poids Couplage(A,B) = #A↔B / Total inter-classes • AUCUN count affiché");
+        JLabel legend = new JLabel("  Nœuds = classes du périmètre • Arêtes = poids Couplage(A,B) = #A↔B / Total inter-classes • AUCUN count affiché");
 
         // Status bar
-        JLabel status = new JLabel("  Total relations inter-classes (sur ces 4 classes) = " + coupling.total() + "   |   Paires = " + coupling.counts().size());
+        JLabel status = new JLabel("  Total relations inter-classes (sur ces " + coupling.classes().size() + " classes) = " + coupling.total() + "   |   Paires = " + coupling.counts().size());
 
         tb.add(expDot); tb.add(expCsv); tb.add(Box.createHorizontalStrut(12)); tb.add(legend);
 
@@ -92,8 +107,8 @@ public class CouplingGraphGuiApp {
     static class CouplingPanel extends JPanel {
         private final CouplingGraph cg;
         private final java.util.List<String> classes;
-        private final java.util.Map<CouplingGraph.Pair, Integer> counts;
-        private final int total;
+        private final java.util.Map<CouplingGraph.Pair, Long> counts;
+        private final long total;
 
         private final Map<String, Point2D.Double> pos = new HashMap<>();
         private double zoom = 1.0;
@@ -108,11 +123,12 @@ public class CouplingGraphGuiApp {
             this.counts = cg.counts();
             this.total = cg.total();
 
-            // On place exactement les 4 nœuds (même si certains n'ont pas d'arêtes)
+            // On place tous les nœuds retenus (même si certains n'ont pas d'arêtes)
             Set<String> cls = new LinkedHashSet<>(cg.classes());
-            // Forcer l’ordre visuel : Shape | Circle | Point | Rectangle (modifiable)
-            this.classes = new ArrayList<>(List.of("Shape", "Circle", "Point", "Rectangle"));
-            // si certains manquent (au cas où), on les ajoute
+            // Ordre visuel : Shape | Circle | Point | Rectangle s'ils sont présents, puis les autres
+            this.classes = new ArrayList<>();
+            for (String pref : List.of("Shape", "Circle", "Point", "Rectangle"))
+                for (String c : cls) if (ClassScope.simpleName(c).equals(pref)) this.classes.add(c);
             for (String c : cls) if (!this.classes.contains(c)) this.classes.add(c);
 
             setBackground(new Color(248,250,253));
@@ -141,7 +157,7 @@ public class CouplingGraphGuiApp {
                 }
                 @Override public void mouseMoved(MouseEvent e) {
                     String hit = pick(toWorld(e.getPoint()));
-                    if (!Objects.equals(hit, hover)) { hover = hit; repaint(); }
+                    if (!Objects.equals(hit, hover)) { hover = hit; setToolTipText(hit); repaint(); }
                 }
             });
             addComponentListener(new ComponentAdapter() {
@@ -204,16 +220,17 @@ public class CouplingGraphGuiApp {
                 Font f = g2.getFont().deriveFont(Font.BOLD, 13f);
                 g2.setFont(f);
                 FontMetrics fm = g2.getFontMetrics();
-                int tx = (int) (p.getX() - fm.stringWidth(c) / 2.0);
+                String label = ClassScope.simpleName(c);   // nom qualifié au survol (tooltip)
+                int tx = (int) (p.getX() - fm.stringWidth(label) / 2.0);
                 int ty = (int) (p.getY() + (fm.getAscent() - fm.getDescent()) / 2.0);
                 g2.setColor(on ? Color.WHITE : new Color(55,63,82));
-                g2.drawString(c, tx, ty);
+                g2.drawString(label, tx, ty);
             }
 
             // 3) Légende
             g2.setTransform(new AffineTransform()); // reset
             g2.setColor(new Color(120,120,120));
-            g2.drawString("Couplage(A,B) = #A↔B / Total inter-classes (uniquement {Shape, Point, Rectangle, Circle}) — Aucune classe externe affichée", 12, getHeight()-14);
+            g2.drawString("Couplage(A,B) = #A↔B / Total inter-classes (uniquement les classes du périmètre) — Aucune classe externe affichée", 12, getHeight()-14);
 
             g2.dispose();
         }
@@ -0,0 +1,158 @@
+package org.example;
+
+import org.example.instrumentation.Instrumentation;
+import org.example.processing.CallGraph;
+import org.example.processing.ClassScope;
+import org.example.processing.CouplingGraph;
+import org.example.processing.FileExplorer;
+import org.example.processing.IgnoreRules;
+import org.example.processing.VirtualDispatch;
+import org.example.spoon.SpoonCallGraphExtractor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Comparaison des deux extracteurs de graphe d'appel sur la même racine : JDT ({@link CallGraph} via
+ * CallGraphVisitor, puis lien) et Spoon ({@link SpoonCallGraphExtractor}).
+ *
+ * Usage : ExtractorComparisonApp [--src DIR] [--threads N] [--runs 3] [--scope SPEC] [--top 10] [--dispatch none|cha|rta]
+ *
+ * Pour chaque moteur : meilleur temps sur --runs passes, pic de heap (pics des pools remis à zéro
+ * après un GC avant chaque passe) et octets alloués par tous les threads pendant la passe. Puis :
+ *  - arêtes "pkg.A#m/arité -> pkg.B#n/arité" entre classes déclarées des deux côtés : communes,
+ *    propres à chaque moteur, indice de Jaccard ;
+ *  - poids de couplage par paire de classes (périmètre --scope) : écart total (somme des |Δ| / 2,
+ *    0 = identiques, 1 = disjoints) et les --top paires les plus divergentes.
+ * Avec --dispatch, les deux graphes sont étendus aux redéfinitions ({@link VirtualDispatch}) avant
+ * la comparaison ; l'expansion est comptée dans le temps de chaque moteur.
+ */
+public class ExtractorComparisonApp {
+
+    /** Coût mesuré d'une passe. */
+    record Cost(long nanos, long peakHeapUpperBoundBytes, long allocatedBytes) {}
+
+    /** Résultat d'un moteur : graphe (lié) et meilleur coût observé. */
+    record Run(String engine, CallGraph graph, Cost best) {}
+
+    interface Engine {
+        CallGraph build() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path src = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int runs = 3, top = 10;
+        ClassScope scope = ClassScope.declared();
+        VirtualDispatch.Mode dispatch = VirtualDispatch.Mode.NONE;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--src" -> src = Paths.get(args[i + 1]).toAbsolutePath().normalize();
+                case "--threads" -> threads = Math.max(1, Integer.parseInt(args[i + 1]));
+                case "--runs" -> runs = Math.max(1, Integer.parseInt(args[i + 1]));
+                case "--scope" -> scope = ClassScope.parse(args[i + 1]);
+                case "--top" -> top = Math.max(0, Integer.parseInt(args[i + 1]));
+                case "--dispatch" -> dispatch = VirtualDispatch.Mode.parse(args[i + 1]);
+                default -> throw new IllegalArgumentException("option inconnue: " + args[i]);
+            }
+        }
+        Path root = src != null ? src : Paths.get("src/main/java").toAbsolutePath().normalize();
+        int n = threads;
+        VirtualDispatch.Mode mode = dispatch;
+
+        List<Path> files = FileExplorer.listJavaFiles(List.of(root), IgnoreRules.defaults());
+        System.out.printf(Locale.ROOT, ">>> %s : %d fichiers, %d threads, %d passes, répartition %s%n",
+                root, files.size(), threads, runs, dispatch.name().toLowerCase(Locale.ROOT));
+
+        Run jdt = measure("JDT", runs, () -> {
+            CallGraph cg = BytecodeBenchmarkApp.jdtCallGraph(files, n);
+            VirtualDispatch.expand(cg, mode);
+            return cg;
+        });
+        Run spoon = measure("Spoon", runs, () -> {
+            var model = SpoonCallGraphExtractor.buildModel(files);   // même liste que JDT (règles d'exclusion comprises)
+            CallGraph cg = new CallGraph();
+            cg.mergeEdges(SpoonCallGraphExtractor.extractEdges(model, n));
+            cg.declaredClasses.addAll(SpoonCallGraphExtractor.declaredClasses(model));
+            if (mode != VirtualDispatch.Mode.NONE) SpoonCallGraphExtractor.addHierarchy(model, cg);
+            VirtualDispatch.expand(cg, mode);
+            return cg;
+        });
+
+        System.out.println("Moteur   temps(ms)  ms/fichier  pic heap<=(Mo)  alloué(Mo)  méthodes   arêtes");
+        for (Run r : List.of(jdt, spoon)) {
+            System.out.printf(Locale.ROOT, "%-7s %10.1f %11.3f %15.1f %11.1f %9d %8d%n",
+                    r.engine, r.best.nanos / 1e6, r.best.nanos / 1e6 / Math.max(1, files.size()),
+                    r.best.peakHeapUpperBoundBytes / (1024.0 * 1024.0),
+                    r.best.allocatedBytes < 0 ? Double.NaN : r.best.allocatedBytes / (1024.0 * 1024.0),
+                    r.graph.edges.size(), BytecodeBenchmarkApp.edgeCount(r.graph));
+        }
+
+        // Arêtes
+        Set<String> declared = new TreeSet<>(jdt.graph.declaredClasses);
+        declared.retainAll(spoon.graph.declaredClasses);
+        Set<String> a = BytecodeBenchmarkApp.comparable(jdt.graph, declared);
+        Set<String> b = BytecodeBenchmarkApp.comparable(spoon.graph, declared);
+        Set<String> common = new TreeSet<>(a);
+        common.retainAll(b);
+        Set<String> onlyJdt = new TreeSet<>(a), onlySpoon = new TreeSet<>(b);
+        onlyJdt.removeAll(b);
+        onlySpoon.removeAll(a);
+        int union = common.size() + onlyJdt.size() + onlySpoon.size();
+        System.out.printf(Locale.ROOT, "%nArêtes entre %d classes communes : %d communes, %d JDT seul, %d Spoon seul (Jaccard %.3f)%n",
+                declared.size(), common.size(), onlyJdt.size(), onlySpoon.size(),
+                union == 0 ? 1.0 : common.size() / (double) union);
+        onlyJdt.stream().limit(top).forEach(e -> System.out.println("  JDT seul   : " + e));
+        onlySpoon.stream().limit(top).forEach(e -> System.out.println("  Spoon seul : " + e));
+
+        // Couplage
+        Set<String> allowed = scope.resolve(declared);
+        CouplingGraph cj = CouplingGraph.fromCallGraph(jdt.graph, allowed);
+        CouplingGraph cs = CouplingGraph.fromCallGraph(spoon.graph, allowed);
+        Set<CouplingGraph.Pair> pairs = new LinkedHashSet<>(cj.counts().keySet());
+        pairs.addAll(cs.counts().keySet());
+        List<double[]> deltas = new ArrayList<>();
+        List<CouplingGraph.Pair> order = new ArrayList<>(pairs);
+        double l1 = 0;
+        for (CouplingGraph.Pair p : order) {
+            double wj = cj.weight(p.a, p.b), ws = cs.weight(p.a, p.b);
+            l1 += Math.abs(wj - ws);
+            deltas.add(new double[] { wj, ws });
+        }
+        System.out.printf(Locale.ROOT, "%nCouplage (%s, %d classes) : %d paires JDT, %d paires Spoon, %d au total ; appels inter-classes %d / %d ; écart total %.4f%n",
+                scope, allowed.size(), cj.counts().size(), cs.counts().size(), pairs.size(), cj.total(), cs.total(), l1 / 2);
+        Integer[] idx = new Integer[order.size()];
+        for (int i = 0; i < idx.length; i++) idx[i] = i;
+        Arrays.sort(idx, Comparator.comparingDouble((Integer i) -> -Math.abs(deltas.get(i)[0] - deltas.get(i)[1]))
+                .thenComparing(i -> order.get(i).toString()));
+        for (int k = 0; k < Math.min(top, idx.length); k++) {
+            double[] d = deltas.get(idx[k]);
+            if (d[0] == d[1]) break;
+            System.out.printf(Locale.ROOT, "  %-60s JDT=%.4f  Spoon=%.4f  Δ=%+.4f%n", order.get(idx[k]), d[0], d[1], d[1] - d[0]);
+        }
+    }
+
+    /** Exécute {@code runs} passes et garde la plus rapide (chaque passe part d'un heap nettoyé). */
+    static Run measure(String name, int runs, Engine engine) throws Exception {
+        CallGraph last = null;
+        Cost best = null;
+        for (int r = 0; r < runs; r++) {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+            }
+            long alloc0 = Instrumentation.processAllocatedBytes();
+            long t0 = System.nanoTime();
+            last = engine.build();
+            long nanos = System.nanoTime() - t0;
+            long alloc1 = Instrumentation.processAllocatedBytes();
+            Cost c = new Cost(nanos, CliApp.peakHeapUpperBoundBytes(), alloc0 < 0 ? -1 : alloc1 - alloc0);
+            if (best == null || c.nanos < best.nanos) best = c;
+        }
+        return new Run(name, last, best);
+    }
+}
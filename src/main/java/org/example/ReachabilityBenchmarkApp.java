@@ -0,0 +1,90 @@
+package org.example;
+
+import org.example.model.NodeId;
+import org.example.processing.ReachabilityIndex;
+
+import java.util.*;
+
+/**
+ * Banc d'essai de {@link ReachabilityIndex} sur un graphe d'appel synthétique.
+ *
+ * Usage : ReachabilityBenchmarkApp [nbMethodes=200000] [nbAretes=1000000] [nbRequetes=100000]
+ *
+ * Le graphe est majoritairement "descendant" (couches d'appels) avec ~1 % d'arêtes remontantes
+ * pour créer des cycles (récursion mutuelle). On mesure la construction de l'index, le débit de
+ * reachable(a,b) comparé à un BFS naïf, et le temps d'énumération des tranches avant/arrière.
+ */
+public class ReachabilityBenchmarkApp {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int q = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Random rnd = new Random(7);
+
+        NodeId[] ids = new NodeId[n];
+        for (int i = 0; i < n; i++) ids[i] = NodeId.of("bench.p" + (i % 50), "C" + (i / 20), "m" + i, "");
+        Map<NodeId, Set<NodeId>> edges = new LinkedHashMap<>();
+        for (NodeId id : ids) edges.put(id, new LinkedHashSet<>());
+        for (int k = 0; k < m; k++) {
+            int a = rnd.nextInt(n);
+            int b = rnd.nextInt(100) == 0
+                    ? rnd.nextInt(n)                                      // arête quelconque (cycles)
+                    : Math.min(n - 1, a + 1 + rnd.nextInt(Math.max(1, n / 1000)));  // appel "plus bas"
+            edges.get(ids[a]).add(ids[b]);
+        }
+        int realEdges = edges.values().stream().mapToInt(Set::size).sum();
+        System.out.printf(Locale.ROOT, ">>> Graphe synthétique : %d méthodes, %d arêtes%n", n, realEdges);
+
+        long t0 = System.nanoTime();
+        ReachabilityIndex idx = ReachabilityIndex.build(edges);
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+        System.out.printf(Locale.ROOT, "Construction : %d ms, %d composantes (%s)%n", buildMs, idx.componentCount(),
+                idx.usesBitsetClosure() ? "fermeture bitset" : "intervalles GRAIL");
+
+        // reachable(a,b) : index vs BFS naïf
+        int[][] pairs = new int[q][2];
+        for (int i = 0; i < q; i++) { pairs[i][0] = rnd.nextInt(n); pairs[i][1] = rnd.nextInt(n); }
+        t0 = System.nanoTime();
+        int positives = 0;
+        for (int[] p : pairs) if (idx.reachable(ids[p[0]], ids[p[1]])) positives++;
+        double idxNs = (System.nanoTime() - t0) / (double) q;
+        System.out.printf(Locale.ROOT, "reachable (index) : %.0f ns/requête, %d positives sur %d%n", idxNs, positives, q);
+
+        int sample = Math.min(q, 200);
+        t0 = System.nanoTime();
+        int mismatches = 0;
+        for (int i = 0; i < sample; i++) {
+            boolean expected = bfs(edges, ids[pairs[i][0]], ids[pairs[i][1]]);
+            if (expected != idx.reachable(ids[pairs[i][0]], ids[pairs[i][1]])) mismatches++;
+        }
+        double bfsNs = (System.nanoTime() - t0) / (double) sample;
+        System.out.printf(Locale.ROOT, "reachable (BFS naïf, %d requêtes) : %.0f ns/requête, écarts = %d%n",
+                sample, bfsNs, mismatches);
+
+        // tranches avant / arrière
+        t0 = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < 20; i++) total += idx.forwardSlice(ids[rnd.nextInt(n)]).size();
+        System.out.printf(Locale.ROOT, "forwardSlice : %.1f ms en moyenne (%.0f nœuds)%n",
+                (System.nanoTime() - t0) / 20e6, total / 20.0);
+        t0 = System.nanoTime();
+        total = 0;
+        for (int i = 0; i < 20; i++) total += idx.backwardSlice(ids[rnd.nextInt(n)]).size();
+        System.out.printf(Locale.ROOT, "backwardSlice : %.1f ms en moyenne (%.0f nœuds)%n",
+                (System.nanoTime() - t0) / 20e6, total / 20.0);
+    }
+
+    private static boolean bfs(Map<NodeId, Set<NodeId>> edges, NodeId a, NodeId b) {
+        if (a == b) return true;
+        Set<NodeId> seen = new HashSet<>(List.of(a));
+        Deque<NodeId> queue = new ArrayDeque<>(List.of(a));
+        while (!queue.isEmpty()) {
+            for (NodeId t : edges.getOrDefault(queue.poll(), Set.of())) {
+                if (t == b) return true;
+                if (seen.add(t)) queue.add(t);
+            }
+        }
+        return false;
+    }
+}
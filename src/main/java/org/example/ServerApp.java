@@ -0,0 +1,61 @@
+package org.example;
+
+import org.example.processing.ClassScope;
+import org.example.processing.StatisticsService;
+import org.example.processing.VirtualDispatch;
+import org.example.server.Analysis;
+import org.example.server.AnalysisServer;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Serveur de requêtes : analyse les sources une fois puis sert le résultat en JSON sur HTTP
+ * ({@link AnalysisServer}), pour les outils qui interrogent l'analyseur sans lancer d'interface Swing.
+ *
+ * Usage : ServerApp [--src DIR[,DIR]] [--port 8080] [--host 127.0.0.1] [--threads N] [--scope SPEC]
+ *                   [--dispatch none|cha|rta] [--hotspots 20] [--no-cache]
+ *   ex: curl 'http://127.0.0.1:8080/query?q=method.loc:top10'
+ *
+ * Par défaut le serveur n'écoute que sur la boucle locale ; arrêt par Ctrl+C.
+ */
+public class ServerApp {
+
+    public static void main(String[] args) throws Exception {
+        List<Path> roots = new ArrayList<>();
+        String host = "127.0.0.1";
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hotspots = StatisticsService.DEFAULT_HOTSPOTS;
+        ClassScope scope = ClassScope.declared();
+        VirtualDispatch.Mode dispatch = VirtualDispatch.Mode.NONE;
+        boolean caching = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--no-cache")) { caching = false; continue; }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("valeur manquante pour " + args[i]);
+            String v = args[++i];
+            switch (args[i - 1]) {
+                case "--src" -> { for (String s : v.split(",")) roots.add(Paths.get(s)); }
+                case "--host" -> host = v;
+                case "--port" -> port = Integer.parseInt(v);
+                case "--threads" -> threads = Math.max(1, Integer.parseInt(v));
+                case "--scope" -> scope = ClassScope.parse(v);
+                case "--dispatch" -> dispatch = VirtualDispatch.Mode.parse(v);
+                case "--hotspots" -> hotspots = Math.max(0, Integer.parseInt(v));
+                default -> throw new IllegalArgumentException("option inconnue: " + args[i - 1]);
+            }
+        }
+        if (roots.isEmpty()) roots.add(Paths.get("src/main/java"));
+
+        Analysis analysis = Analysis.load(roots, threads, scope, dispatch, hotspots);
+        System.err.printf(Locale.ROOT, ">>> analyse chargée : %d fichiers (%d en échec), %d méthodes, %d ms%n",
+                analysis.files.size(), analysis.failedFiles, analysis.metrics.totalMethods, analysis.loadMillis);
+
+        AnalysisServer server = AnalysisServer.start(analysis, new InetSocketAddress(host, port), caching);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.err.printf(Locale.ROOT, ">>> http://%s:%d/ (cache %s) — /health /metrics /calls /coupling /modules /query%n",
+                host, server.port(), caching ? "actif" : "désactivé");
+    }
+}
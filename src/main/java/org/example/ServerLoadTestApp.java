@@ -0,0 +1,154 @@
+package org.example;
+
+import org.example.instrumentation.LatencyHistogram;
+import org.example.processing.ClassScope;
+import org.example.processing.StatisticsService;
+import org.example.processing.VirtualDispatch;
+import org.example.server.Analysis;
+import org.example.server.AnalysisServer;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test de charge du serveur de requêtes ({@link AnalysisServer}) sur la boucle locale : débit
+ * (requêtes/s) et latences p50 / p90 / p99.
+ *
+ * Usage : ServerLoadTestApp [--src DIR | --url http://127.0.0.1:8080] [--clients 64] [--seconds 10]
+ *                           [--warmup 2] [--no-cache]
+ *
+ * Sans --url, l'analyse de --src est chargée et le serveur démarré dans le même processus, sur un
+ * port libre (--no-cache pour mesurer le coût sans cache de réponses). Chaque client est un thread
+ * virtuel qui enchaîne les requêtes (synchrones) sur un jeu de routes : /metrics, /query, /coupling,
+ * /modules et /calls sur les méthodes les plus longues. La phase de chauffe n'est pas mesurée.
+ */
+public class ServerLoadTestApp {
+
+    private static final Pattern KEY = Pattern.compile("\"key\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        Path src = Paths.get("src/main/java");
+        String url = null;
+        int clients = 64, seconds = 10, warmup = 2;
+        boolean caching = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--no-cache")) { caching = false; continue; }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("valeur manquante pour " + args[i]);
+            String v = args[++i];
+            switch (args[i - 1]) {
+                case "--src" -> src = Paths.get(v);
+                case "--url" -> url = v.endsWith("/") ? v.substring(0, v.length() - 1) : v;
+                case "--clients" -> clients = Math.max(1, Integer.parseInt(v));
+                case "--seconds" -> seconds = Math.max(1, Integer.parseInt(v));
+                case "--warmup" -> warmup = Math.max(0, Integer.parseInt(v));
+                default -> throw new IllegalArgumentException("option inconnue: " + args[i - 1]);
+            }
+        }
+
+        AnalysisServer server = null;
+        if (url == null) {
+            Analysis analysis = Analysis.load(List.of(src), Runtime.getRuntime().availableProcessors(),
+                    ClassScope.declared(), VirtualDispatch.Mode.NONE, StatisticsService.DEFAULT_HOTSPOTS);
+            server = AnalysisServer.start(analysis, new InetSocketAddress("127.0.0.1", 0), caching);
+            url = "http://127.0.0.1:" + server.port();
+            System.out.printf(Locale.ROOT, ">>> serveur local %s : %d fichiers, %d méthodes, cache %s%n",
+                    url, analysis.files.size(), analysis.metrics.totalMethods, caching ? "actif" : "désactivé");
+        }
+
+        ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(threads).build();
+        try {
+            List<URI> targets = targets(http, url);
+            System.out.printf(Locale.ROOT, ">>> %d routes, %d clients, chauffe %d s, mesure %d s%n",
+                    targets.size(), clients, warmup, seconds);
+            if (warmup > 0) load(http, threads, targets, clients, warmup, null);
+
+            LatencyHistogram latency = new LatencyHistogram();
+            long cacheHits0 = server == null ? 0 : server.cacheHits.sum();
+            long t0 = System.nanoTime();
+            long[] outcome = load(http, threads, targets, clients, seconds, latency);
+            double elapsed = (System.nanoTime() - t0) / 1e9;
+
+            System.out.printf(Locale.ROOT, "Requêtes       : %d en %.1f s, %d erreurs%n", outcome[0], elapsed, outcome[1]);
+            System.out.printf(Locale.ROOT, "Débit          : %.0f requêtes/s%n", outcome[0] / elapsed);
+            System.out.printf(Locale.ROOT, "Latence (ms)   : p50 %.3f  p90 %.3f  p99 %.3f  max %.3f%n",
+                    latency.percentile(0.50) / 1e6, latency.percentile(0.90) / 1e6,
+                    latency.percentile(0.99) / 1e6, latency.max() / 1e6);
+            if (server != null) {
+                System.out.printf(Locale.ROOT, "Cache serveur  : %d réponses servies depuis le cache%n",
+                        server.cacheHits.sum() - cacheHits0);
+            }
+        } finally {
+            threads.shutdownNow();
+            if (server != null) server.close();
+        }
+    }
+
+    /**
+     * {@code clients} threads virtuels envoient des requêtes en boucle pendant {@code seconds} ;
+     * renvoie {requêtes, erreurs}. Latences enregistrées si {@code latency} n'est pas null.
+     */
+    private static long[] load(HttpClient http, ExecutorService threads, List<URI> targets,
+                               int clients, int seconds, LatencyHistogram latency) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        LongAdder done = new LongAdder(), errors = new LongAdder();
+        List<java.util.concurrent.Future<?>> running = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int offset = c;
+            running.add(threads.submit(() -> {
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    HttpRequest req = HttpRequest.newBuilder(targets.get(i % targets.size())).GET().build();
+                    long t = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> r = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                        if (r.statusCode() != 200) errors.increment();
+                    } catch (Exception e) {
+                        if (e instanceof InterruptedException) return;
+                        errors.increment();
+                    }
+                    if (latency != null) latency.record(System.nanoTime() - t);
+                    done.increment();
+                }
+            }));
+        }
+        for (var f : running) {
+            try {
+                f.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                errors.increment();
+            }
+        }
+        return new long[] { done.sum(), errors.sum() };
+    }
+
+    /** Routes interrogées : fixes, plus /calls sur les méthodes les plus longues (lues via /query). */
+    private static List<URI> targets(HttpClient http, String base) throws Exception {
+        List<URI> out = new ArrayList<>();
+        for (String path : List.of("/metrics", "/health", "/coupling?top=20", "/modules?cp=0.3",
+                "/query?q=" + encode("method.loc:top10"), "/query?q=" + encode("class.methods>5"))) {
+            out.add(URI.create(base + path));
+        }
+        HttpResponse<String> top = http.send(HttpRequest.newBuilder(URI.create(base + "/query?q=" + encode("method.loc:top20"))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher m = KEY.matcher(top.body());
+        while (m.find()) out.add(URI.create(base + "/calls?method=" + encode(m.group(1))));
+        return out;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}
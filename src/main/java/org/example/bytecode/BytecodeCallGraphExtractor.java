@@ -0,0 +1,220 @@
+package org.example.bytecode;
+
+import org.example.model.NodeId;
+import org.example.processing.CallGraph;
+import org.example.visitor.Signatures;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Graphe d'appel extrait du bytecode (.class dans des dossiers ou des .jar), sans parsing des sources.
+ *
+ * Les nœuds suivent les conventions des visiteurs JDT : package, nom de la classe sans package (classe
+ * imbriquée = "Outer$Inner", classe anonyme = classe englobante), constructeur = nom le plus interne,
+ * signature effacée tirée du descripteur. Le corps d'une lambda (méthode synthétique lambda$m$N) est
+ * rattaché, comme dans le source, à la méthode qui contient son invokedynamic (surcharge exacte), et
+ * l'initialiseur statique (lambda$static$N comprises) au nœud "&lt;clinit&gt;". Les cibles sont connues
+ * exactement (propriétaire et descripteur de l'instruction invoke*) : le graphe n'a pas besoin de
+ * {@link CallGraph#link()}.
+ *
+ * Écarts avec le source : les constructeurs de classes internes non statiques et d'enums ont des
+ * paramètres implicites dans leur descripteur ; les méthodes bridge / synthétiques sont ignorées ; les
+ * initialiseurs de champs d'instance sont recopiés dans chaque constructeur au lieu d'un nœud "&lt;init&gt;".
+ */
+public class BytecodeCallGraphExtractor {
+
+    /** Nombre de classes traitées par tâche (amortit la soumission au pool). */
+    private static final int BATCH = 64;
+
+    /** Une classe à lire : fichier sur disque ou entrée d'archive. */
+    private record Source(Path file, ZipFile zip, ZipEntry entry) {
+        byte[] bytes() throws IOException {
+            if (file != null) return Files.readAllBytes(file);
+            try (InputStream in = zip.getInputStream(entry)) { return in.readAllBytes(); }
+        }
+        String name() { return file != null ? file.toString() : zip.getName() + "!/" + entry.getName(); }
+    }
+
+    /** Résultat d'un lot : arêtes et classes déclarées, fusionnés dans l'ordre des lots. */
+    private record Part(Map<NodeId, Set<NodeId>> edges, Set<String> declared, int classes, List<String> errors) {}
+
+    public int classesRead;          // fichiers .class décodés au dernier appel
+    public long bytesRead;
+    public final List<String> errors = new ArrayList<>();
+
+    /** Lit tous les .class des racines (dossiers, .jar, .zip) sur {@code threads} workers. */
+    public CallGraph extract(List<Path> roots, int threads) throws IOException {
+        List<ZipFile> zips = new ArrayList<>();
+        List<Source> sources = new ArrayList<>();
+        try {
+            for (Path root : roots) collect(root, sources, zips);
+            return extractSources(sources, threads);
+        } finally {
+            for (ZipFile z : zips) z.close();
+        }
+    }
+
+    private CallGraph extractSources(List<Source> sources, int threads) {
+        classesRead = 0;
+        bytesRead = 0;
+        errors.clear();
+        List<List<Source>> batches = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i += BATCH) batches.add(sources.subList(i, Math.min(sources.size(), i + BATCH)));
+
+        CallGraph cg = new CallGraph();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, batches.size())));
+        try {
+            List<Future<Part>> parts = new ArrayList<>(batches.size());
+            for (List<Source> batch : batches) parts.add(pool.submit(() -> readBatch(batch)));
+            for (Future<Part> f : parts) {
+                Part part = f.get();
+                cg.mergeEdges(part.edges);
+                cg.declaredClasses.addAll(part.declared);
+                classesRead += part.classes;
+                errors.addAll(part.errors);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Extraction bytecode interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de l'extraction bytecode", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        for (Source s : sources) bytesRead += s.file != null ? s.file.toFile().length() : Math.max(0, s.entry.getSize());
+        return cg;
+    }
+
+    private static Part readBatch(List<Source> batch) {
+        Map<NodeId, Set<NodeId>> edges = new LinkedHashMap<>();
+        Set<String> declared = new LinkedHashSet<>();
+        List<String> errors = new ArrayList<>();
+        int classes = 0;
+        for (Source s : batch) {
+            try {
+                addClass(ClassFileParser.parse(s.bytes()), edges, declared);
+                classes++;
+            } catch (IOException ex) {
+                errors.add(s.name() + " : " + ex.getMessage());
+            }
+        }
+        return new Part(edges, declared, classes, errors);
+    }
+
+    /** Ajoute les méthodes d'une classe et leurs appels. */
+    static void addClass(ClassFileParser.ParsedClass c, Map<NodeId, Set<NodeId>> edges, Set<String> declared) {
+        String[] owner = owner(c.name);
+        if (owner == null) return;
+        String pkg = owner[0], cls = owner[1];
+        boolean anonymous = Signatures.isAnonymous(c.name.substring(c.name.lastIndexOf('/') + 1));
+        if (!anonymous) declared.add(pkg.isEmpty() ? cls : pkg + "." + cls);
+
+        // méthodes déclarées (hors lambdas et <clinit>), par nom, en secours pour les corps de lambdas
+        Map<String, NodeId> firstByName = new HashMap<>();
+        // lambda$... -> méthode dont l'invokedynamic la référence (site de création)
+        Map<String, ClassFileParser.Method> sites = new HashMap<>();
+        Set<String> synthetic = new HashSet<>();
+        for (ClassFileParser.Method m : c.methods) {
+            for (ClassFileParser.MemberRef call : m.calls)
+                if (isLambda(call.name()) && call.owner().equals(c.name)) sites.putIfAbsent(call.name(), m);
+            if (!isLambda(m.name) && (m.access & (ClassFileParser.ACC_BRIDGE | ClassFileParser.ACC_SYNTHETIC)) != 0) synthetic.add(m.name + m.descriptor);
+            if (skipped(m, anonymous) || isLambda(m.name) || m.name.equals("<clinit>")) continue;
+            NodeId id = node(pkg, cls, m.name, m.descriptor);
+            firstByName.putIfAbsent(id.methodName, id);
+            edges.computeIfAbsent(id, __ -> new LinkedHashSet<>());
+        }
+
+        for (ClassFileParser.Method m : c.methods) {
+            if (skipped(m, anonymous)) continue;
+            NodeId caller = isLambda(m.name) ? lambdaCaller(m, sites, firstByName, pkg, cls) : node(pkg, cls, m.name, m.descriptor);
+            if (caller == null) continue;
+            Set<NodeId> out = new LinkedHashSet<>();
+            for (ClassFileParser.MemberRef call : m.calls) {
+                if (call.owner().equals(c.name) && (isLambda(call.name()) || synthetic.contains(call.name() + call.descriptor()))) continue;   // déjà rattaché / jamais déclaré
+                String[] target = owner(call.owner());
+                if (target == null) continue;
+                out.add(node(target[0], target[1], call.name(), call.descriptor()));
+            }
+            // comme dans le source, <clinit> n'existe que s'il appelle quelque chose
+            if (out.isEmpty() && caller.methodName.equals("<clinit>") && !edges.containsKey(caller)) continue;
+            edges.computeIfAbsent(caller, __ -> new LinkedHashSet<>()).addAll(out);
+        }
+    }
+
+    /**
+     * Méthode à laquelle rattacher le corps d'une lambda : celle qui contient son invokedynamic (les lambdas
+     * imbriquées sont remontées jusqu'à une méthode réelle), donc la bonne surcharge, ou &lt;clinit&gt; pour
+     * lambda$static$N. Sans site, repli sur la première méthode du nom encodé (lambda$run$0 -> run).
+     */
+    private static NodeId lambdaCaller(ClassFileParser.Method m, Map<String, ClassFileParser.Method> sites,
+                                       Map<String, NodeId> firstByName, String pkg, String cls) {
+        ClassFileParser.Method site = sites.get(m.name);
+        for (int hops = 0; site != null && isLambda(site.name) && hops < sites.size(); hops++) site = sites.get(site.name);
+        if (site != null && !isLambda(site.name)) return node(pkg, cls, site.name, site.descriptor);
+        int end = m.name.indexOf('$', 7);
+        String enclosing = end < 0 ? m.name.substring(7) : m.name.substring(7, end);
+        if (enclosing.equals("static")) return node(pkg, cls, "<clinit>", "()V");
+        return firstByName.get(enclosing.equals("new") ? Signatures.innerName(cls) : enclosing);
+    }
+
+    private static boolean isLambda(String method) { return method.startsWith("lambda$"); }
+
+    /** Méthodes bridge / synthétiques (sauf lambdas), constructeurs et initialiseur statique des classes anonymes. */
+    private static boolean skipped(ClassFileParser.Method m, boolean anonymous) {
+        if (anonymous && (m.name.equals("<init>") || m.name.equals("<clinit>"))) return true;
+        if ((m.access & ClassFileParser.ACC_BRIDGE) != 0) return true;
+        return (m.access & ClassFileParser.ACC_SYNTHETIC) != 0 && !isLambda(m.name);
+    }
+
+    /** "org/example/Outer$Inner" -> ["org.example", "Outer$Inner"] ; null pour un tableau ou une classe cachée. */
+    private static String[] owner(String internalName) {
+        if (internalName.startsWith("[")) return null;
+        int slash = internalName.lastIndexOf('/');
+        String pkg = slash < 0 ? "" : internalName.substring(0, slash).replace('/', '.');
+        String cls = Signatures.sourceClassName(internalName.substring(slash + 1));
+        return cls == null ? null : new String[] { pkg, cls };
+    }
+
+    private static NodeId node(String pkg, String cls, String method, String descriptor) {
+        String name = method.equals("<init>") ? Signatures.innerName(cls) : method;
+        return NodeId.of(pkg, cls, name, String.join(",", Signatures.descriptorParameters(descriptor)));
+    }
+
+    private static void collect(Path root, List<Source> out, List<ZipFile> zips) throws IOException {
+        String name = root.getFileName() == null ? "" : root.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (Files.isRegularFile(root) && (name.endsWith(".jar") || name.endsWith(".zip"))) {
+            ZipFile zip = new ZipFile(root.toFile());
+            zips.add(zip);
+            for (Enumeration<? extends ZipEntry> en = zip.entries(); en.hasMoreElements(); ) {
+                ZipEntry e = en.nextElement();
+                if (!e.isDirectory() && isClassFile(e.getName())) out.add(new Source(null, zip, e));
+            }
+        } else if (Files.isRegularFile(root)) {
+            if (isClassFile(name)) out.add(new Source(root, null, null));
+        } else if (Files.isDirectory(root)) {
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> s = Files.walk(root)) {
+                s.filter(p -> Files.isRegularFile(p) && isClassFile(p.getFileName().toString())).forEach(files::add);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            Collections.sort(files);
+            for (Path p : files) out.add(new Source(p, null, null));
+        } else {
+            System.err.println("WARN racine introuvable: " + root);
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+}
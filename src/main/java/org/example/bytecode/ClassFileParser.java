@@ -0,0 +1,231 @@
+package org.example.bytecode;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture minimale d'un fichier .class (JVMS §4) : nom de la classe, méthodes et, pour chacune,
+ * les références appelées par les instructions invoke* du code.
+ *
+ * Seul ce qui sert au graphe d'appel est décodé : le pool de constantes est indexé sans être
+ * converti (les chaînes Utf8 sont décodées à la demande et mémorisées), les champs et attributs
+ * non utilisés sont sautés par leur longueur. invokedynamic est rattaché aux arguments
+ * MethodHandle de sa méthode de bootstrap (référence de méthode "Foo::bar", corps de lambda).
+ */
+public final class ClassFileParser {
+
+    public static final int ACC_BRIDGE = 0x0040;
+    public static final int ACC_SYNTHETIC = 0x1000;
+
+    /** Méthode référencée : propriétaire (nom interne, ex: "java/lang/Math"), nom, descripteur. */
+    public record MemberRef(String owner, String name, String descriptor) {}
+
+    public static final class Method {
+        public final String name;
+        public final String descriptor;
+        public final int access;
+        public final List<MemberRef> calls = new ArrayList<>();
+        final List<Integer> indy = new ArrayList<>();   // indices de bootstrap des invokedynamic
+
+        Method(String name, String descriptor, int access) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.access = access;
+        }
+    }
+
+    public static final class ParsedClass {
+        public String name;          // nom interne, ex: "org/example/codebase/Point"
+        public String superName;     // null pour java/lang/Object
+        public int access;
+        public final List<Method> methods = new ArrayList<>();
+    }
+
+    private static final int UTF8 = 1, INT = 3, FLOAT = 4, LONG = 5, DOUBLE = 6, CLASS = 7, STRING = 8,
+            FIELD = 9, METHOD = 10, IMETHOD = 11, NAME_AND_TYPE = 12, METHOD_HANDLE = 15, METHOD_TYPE = 16,
+            DYNAMIC = 17, INVOKE_DYNAMIC = 18, MODULE = 19, PACKAGE = 20;
+
+    private final byte[] b;
+    private int[] offsets;       // position de chaque entrée du pool (après le tag)
+    private byte[] tags;
+    private String[] utf8;       // chaînes décodées
+
+    private ClassFileParser(byte[] b) { this.b = b; }
+
+    public static ParsedClass parse(byte[] bytes) throws IOException {
+        try {
+            return new ClassFileParser(bytes).read();
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IOException("fichier .class tronqué", ex);
+        }
+    }
+
+    private ParsedClass read() throws IOException {
+        if (u4(0) != 0xCAFEBABE) throw new IOException("pas un fichier .class");
+        int count = u2(8);
+        offsets = new int[count];
+        tags = new byte[count];
+        utf8 = new String[count];
+        int p = 10;
+        for (int i = 1; i < count; i++) {
+            int tag = b[p] & 0xFF;
+            tags[i] = (byte) tag;
+            offsets[i] = p + 1;
+            p += 1 + switch (tag) {
+                case UTF8 -> 2 + u2(p + 1);
+                case INT, FLOAT, FIELD, METHOD, IMETHOD, NAME_AND_TYPE, DYNAMIC, INVOKE_DYNAMIC -> 4;
+                case LONG, DOUBLE -> 8;
+                case CLASS, STRING, METHOD_TYPE, MODULE, PACKAGE -> 2;
+                case METHOD_HANDLE -> 3;
+                default -> throw new IOException("tag de constante inconnu " + tag + " à l'offset " + p);
+            };
+            if (tag == LONG || tag == DOUBLE) i++;   // occupent deux entrées
+        }
+
+        ParsedClass c = new ParsedClass();
+        c.access = u2(p);
+        c.name = className(u2(p + 2));
+        int sup = u2(p + 4);
+        c.superName = sup == 0 ? null : className(sup);
+        p += 6;
+        p += 2 + 2 * u2(p);                          // interfaces
+
+        int fields = u2(p);
+        p += 2;
+        for (int i = 0; i < fields; i++) p = skipAttributes(p + 6);
+
+        int methods = u2(p);
+        p += 2;
+        for (int i = 0; i < methods; i++) {
+            Method m = new Method(utf8(u2(p + 2)), utf8(u2(p + 4)), u2(p));
+            int attrs = u2(p + 6);
+            p += 8;
+            for (int a = 0; a < attrs; a++) {
+                int len = u4(p + 2);
+                if (utf8(u2(p)).equals("Code")) scanCode(m, p + 6);
+                p += 6 + len;
+            }
+            c.methods.add(m);
+        }
+
+        // attributs de classe : BootstrapMethods pour les invokedynamic
+        int attrs = u2(p);
+        p += 2;
+        for (int a = 0; a < attrs; a++) {
+            int len = u4(p + 2);
+            if (utf8(u2(p)).equals("BootstrapMethods")) resolveBootstraps(c, p + 6);
+            p += 6 + len;
+        }
+        return c;
+    }
+
+    /** Parcourt les instructions d'un attribut Code et relève les invoke*. */
+    private void scanCode(Method m, int attr) throws IOException {
+        int codeLength = u4(attr + 4);
+        int start = attr + 8, end = start + codeLength;
+        int pc = start;
+        while (pc < end) {
+            int op = b[pc] & 0xFF;
+            switch (op) {
+                case 0xb6, 0xb7, 0xb8, 0xb9 -> m.calls.add(memberRef(u2(pc + 1)));   // invokevirtual/special/static/interface
+                case 0xba -> m.indy.add(u2(offsets[u2(pc + 1)]));                       // invokedynamic : indice de bootstrap
+                default -> { }
+            }
+            pc += length(op, pc, start);
+        }
+    }
+
+    /** Longueur de l'instruction à {@code pc} (JVMS §6.5). */
+    private int length(int op, int pc, int codeStart) throws IOException {
+        if (op == 0xaa || op == 0xab) {                       // tableswitch / lookupswitch : alignement sur 4
+            int p = pc + 1 + ((4 - ((pc + 1 - codeStart) & 3)) & 3);
+            if (op == 0xaa) return p + 12 + 4 * (s4(p + 8) - s4(p + 4) + 1) - pc;
+            return p + 8 + 8 * s4(p + 4) - pc;
+        }
+        if (op == 0xc4) return (b[pc + 1] & 0xFF) == 0x84 ? 6 : 4;   // wide (iinc : 6)
+        int len = LENGTHS[op];
+        if (len == 0) throw new IOException("opcode inconnu 0x" + Integer.toHexString(op));
+        return len;
+    }
+
+    private static final byte[] LENGTHS = new byte[256];
+    static {
+        java.util.Arrays.fill(LENGTHS, 0, 0xca, (byte) 1);
+        LENGTHS[0x10] = 2; LENGTHS[0x11] = 3; LENGTHS[0x12] = 2; LENGTHS[0x13] = 3; LENGTHS[0x14] = 3;
+        for (int op = 0x15; op <= 0x19; op++) LENGTHS[op] = 2;      // xload
+        for (int op = 0x36; op <= 0x3a; op++) LENGTHS[op] = 2;      // xstore
+        LENGTHS[0x84] = 3;                                           // iinc
+        for (int op = 0x99; op <= 0xa8; op++) LENGTHS[op] = 3;      // if*, goto, jsr
+        LENGTHS[0xa9] = 2;                                           // ret
+        for (int op = 0xb2; op <= 0xb8; op++) LENGTHS[op] = 3;      // get/put, invokevirtual/special/static
+        LENGTHS[0xb9] = 5; LENGTHS[0xba] = 5;                        // invokeinterface, invokedynamic
+        LENGTHS[0xbb] = 3; LENGTHS[0xbc] = 2; LENGTHS[0xbd] = 3;    // new, newarray, anewarray
+        LENGTHS[0xc0] = 3; LENGTHS[0xc1] = 3;                        // checkcast, instanceof
+        LENGTHS[0xc5] = 4;                                           // multianewarray
+        LENGTHS[0xc6] = 3; LENGTHS[0xc7] = 3;                        // ifnull, ifnonnull
+        LENGTHS[0xc8] = 5; LENGTHS[0xc9] = 5;                        // goto_w, jsr_w
+    }
+
+    /** Les arguments MethodHandle des bootstraps utilisés deviennent des appels de la méthode. */
+    private void resolveBootstraps(ParsedClass c, int attr) throws IOException {
+        int n = u2(attr);
+        int[] at = new int[n];
+        int p = attr + 2;
+        for (int i = 0; i < n; i++) {
+            at[i] = p;
+            p += 4 + 2 * u2(p + 2);
+        }
+        for (Method m : c.methods) {
+            for (int bsm : m.indy) {
+                if (bsm >= n) continue;
+                int argc = u2(at[bsm] + 2);
+                for (int k = 0; k < argc; k++) {
+                    int arg = u2(at[bsm] + 4 + 2 * k);
+                    if ((tags[arg] & 0xFF) != METHOD_HANDLE) continue;
+                    int ref = u2(offsets[arg] + 1);
+                    int tag = tags[ref] & 0xFF;
+                    if (tag == METHOD || tag == IMETHOD) m.calls.add(memberRef(ref));
+                }
+            }
+        }
+    }
+
+    private MemberRef memberRef(int index) throws IOException {
+        int off = offsets[index];
+        int nat = offsets[u2(off + 2)];
+        return new MemberRef(className(u2(off)), utf8(u2(nat)), utf8(u2(nat + 2)));
+    }
+
+    private String className(int index) throws IOException {
+        return utf8(u2(offsets[index]));
+    }
+
+    /** Utf8 "modifié" (JVMS §4.4.7) : ASCII décodé directement, sinon via readUTF. */
+    private String utf8(int index) throws IOException {
+        String s = utf8[index];
+        if (s != null) return s;
+        int off = offsets[index];
+        int len = u2(off);
+        boolean ascii = true;
+        for (int i = off + 2; i < off + 2 + len && ascii; i++) ascii = b[i] > 0;
+        s = ascii ? new String(b, off + 2, len, StandardCharsets.ISO_8859_1)
+                : new DataInputStream(new ByteArrayInputStream(b, off, len + 2)).readUTF();
+        utf8[index] = s;
+        return s;
+    }
+
+    private int skipAttributes(int p) {
+        int attrs = u2(p);
+        p += 2;
+        for (int a = 0; a < attrs; a++) p += 6 + u4(p + 2);
+        return p;
+    }
+
+    private int u2(int p) { return ((b[p] & 0xFF) << 8) | (b[p + 1] & 0xFF); }
+    private int u4(int p) { return (u2(p) << 16) | u2(p + 2); }
+    private int s4(int p) { return u4(p); }
+}
@@ -0,0 +1,262 @@
+package org.example.instrumentation;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation légère du pipeline d'analyse : un histogramme de latence par étape,
+ * des compteurs (fichiers, nœuds AST, octets alloués) et un rapport de fin d'exécution.
+ *
+ * Utilisation dans le code instrumenté :
+ * <pre>
+ *   long t0 = Instrumentation.start();
+ *   ... travail ...
+ *   Instrumentation.stop(Instrumentation.Stage.PARSE, t0);
+ * </pre>
+ * Désactivée (défaut), start() renvoie 0 sans lire l'horloge et stop() se réduit à un test :
+ * le coût est une lecture de champ et un branchement.
+ *
+ * Activation : {@link #enable()} (ex: option --metrics de CliApp) ou -Danalyzer.metrics=true,
+ * qui enregistre aussi le MXBean et affiche le rapport sur stderr à l'arrêt de la JVM.
+ */
+public final class Instrumentation {
+
+    /** Étapes chronométrées du pipeline. */
+    public enum Stage {
+        LIST_FILES,   // FileExplorer.listJavaFiles
+        READ,         // lecture du fichier source
+        PARSE,        // SourceParser.parseSource (chemin rapide)
+        RECOVERY,     // SourceParser : re-parsing avec récupération (fichier avec erreur de syntaxe)
+        METRICS,      // MetricsCollector.collect
+        CALL_VISIT,   // CallGraphVisitor sur une unité
+        MERGE,        // CallGraph.mergeFrom
+        LINK,         // CallGraph.link
+        DISPATCH,     // VirtualDispatch.expand (CHA / RTA)
+        COUPLING,     // CouplingGraph / MultiLevelCoupling.fromCallGraph
+        CLUSTERING,   // HierarchicalClustering.cluster
+        MODULES,      // ModulesExtractor.cutIntoModules
+        PROFILE       // JfrImporter.read (enregistrement JFR)
+    }
+
+    public static final String OBJECT_NAME = "org.example:type=Instrumentation";
+
+    private static volatile boolean enabled;
+    private static volatile long runStartNanos = System.nanoTime();
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final LatencyHistogram[] stageNanos = new LatencyHistogram[STAGES.length];
+    private static final LatencyHistogram fileAllocation = new LatencyHistogram();
+    private static final LongAdder files = new LongAdder();
+    private static final LongAdder failedFiles = new LongAdder();
+    private static final LongAdder astNodes = new LongAdder();
+    private static final LongAdder allocatedBytes = new LongAdder();
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static boolean registered;
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) stageNanos[i] = new LatencyHistogram();
+        if (Boolean.getBoolean("analyzer.metrics")) {
+            enable();
+            registerMBean();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report())));
+        }
+    }
+
+    private Instrumentation() {}
+
+    public static boolean isEnabled() { return enabled; }
+
+    /** Active la collecte et remet les mesures à zéro (début d'un run). */
+    public static void enable() {
+        reset();
+        enableAllocationAccounting();
+        enabled = true;
+    }
+
+    public static void disable() { enabled = false; }
+
+    public static void reset() {
+        for (LatencyHistogram h : stageNanos) h.reset();
+        fileAllocation.reset();
+        files.reset();
+        failedFiles.reset();
+        astNodes.reset();
+        allocatedBytes.reset();
+        runStartNanos = System.nanoTime();
+    }
+
+    // ---------- points de mesure (chemin chaud) ----------
+
+    /** Horodatage de début ; 0 si désactivée. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(Stage stage, long t0) {
+        if (t0 != 0L) stageNanos[stage.ordinal()].record(System.nanoTime() - t0);
+    }
+
+    /** Octets alloués jusqu'ici par le thread courant ; 0 si désactivée ou non supporté. */
+    public static long threadAllocatedBytes() {
+        if (!enabled || THREADS == null) return 0L;
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Octets alloués par tous les threads de la JVM depuis son démarrage (indépendant de l'activation) ;
+     * -1 si non supporté. Sert aux comparaisons d'extracteurs qui utilisent leurs propres pools ;
+     * le premier appel active la mesure des allocations par thread si elle ne l'est pas.
+     */
+    public static long processAllocatedBytes() {
+        if (THREADS == null) return -1L;
+        enableAllocationAccounting();
+        return THREADS.getTotalThreadAllocatedBytes();
+    }
+
+    /**
+     * Fin de traitement d'un fichier : nœuds AST et octets alloués par le worker pour ce fichier
+     * ({@code alloc0} = valeur de {@link #threadAllocatedBytes()} au début du fichier).
+     */
+    public static void fileDone(int nodes, long alloc0) {
+        if (!enabled) return;
+        files.increment();
+        astNodes.add(nodes);
+        if (THREADS != null) {
+            long bytes = THREADS.getCurrentThreadAllocatedBytes() - alloc0;
+            allocatedBytes.add(bytes);
+            fileAllocation.record(bytes);
+        }
+    }
+
+    public static void fileFailed() {
+        if (enabled) failedFiles.increment();
+    }
+
+    /** Nombre de nœuds d'un AST (un parcours complet, sans rien retenir). */
+    public static int countNodes(ASTNode root) {
+        int[] n = {0};
+        root.accept(new ASTVisitor() {
+            @Override public boolean preVisit2(ASTNode node) { n[0]++; return true; }
+        });
+        return n[0];
+    }
+
+    // ---------- lecture ----------
+
+    public static LatencyHistogram stage(Stage s) { return stageNanos[s.ordinal()]; }
+    public static LatencyHistogram fileAllocation() { return fileAllocation; }
+    public static long filesProcessed() { return files.sum(); }
+    public static long filesFailed() { return failedFiles.sum(); }
+    public static long astNodes() { return astNodes.sum(); }
+    public static long allocatedBytes() { return allocatedBytes.sum(); }
+
+    public static double elapsedSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - runStartNanos) / 1e9);
+    }
+
+    public static double filesPerSecond() { return filesProcessed() / elapsedSeconds(); }
+    public static double astNodesPerSecond() { return astNodes() / elapsedSeconds(); }
+
+    /** Une ligne par étape exécutée au moins une fois (pour l'export JSON). */
+    public static List<Map<String, Object>> stageSnapshots() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Stage s : STAGES) {
+            LatencyHistogram h = stage(s);
+            if (h.count() == 0) continue;
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("type", "stage");
+            m.put("stage", s.name().toLowerCase(Locale.ROOT));
+            m.put("count", h.count());
+            m.put("totalMs", h.sum() / 1e6);
+            m.put("meanMs", h.mean() / 1e6);
+            m.put("p50Ms", h.percentile(0.50) / 1e6);
+            m.put("p90Ms", h.percentile(0.90) / 1e6);
+            m.put("p99Ms", h.percentile(0.99) / 1e6);
+            m.put("maxMs", h.max() / 1e6);
+            out.add(m);
+        }
+        return out;
+    }
+
+    /** Rapport texte : latences par étape, débits et allocation par fichier. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "=== Instrumentation (%.2f s) ===%n", elapsedSeconds()));
+        sb.append(String.format(Locale.ROOT, "%-11s %8s %11s %9s %9s %9s %9s %9s%n",
+                "étape", "n", "total ms", "moy ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Stage s : STAGES) {
+            LatencyHistogram h = stage(s);
+            if (h.count() == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%-11s %8d %11.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    s.name().toLowerCase(Locale.ROOT), h.count(), h.sum() / 1e6, h.mean() / 1e6,
+                    h.percentile(0.50) / 1e6, h.percentile(0.90) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6));
+        }
+        sb.append(String.format(Locale.ROOT, "fichiers : %d (%d en échec), %.1f fichiers/s%n",
+                filesProcessed(), filesFailed(), filesPerSecond()));
+        sb.append(String.format(Locale.ROOT, "nœuds AST : %d, %.0f nœuds/s%n", astNodes(), astNodesPerSecond()));
+        if (fileAllocation.count() > 0) {
+            sb.append(String.format(Locale.ROOT, "allocation : %.1f Mo au total, par fichier p50 = %.1f Ko, p99 = %.1f Ko, max = %.1f Ko%n",
+                    allocatedBytes() / (1024.0 * 1024.0), fileAllocation.percentile(0.50) / 1024.0,
+                    fileAllocation.percentile(0.99) / 1024.0, fileAllocation.max() / 1024.0));
+        }
+        return sb.toString();
+    }
+
+    // ---------- JMX ----------
+
+    /** Enregistre le MXBean sous {@link #OBJECT_NAME} (sans effet si déjà fait). */
+    public static synchronized void registerMBean() {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (Exception ex) {
+            System.err.println("WARN JMX: " + ex.getMessage());
+        }
+    }
+
+    /** Bean des threads si la JVM sait mesurer les allocations ; ne change pas son état (voir {@link #enable()}). */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported()) {
+            return t;
+        }
+        return null;
+    }
+
+    /** Mesure des allocations par thread (réglage global de la JVM) : activée seulement sur demande. */
+    private static void enableAllocationAccounting() {
+        if (THREADS != null && !THREADS.isThreadAllocatedMemoryEnabled()) THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private static final class MXBean implements InstrumentationMXBean {
+        @Override public boolean isEnabled() { return enabled; }
+        @Override public void setEnabled(boolean on) { if (on) enable(); else disable(); }
+        @Override public long getFilesProcessed() { return filesProcessed(); }
+        @Override public long getFilesFailed() { return filesFailed(); }
+        @Override public long getAstNodes() { return astNodes(); }
+        @Override public long getAllocatedBytes() { return allocatedBytes(); }
+        @Override public double getFilesPerSecond() { return filesPerSecond(); }
+        @Override public double getAstNodesPerSecond() { return astNodesPerSecond(); }
+
+        @Override public String[] getStages() {
+            String[] out = new String[STAGES.length];
+            for (int i = 0; i < out.length; i++) out[i] = STAGES[i].name();
+            return out;
+        }
+
+        @Override public long getStageCount(String s) { return stage(Stage.valueOf(s)).count(); }
+        @Override public double getStageTotalMillis(String s) { return stage(Stage.valueOf(s)).sum() / 1e6; }
+        @Override public double getStagePercentileMillis(String s, double q) {
+            return stage(Stage.valueOf(s)).percentile(q) / 1e6;
+        }
+        @Override public String report() { return Instrumentation.report(); }
+        @Override public void reset() { Instrumentation.reset(); }
+    }
+}
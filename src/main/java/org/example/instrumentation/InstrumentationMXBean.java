@@ -0,0 +1,28 @@
+package org.example.instrumentation;
+
+/**
+ * Vue JMX de {@link Instrumentation} (objet "org.example:type=Instrumentation"),
+ * consultable avec jconsole / VisualVM pendant une analyse.
+ */
+public interface InstrumentationMXBean {
+
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+
+    long getFilesProcessed();
+    long getFilesFailed();
+    long getAstNodes();
+    long getAllocatedBytes();
+    double getFilesPerSecond();
+    double getAstNodesPerSecond();
+
+    /** Noms des étapes du pipeline (voir {@link Instrumentation.Stage}). */
+    String[] getStages();
+    long getStageCount(String stage);
+    double getStageTotalMillis(String stage);
+    double getStagePercentileMillis(String stage, double quantile);
+
+    /** Rapport texte complet (identique à celui affiché en fin d'exécution). */
+    String report();
+    void reset();
+}
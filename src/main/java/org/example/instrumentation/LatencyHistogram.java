@@ -0,0 +1,80 @@
+package org.example.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme log-linéaire à la manière de HdrHistogram : 32 sous-intervalles par puissance de 2,
+ * soit une erreur relative ≤ 1/32 (~3 %) sur toute la plage [0, Long.MAX_VALUE].
+ *
+ * Enregistrement sans verrou ni allocation (un incrément atomique + min/max/somme), utilisable
+ * depuis tous les workers en même temps. Les valeurs sont sans unité (nanosecondes, octets...).
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;          // 32 sous-intervalles
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+        min.accumulate(value);
+    }
+
+    public long count() { return total.sum(); }
+    public long sum() { return sum.sum(); }
+    public long max() { return count() == 0 ? 0 : max.get(); }
+    public long min() { return count() == 0 ? 0 : min.get(); }
+    public double mean() { long n = count(); return n == 0 ? 0 : sum() / (double) n; }
+
+    /**
+     * Valeur au quantile q (0..1) : borne haute de l'intervalle qui contient le rang demandé,
+     * plafonnée au maximum observé.
+     */
+    public long percentile(double q) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, q)) * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        sum.reset();
+        max.reset();
+        min.reset();
+    }
+
+    /** v < 32 : intervalle exact ; sinon (exposant, 5 bits de mantisse). */
+    static int indexOf(long v) {
+        if (v < SUB) return (int) v;
+        int shift = (63 - Long.numberOfLeadingZeros(v)) - SUB_BITS;
+        int mant = (int) (v >>> shift);                     // dans [32, 63]
+        return (shift + 1) * SUB + (mant - SUB);
+    }
+
+    static long upperBound(int idx) {
+        if (idx < SUB) return idx;
+        int shift = idx / SUB - 1;
+        long mant = idx % SUB + SUB;
+        long next = (mant + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;       // dernier intervalle : débordement
+    }
+}
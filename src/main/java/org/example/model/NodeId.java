@@ -0,0 +1,109 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identité compacte d'une méthode du graphe d'appel : package, classe, méthode, signature effacée.
+ *
+ * Les instances sont internées : deux identités égales sont la même instance, portant un id entier
+ * dense (0, 1, 2...). equals() est donc une comparaison de références et hashCode() renvoie l'id,
+ * ce qui rend les NodeId bon marché comme clés de Map ou comme indices de tableaux.
+ *
+ * La signature est la liste des types de paramètres effacés (sans génériques, noms simples),
+ * ex: "double,double". Pour une cible d'appel dont la signature est inconnue (pas de bindings),
+ * signature == null et seule l'arité est connue ; {@link org.example.processing.CallGraph#link()}
+ * rattache ensuite ces cibles aux méthodes déclarées.
+ *
+ * La table est propre au processus : elle ne contient que des identités distinctes, si bien que
+ * réanalyser les mêmes sources (rechargement d'une interface, comparaison d'extracteurs) n'y ajoute
+ * rien. Les lectures ({@link #byId}, {@link #count}) sont sans verrou : le tableau des identités
+ * est recopié quand il grandit et publié, comme sa taille, par un champ volatile ; seule la
+ * création d'une identité nouvelle prend le verrou.
+ */
+public final class NodeId implements Comparable<NodeId> {
+
+    private static final ConcurrentHashMap<String, NodeId> POOL = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    private static volatile NodeId[] byId = new NodeId[1024];
+    private static volatile int count = 0;     // écrit après l'élément : le publie
+
+    public final String packageName;   // "" si inconnu ou package par défaut
+    public final String className;     // nom simple (ex: "Point", "<external>")
+    public final String methodName;
+    public final String signature;     // null si inconnue (cible non résolue)
+    public final int arity;
+    public final int id;
+
+    private final String classKey;     // nom qualifié de la classe
+    private final String key;          // forme canonique complète
+
+    private NodeId(String pkg, String cls, String method, String signature, int arity, String key, int id) {
+        this.packageName = pkg;
+        this.className = cls;
+        this.methodName = method;
+        this.signature = signature;
+        this.arity = arity;
+        this.classKey = (pkg.isEmpty() ? cls : pkg + "." + cls).intern();
+        this.key = key;
+        this.id = id;
+    }
+
+    /** Méthode déclarée, signature effacée connue (ex: "double,double", "" si aucun paramètre). */
+    public static NodeId of(String pkg, String cls, String method, String signature) {
+        int arity = signature.isEmpty() ? 0 : (int) signature.chars().filter(c -> c == ',').count() + 1;
+        return intern(pkg, cls, method, signature, arity);
+    }
+
+    /** Cible d'appel dont seule l'arité est connue (-1 si inconnue : référence de méthode "Point::getX"). */
+    public static NodeId unresolved(String pkg, String cls, String method, int arity) {
+        return intern(pkg, cls, method, null, arity);
+    }
+
+    private static NodeId intern(String pkg, String cls, String method, String signature, int arity) {
+        String p = pkg == null ? "" : pkg;
+        String c = cls == null ? "<unknown>" : cls;
+        String k = (p.isEmpty() ? c : p + "." + c) + "#" + method
+                + (signature != null ? "(" + signature + ")" : "/" + arity);
+        NodeId existing = POOL.get(k);
+        if (existing != null) return existing;
+        synchronized (LOCK) {
+            existing = POOL.get(k);
+            if (existing != null) return existing;
+            int id = count;
+            NodeId[] table = byId;
+            if (id == table.length) byId = table = Arrays.copyOf(table, id * 2);
+            NodeId n = new NodeId(p, c, method, signature, arity, k, id);
+            table[id] = n;
+            count = id + 1;
+            POOL.put(k, n);
+            return n;
+        }
+    }
+
+    /** Identité correspondant à un id (0 <= id < {@link #count()}). */
+    public static NodeId byId(int id) {
+        if (id < 0 || id >= count) throw new IndexOutOfBoundsException("id " + id);
+        return byId[id];   // lu après count : tableau au moins aussi récent que l'élément
+    }
+
+    /** Nombre d'identités internées : borne pour les tableaux indexés par id. */
+    public static int count() {
+        return count;
+    }
+
+    /** Nom qualifié de la classe propriétaire (ex: "org.example.codebase.Point"). */
+    public String classKey() { return classKey; }
+
+    /** Libellé court historique "Class#method" (affichage uniquement : peut être ambigu). */
+    public String label() { return className + "#" + methodName; }
+
+    public boolean isResolved() { return signature != null; }
+
+    @Override public boolean equals(Object o) { return this == o; }
+    @Override public int hashCode() { return id; }
+    @Override public int compareTo(NodeId o) { return key.compareTo(o.key); }
+
+    /** Forme canonique : "pkg.Class#method(sig)" ou "pkg.Class#method/arité" si non résolue. */
+    @Override public String toString() { return key; }
+}
@@ -1,28 +1,127 @@
 package org.example.parser;
 
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.instrumentation.Instrumentation;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Parsing JDT d'une unité de compilation, sans bindings.
+ *
+ * Niveau de langage : par défaut le plus récent supporté par JDT (records, sealed, switch à motifs,
+ * text blocks) ; {@link #setLanguageLevel} le fixe (ex: "17"). Source, compliance et cible sont
+ * positionnées ensemble ({@link JavaCore#setComplianceOptions}) : un niveau source différent de la
+ * compliance fait rejeter ou mal construire les constructions récentes. Un niveau plus récent que
+ * JDT est ramené au dernier supporté, avec les fonctionnalités preview activées.
+ *
+ * Deux chemins : le parsing rapide, sans récupération des instructions, suffit pour un fichier
+ * sans erreur de syntaxe (cas courant). S'il signale une erreur (test sur les seuls problèmes
+ * rapportés, sans parcours de l'AST), le fichier est re-parsé avec récupération des instructions
+ * (étape RECOVERY) pour garder le contenu des méthodes malformées.
+ */
 public class SourceParser {
 
+    private static final LongAdder recovered = new LongAdder();
+
+    private static volatile String languageLevel;
+    private static volatile boolean preview;
+    private static volatile Map<String, String> compilerOptions;   // jamais modifiée après publication
+
+    static {
+        setLanguageLevel(JavaCore.latestSupportedJavaVersion());
+    }
+
+    /**
+     * Fixe le niveau de langage ("8", "1.8", "17", "21"...) et renvoie le niveau effectif, plafonné
+     * au dernier supporté par JDT (fonctionnalités preview alors activées).
+     */
+    public static synchronized String setLanguageLevel(String level) {
+        String latest = JavaCore.latestSupportedJavaVersion();
+        int wanted = major(level);
+        boolean tooRecent = wanted > major(latest);
+        String effective = tooRecent ? latest : (wanted <= 8 ? "1." + wanted : String.valueOf(wanted));
+
+        Map<String, String> options = new HashMap<>(JavaCore.getOptions());
+        JavaCore.setComplianceOptions(effective, options);     // source = compliance = cible
+        options.put(JavaCore.COMPILER_PB_ENABLE_PREVIEW_FEATURES, tooRecent ? JavaCore.ENABLED : JavaCore.DISABLED);
+        compilerOptions = options;
+        languageLevel = effective;
+        preview = tooRecent;
+        return effective;
+    }
+
+    public static String languageLevel() { return languageLevel; }
+
+    public static boolean previewEnabled() { return preview; }
+
+    /** Fichiers passés par le chemin lent (re-parsing avec récupération) depuis le démarrage. */
+    public static long recoveredFiles() { return recovered.sum(); }
+
+    /** "1.8" -> 8, "21" -> 21. */
+    static int major(String level) {
+        String v = level.trim();
+        if (v.startsWith("1.")) v = v.substring(2);
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("niveau de langage invalide: " + level + " (ex: 17, 21)");
+        }
+    }
+
     public static CompilationUnit parseFile(Path javaFile) throws Exception {
         // Lit le contenu du fichier Java sous forme de texte
+        long t0 = Instrumentation.start();
         String code = Files.readString(javaFile, StandardCharsets.UTF_8);
+        Instrumentation.stop(Instrumentation.Stage.READ, t0);
+        return parseSource(code);
+    }
 
-        //un parseur JDT configuré pour la version Java 21
-        ASTParser parser = ASTParser.newParser(AST.JLS11);
+    /** Parse un code source déjà chargé en mémoire (évite une seconde lecture du fichier). */
+    public static CompilationUnit parseSource(String code) {
+        char[] chars = code.toCharArray();
+        long t0 = Instrumentation.start();
+        CompilationUnit cu = parse(chars, false);
+        Instrumentation.stop(Instrumentation.Stage.PARSE, t0);
+        if (!hasSyntaxErrors(cu)) return cu;
+
+        // chemin lent : erreur de syntaxe, on garde ce qui peut l'être des corps de méthodes
+        t0 = Instrumentation.start();
+        cu = parse(chars, true);
+        recovered.increment();
+        Instrumentation.stop(Instrumentation.Stage.RECOVERY, t0);
+        return cu;
+    }
+
+    private static CompilationUnit parse(char[] code, boolean recovery) {
+        ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+        parser.setCompilerOptions(compilerOptions);
 
         // Fournit le code source au parseur
-        parser.setSource(code.toCharArray());
+        parser.setSource(code);
         parser.setKind(ASTParser.K_COMPILATION_UNIT);
         parser.setResolveBindings(false);
+        parser.setStatementsRecovery(recovery);
 
         // Génère l’arbre syntaxique abstrait (AST)
         return (CompilationUnit) parser.createAST(null);
     }
+
+    /** Pré-test du chemin lent : sans bindings, les problèmes rapportés sont ceux du parseur. */
+    private static boolean hasSyntaxErrors(CompilationUnit cu) {
+        IProblem[] problems = cu.getProblems();
+        if (problems == null) return false;
+        for (IProblem p : problems) {
+            if (p.isError()) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,51 @@
+package org.example.processing;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Budget d'AST vivants : au plus {@code limit} CompilationUnit en mémoire en même temps.
+ *
+ * Un worker prend un jeton avant de parser et le rend une fois le dernier visiteur passé (l'AST
+ * n'est plus référencé). Quand le budget est épuisé, le parsing suivant attend qu'une visite se
+ * termine : c'est la contre-pression entre parsing et visite. Le pic d'AST vivants et le temps
+ * passé à attendre sont mesurés, que la limite soit active ou non.
+ */
+public final class AstBudget {
+
+    private final int limit;
+    private final Semaphore permits;
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /** {@code limit} ≤ 0 : pas de limite (seul le pic est mesuré). */
+    public AstBudget(int limit) {
+        this.limit = limit > 0 ? limit : Integer.MAX_VALUE;
+        this.permits = new Semaphore(this.limit);
+    }
+
+    public boolean bounded() { return limit != Integer.MAX_VALUE; }
+    public int limit() { return limit; }
+
+    /** Réserve une place pour un AST (bloque si le budget est épuisé). */
+    public void acquire() throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            long t0 = System.nanoTime();
+            permits.acquire();
+            waitNanos.add(System.nanoTime() - t0);
+        }
+        peak.accumulateAndGet(live.incrementAndGet(), Math::max);
+    }
+
+    /** L'AST n'est plus référencé. */
+    public void release() {
+        live.decrementAndGet();
+        permits.release();
+    }
+
+    public int live() { return live.get(); }
+    public int peak() { return peak.get(); }
+    public long waitNanos() { return waitNanos.sum(); }
+}
@@ -1,28 +1,136 @@
 package org.example.processing;
 
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
 import org.example.visitor.CallGraphVisitor;
+import org.example.visitor.Signatures;
 
 import java.util.*;
 
 public class CallGraph {
     // Map représentant les arêtes du graphe : clé = méthode appelante, valeur = méthodes appelées
-    public final Map<String, Set<String>> edges = new LinkedHashMap<>();
+    public final Map<NodeId, Set<NodeId>> edges = new LinkedHashMap<>();
+
+    // Classes déclarées dans les sources analysées (noms qualifiés)
+    public final Set<String> declaredClasses = new LinkedHashSet<>();
+
+    // Hiérarchie pour l'expansion des appels virtuels ({@link VirtualDispatch}) :
+    // supertypes directs par classe, classes instanciées, méthodes non redéfinissables
+    public final Map<String, Set<String>> supertypes = new LinkedHashMap<>();
+    public final Set<String> instantiated = new LinkedHashSet<>();
+    public final Set<NodeId> nonOverridable = new LinkedHashSet<>();
 
     public void mergeFrom(CompilationUnit cu) {
         // Création d’un visiteur pour extraire les appels de méthode
+        long t0 = Instrumentation.start();
         CallGraphVisitor v = new CallGraphVisitor();
         cu.accept(v);
-        v.edges.forEach((k,vs) ->
+        Instrumentation.stop(Instrumentation.Stage.CALL_VISIT, t0);
+        mergeFrom(v);
+    }
+
+    /** Fusionne le résultat d'un visiteur déjà exécuté (ex: par un worker d'analyse parallèle). */
+    public void mergeFrom(CallGraphVisitor v) {
+        long t0 = Instrumentation.start();
+        mergeEdges(v.edges);
+        declaredClasses.addAll(v.declaredClasses);
+        mergeHierarchy(v.supertypes, v.instantiated, v.nonOverridable);
+        Instrumentation.stop(Instrumentation.Stage.MERGE, t0);
+    }
+
+    /** Fusionne un autre graphe (ex: résultat partiel d'un shard) : arêtes, classes et hiérarchie. */
+    public void mergeFrom(CallGraph other) {
+        mergeEdges(other.edges);
+        declaredClasses.addAll(other.declaredClasses);
+        mergeHierarchy(other.supertypes, other.instantiated, other.nonOverridable);
+    }
+
+    private void mergeHierarchy(Map<String, Set<String>> supers, Set<String> created, Set<NodeId> fixed) {
+        supers.forEach((k, vs) -> supertypes.computeIfAbsent(k, __ -> new LinkedHashSet<>()).addAll(vs));
+        instantiated.addAll(created);
+        nonOverridable.addAll(fixed);
+    }
+
+    /** Fusionne des arêtes déjà extraites. */
+    public void mergeEdges(Map<NodeId, Set<NodeId>> other) {
+        other.forEach((k,vs) ->
                 edges.computeIfAbsent(k, __ -> new LinkedHashSet<>()).addAll(vs)
         );
     }
 
-    public Set<String> nodes() {
+    /**
+     * Rattache les cibles non résolues (classe + nom + arité) aux méthodes déclarées.
+     * Une cible dont le package est inconnu est cherchée par nom simple de classe, en privilégiant
+     * le package de l'appelant. Si plusieurs surcharges ont la même arité, l'appel est relié à
+     * chacune d'elles ; une arité inconnue (-1, référence de méthode) relie toutes les surcharges.
+     * Un type imbriqué ("Outer$Inner") est aussi trouvé par son nom écrit dans le source ("Inner"), et
+     * un appel non qualifié depuis un type imbriqué qui n'y est pas déclaré est cherché dans les types
+     * englobants. Les cibles sans déclaration correspondante (externes) restent telles quelles.
+     * À appeler une fois toutes les unités fusionnées.
+     */
+    public CallGraph link() {
+        long t0 = Instrumentation.start();
+        // "Class#method" (nom simple) -> méthodes déclarées candidates
+        Map<String, List<NodeId>> declared = new HashMap<>();
+        for (NodeId m : edges.keySet()) {
+            if (!m.isResolved()) continue;
+            declared.computeIfAbsent(m.label(), __ -> new ArrayList<>()).add(m);
+            String inner = Signatures.innerName(m.className);
+            if (!inner.equals(m.className)) declared.computeIfAbsent(inner + "#" + m.methodName, __ -> new ArrayList<>()).add(m);
+        }
+
+        Map<NodeId, List<NodeId>> cache = new HashMap<>();
+        for (var e : edges.entrySet()) {
+            NodeId caller = e.getKey();
+            boolean changed = false;
+            Set<NodeId> linked = new LinkedHashSet<>();
+            for (NodeId t : e.getValue()) {
+                if (t.isResolved()) { linked.add(t); continue; }
+                List<NodeId> targets = t.packageName.isEmpty()
+                        ? resolve(t, caller.packageName, declared)
+                        : cache.computeIfAbsent(t, x -> resolve(x, x.packageName, declared));
+                if (targets.isEmpty()) linked.add(t);
+                else { linked.addAll(targets); changed = true; }
+            }
+            if (changed) e.setValue(linked);
+        }
+        Instrumentation.stop(Instrumentation.Stage.LINK, t0);
+        return this;
+    }
+
+    private static List<NodeId> resolve(NodeId t, String preferredPackage, Map<String, List<NodeId>> declared) {
+        List<NodeId> out = resolve(t, t.label(), preferredPackage, declared);
+        // "Outer$Inner#m" non déclarée dans Inner : méthode d'un type englobant
+        for (String cls = t.className; out.isEmpty() && cls.lastIndexOf('$') > 0; ) {
+            cls = cls.substring(0, cls.lastIndexOf('$'));
+            out = resolve(t, cls + "#" + t.methodName, preferredPackage, declared);
+        }
+        return out;
+    }
+
+    private static List<NodeId> resolve(NodeId t, String label, String preferredPackage, Map<String, List<NodeId>> declared) {
+        List<NodeId> candidates = declared.getOrDefault(label, List.of());
+        if (candidates.isEmpty()) return List.of();
+
+        List<NodeId> out = new ArrayList<>();
+        String pkg = preferredPackage;
+        for (int pass = 0; pass < 2 && out.isEmpty(); pass++) {
+            for (NodeId c : candidates) {
+                if (t.arity >= 0 && c.arity != t.arity) continue;
+                if (pass == 0 && !c.packageName.equals(pkg)) continue;
+                out.add(c);
+            }
+            // 2e passe uniquement si le package n'était pas connu avec certitude
+            if (!t.packageName.isEmpty()) break;
+        }
+        return out;
+    }
+
+    public Set<NodeId> nodes() {
         // Ensemble contenant tous les nœuds (appelants + appelés)
-        Set<String> s = new LinkedHashSet<>(edges.keySet());
+        Set<NodeId> s = new LinkedHashSet<>(edges.keySet());
         for (var vs : edges.values()) s.addAll(vs);
         return s;
     }
 }
-
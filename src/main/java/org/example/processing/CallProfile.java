@@ -0,0 +1,57 @@
+package org.example.processing;
+
+import org.example.model.NodeId;
+
+import java.util.*;
+
+/**
+ * Arêtes d'appel observées à l'exécution, pondérées par le nombre d'échantillons (voir {@link JfrImporter}).
+ *
+ * Même forme que {@link CallGraph#edges} (appelant -> appelés, nœuds du graphe statique), avec un
+ * poids par arête : {@link CouplingGraph#fromProfile} et {@link MultiLevelCoupling#fromProfile}
+ * comptent alors le trafic réel au lieu du nombre de sites d'appel.
+ */
+public final class CallProfile {
+
+    // appelant -> (appelé -> nombre d'échantillons où l'appel est sur la pile)
+    public final Map<NodeId, Map<NodeId, Integer>> weights = new LinkedHashMap<>();
+
+    public long samples;          // événements jdk.ExecutionSample lus
+    public long mappedSamples;    // échantillons contenant au moins une arête entre méthodes du graphe
+    public long frames;           // frames lues
+    public long unmappedFrames;   // frames hors graphe (JDK, bibliothèques, code non analysé)
+
+    /** Ajoute {@code n} échantillons à l'arête (saturé à Integer.MAX_VALUE). */
+    public void add(NodeId from, NodeId to, int n) {
+        weights.computeIfAbsent(from, __ -> new LinkedHashMap<>()).merge(to, n, (a, b) -> (int) Math.min(Integer.MAX_VALUE, (long) a + b));
+    }
+
+    public int weight(NodeId from, NodeId to) {
+        Map<NodeId, Integer> out = weights.get(from);
+        if (out == null) return 0;
+        Integer w = out.get(to);
+        return w == null ? 0 : w;
+    }
+
+    /** Vue "appelant -> appelés" (sans poids), au format de {@link CallGraph#edges}. */
+    public Map<NodeId, Set<NodeId>> edges() {
+        Map<NodeId, Set<NodeId>> out = new LinkedHashMap<>();
+        weights.forEach((k, v) -> out.put(k, v.keySet()));
+        return out;
+    }
+
+    public int edgeCount() {
+        int n = 0;
+        for (Map<NodeId, Integer> out : weights.values()) n += out.size();
+        return n;
+    }
+
+    /** Fusionne un autre profil (plusieurs enregistrements, plusieurs JVM). */
+    public void mergeFrom(CallProfile other) {
+        other.weights.forEach((from, out) -> out.forEach((to, w) -> add(from, to, w)));
+        samples += other.samples;
+        mappedSamples += other.mappedSamples;
+        frames += other.frames;
+        unmappedFrames += other.unmappedFrames;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.processing;
+
+import org.example.model.NodeId;
+import org.example.visitor.ClassVisitor.ClassInfo;
+import org.example.visitor.Signatures;
+import org.example.visitor.MetricsCollector.FileMetrics;
+
+import java.util.*;
+
+/**
+ * Métriques de classe (Chidamber & Kemerer), calculées après fusion de tous les fichiers :
+ *
+ *  - LCOM4 : nombre de composantes connexes du graphe des méthodes de la classe, deux méthodes étant
+ *            reliées si elles utilisent un même attribut ou si l'une appelle l'autre (1 = cohésive).
+ *  - CBO   : nombre d'autres classes déclarées couplées (appel dans un sens ou l'autre, type d'attribut).
+ *  - RFC   : méthodes de la classe + méthodes distinctes appelées par elles.
+ *  - DIT   : profondeur d'héritage (0 sans extends ; une super-classe externe compte pour 1).
+ *  - NOC   : nombre de sous-classes directes déclarées.
+ *
+ * L'usage des attributs est un BitSet par méthode (relevé par {@link org.example.visitor.ClassVisitor}) :
+ * LCOM4 est un union-find où chaque méthode est unie au premier utilisateur de chacun de ses attributs,
+ * soit un coût linéaire en bits posés au lieu de comparer les méthodes deux à deux.
+ */
+public final class ClassMetrics {
+
+    public record Result(String cls, int lcom4, int cbo, int rfc, int dit, int noc, int methods, int fields) {}
+
+    private ClassMetrics() { }
+
+    /** Métriques par classe (nom qualifié), dans l'ordre de déclaration. {@code cg} doit être lié. */
+    public static Map<String, Result> compute(List<FileMetrics> files, CallGraph cg) {
+        List<ClassInfo> infos = new ArrayList<>();
+        for (var fm : files) infos.addAll(fm.classInfos);
+
+        // index des classes déclarées (noms qualifiés, puis noms écrits dans le source non ambigus)
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> bySimple = new HashMap<>();
+        for (int i = 0; i < infos.size(); i++) {
+            String name = infos.get(i).name;
+            index.putIfAbsent(name, i);
+            bySimple.merge(Signatures.innerName(ClassScope.simpleName(name)), i, (a, b) -> -1);   // "Outer$Inner" -> "Inner"
+        }
+
+        // couplage par appels : une arête entre deux classes déclarées distinctes compte dans les deux sens
+        BitSet[] coupled = new BitSet[infos.size()];
+        for (int i = 0; i < coupled.length; i++) coupled[i] = new BitSet();
+        for (var e : cg.edges.entrySet()) {
+            Integer from = index.get(e.getKey().classKey());
+            for (NodeId to : e.getValue()) {
+                Integer target = index.get(to.classKey());
+                if (from == null || target == null || from.equals(target)) continue;
+                coupled[from].set(target);
+                coupled[target].set(from);
+            }
+        }
+        // couplage par types d'attributs, symétrique lui aussi (A a un attribut B : A et B couplées)
+        for (int i = 0; i < infos.size(); i++) {
+            for (String type : infos.get(i).fieldTypes) {
+                int dims = type.indexOf('[');
+                int t = resolve(dims < 0 ? type : type.substring(0, dims), index, bySimple);
+                if (t >= 0 && t != i) {
+                    coupled[i].set(t);
+                    coupled[t].set(i);
+                }
+            }
+        }
+
+        // super-classes résolues et sous-classes directes
+        int[] parent = new int[infos.size()];
+        int[] children = new int[infos.size()];
+        for (int i = 0; i < infos.size(); i++) {
+            parent[i] = resolve(infos.get(i).superClass, index, bySimple);
+            if (parent[i] >= 0 && parent[i] != i) children[parent[i]]++;
+        }
+
+        Map<String, Result> out = new LinkedHashMap<>();
+        for (int i = 0; i < infos.size(); i++) {
+            ClassInfo c = infos.get(i);
+
+            // RFC : méthodes propres + appelés distincts (BitSet sur les ids denses des NodeId)
+            BitSet response = new BitSet();
+            for (NodeId m : c.methods) response.set(m.id);
+            for (NodeId m : c.methods) {
+                for (NodeId callee : cg.edges.getOrDefault(m, Set.of())) response.set(callee.id);
+            }
+
+            out.putIfAbsent(c.name, new Result(c.name, lcom4(c, cg), coupled[i].cardinality(), response.cardinality(),
+                    depth(i, parent, infos), children[i], c.methods.size(), c.fields.size()));
+        }
+        return out;
+    }
+
+    /** Composantes connexes des méthodes (avec corps, hors constructeurs) ; 0 si aucune. */
+    static int lcom4(ClassInfo c, CallGraph cg) {
+        int n = c.fieldUse.size();
+        if (n == 0) return 0;
+        Map<NodeId, Integer> slot = new HashMap<>(n * 2);
+        List<BitSet> uses = new ArrayList<>(n);
+        for (var e : c.fieldUse.entrySet()) {
+            slot.put(e.getKey(), uses.size());
+            uses.add(e.getValue());
+        }
+
+        int[] uf = new int[n];
+        for (int i = 0; i < n; i++) uf[i] = i;
+        int components = n;
+
+        int[] firstUser = new int[c.fields.size()];
+        Arrays.fill(firstUser, -1);
+        for (int m = 0; m < n; m++) {
+            BitSet used = uses.get(m);
+            for (int f = used.nextSetBit(0); f >= 0; f = used.nextSetBit(f + 1)) {
+                if (firstUser[f] < 0) firstUser[f] = m;
+                else if (union(uf, m, firstUser[f])) components--;
+            }
+        }
+        for (var e : c.fieldUse.keySet()) {
+            int from = slot.get(e);
+            for (NodeId callee : cg.edges.getOrDefault(e, Set.of())) {
+                Integer to = slot.get(callee);
+                if (to != null && union(uf, from, to)) components--;
+            }
+        }
+        return components;
+    }
+
+    private static boolean union(int[] uf, int a, int b) {
+        int ra = find(uf, a), rb = find(uf, b);
+        if (ra == rb) return false;
+        uf[ra] = rb;
+        return true;
+    }
+
+    private static int find(int[] uf, int x) {
+        while (uf[x] != x) {
+            uf[x] = uf[uf[x]];   // compression par moitié
+            x = uf[x];
+        }
+        return x;
+    }
+
+    /** 0 sans extends, 1 + DIT(parent) si le parent est déclaré, 1 sinon (cycle : arrêt). */
+    private static int depth(int i, int[] parent, List<ClassInfo> infos) {
+        int d = 0;
+        int cur = i;
+        while (infos.get(cur).superClass != null && d <= infos.size()) {
+            d++;
+            if (parent[cur] < 0 || parent[cur] == cur) break;
+            cur = parent[cur];
+        }
+        return d;
+    }
+
+    /** Nom présumé (qualifié ou simple) -> indice d'une classe déclarée, -1 si externe ou ambigu. */
+    private static int resolve(String type, Map<String, Integer> index, Map<String, Integer> bySimple) {
+        if (type == null) return -1;
+        Integer i = index.get(type);
+        if (i != null) return i;
+        Integer s = bySimple.get(Signatures.innerName(ClassScope.simpleName(type)));
+        return s == null ? -1 : s;
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.processing;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Périmètre des classes retenues pour le couplage et le clustering.
+ *
+ * Spécification textuelle (voir {@link #parse(String)}) :
+ *  - "declared"                   : toutes les classes déclarées dans la racine analysée
+ *  - "pkg:org.example,com.acme"   : classes dont le package commence par l'un des préfixes
+ *  - "glob:org.example.*.Shape*"  : nom qualifié filtré par glob ('*' = un segment, '**' = plusieurs, '?' = un caractère)
+ *  - "names:Shape,Point" ou "Shape,Point" : noms simples ou qualifiés exacts
+ *
+ * Le périmètre ne s'applique qu'aux classes déclarées dans les sources : les cibles externes
+ * (ex: "<external>", Math) ne sont jamais retenues.
+ */
+public final class ClassScope {
+
+    public enum Kind { DECLARED, PACKAGE_PREFIX, GLOB, NAMES }
+
+    private final Kind kind;
+    private final String spec;
+    private final PrefixTrie trie = new PrefixTrie();
+    private final List<Pattern> globs = new ArrayList<>();
+
+    private ClassScope(Kind kind, String spec) {
+        this.kind = kind;
+        this.spec = spec;
+    }
+
+    public static ClassScope declared() {
+        return new ClassScope(Kind.DECLARED, "declared");
+    }
+
+    public static ClassScope packages(Collection<String> prefixes) {
+        ClassScope s = new ClassScope(Kind.PACKAGE_PREFIX, "pkg:" + String.join(",", prefixes));
+        for (String p : prefixes) s.trie.addPrefix(p);
+        return s;
+    }
+
+    public static ClassScope globs(Collection<String> patterns) {
+        ClassScope s = new ClassScope(Kind.GLOB, "glob:" + String.join(",", patterns));
+        for (String g : patterns) s.globs.add(Pattern.compile(globToRegex(g)));
+        return s;
+    }
+
+    public static ClassScope names(Collection<String> names) {
+        ClassScope s = new ClassScope(Kind.NAMES, "names:" + String.join(",", names));
+        for (String n : names) s.trie.addExact(n);
+        return s;
+    }
+
+    /** Construit un périmètre à partir de sa spécification textuelle (CLI, arguments des applis). */
+    public static ClassScope parse(String spec) {
+        String s = spec == null ? "" : spec.trim();
+        if (s.isEmpty() || s.equals("declared") || s.equals("all")) return declared();
+        if (s.startsWith("pkg:"))   return packages(splitList(s.substring(4)));
+        if (s.startsWith("glob:"))  return globs(splitList(s.substring(5)));
+        if (s.startsWith("names:")) return names(splitList(s.substring(6)));
+        return names(splitList(s));
+    }
+
+    public Kind kind() { return kind; }
+
+    /** Vrai si la classe (nom qualifié, ex: "org.example.codebase.Point") fait partie du périmètre. */
+    public boolean includes(String qualified) {
+        return switch (kind) {
+            case DECLARED -> true;
+            case PACKAGE_PREFIX -> trie.matches(qualified);
+            case NAMES -> trie.matches(simpleName(qualified)) || trie.matches(qualified);
+            case GLOB -> {
+                for (Pattern p : globs) if (p.matcher(qualified).matches()) yield true;
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Applique le périmètre aux classes déclarées (noms qualifiés).
+     * Le résultat est calculé une fois par classe ; le parcours des arêtes n'évalue plus le périmètre.
+     */
+    public Set<String> resolve(Collection<String> declaredClasses) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String c : declaredClasses) {
+            if (includes(c)) out.add(c);
+        }
+        return out;
+    }
+
+    /** "org.example.codebase.Point" -> "Point" */
+    public static String simpleName(String qualified) {
+        return qualified.substring(qualified.lastIndexOf('.') + 1);
+    }
+
+    /** "org.example.codebase.Point" -> "org.example.codebase" ("" pour le package par défaut) */
+    public static String packageOf(String qualified) {
+        int dot = qualified.lastIndexOf('.');
+        return dot < 0 ? "" : qualified.substring(0, dot);
+    }
+
+    private static List<String> splitList(String csv) {
+        List<String> out = new ArrayList<>();
+        for (String x : csv.split(",")) if (!x.isBlank()) out.add(x.trim());
+        return out;
+    }
+
+    /** Glob -> regex : '**' = n'importe quoi, '*' = un segment (sans '.'), '?' = un caractère. */
+    private static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') { sb.append(".*"); i++; }
+                else sb.append("[^.]*");
+            } else if (c == '?') {
+                sb.append("[^.]");
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override public String toString() { return spec; }
+}
@@ -1,14 +1,17 @@
 package org.example.processing;
 
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Couplage(A,B) = (# d'appels inter-classes entre A et B) / (somme de tous les appels inter-classes)
- * Ici on NE CONSIDÈRE que les classes du "whitelist" (Shape, Point, Rectangle, Circle).
+ * On NE CONSIDÈRE que les classes du périmètre choisi (liste explicite ou {@link ClassScope}).
  * - Graphe non orienté (A,B) == (B,A)
  * - On ignore tous les appels intra-classe (A -> A)
- * - On ignore toute classe hors whitelist (ex: ext, <external>, Math, etc.)
+ * - On ignore toute classe hors périmètre (ex: ext, <external>, Math, etc.)
  */
 public class CouplingGraph {
 
@@ -25,63 +28,150 @@ public class CouplingGraph {
     }
 
     /** Comptes bruts (numerateurs) et somme totale (dénominateur) */
-    private final Map<Pair, Integer> counts = new LinkedHashMap<>();
-    private int totalInterClassCalls = 0;
+    private final Map<Pair, Long> counts = new LinkedHashMap<>();   // long : sommes d'échantillons JFR
+    private long totalInterClassCalls = 0;   // long : somme d'échantillons d'un long profil JFR
 
-    /** Toutes les classes retenues (pour dessiner les 4 nœuds même sans arêtes) */
+    /** Toutes les classes retenues (pour dessiner les nœuds même sans arêtes) */
     private final Set<String> classes = new LinkedHashSet<>();
 
-    public Map<Pair,Integer> counts() { return Collections.unmodifiableMap(counts); }
-    public int total() { return totalInterClassCalls; }
+    /** Graphe déjà agrégé (ex: un niveau de {@link MultiLevelCoupling}). */
+    static CouplingGraph of(Collection<String> nodes, Map<Pair, Long> counts, long total) {
+        CouplingGraph g = new CouplingGraph();
+        g.classes.addAll(nodes);
+        g.counts.putAll(counts);
+        g.totalInterClassCalls = total;
+        return g;
+    }
+
+    public Map<Pair,Long> counts() { return Collections.unmodifiableMap(counts); }
+    public long total() { return totalInterClassCalls; }
     public Set<String> classes() { return Collections.unmodifiableSet(classes); }
 
     /** Calcule le graphe de couplage en ne gardant que allowedClasses. */
     public static CouplingGraph fromCallGraph(CallGraph cg, Set<String> allowedClasses) {
+        return build(cg.edges, allowedClasses);
+    }
+
+    /**
+     * Calcule le graphe de couplage sur un périmètre (package, glob, classes déclarées...).
+     * Le périmètre est évalué une seule fois par classe déclarée, pas par arête.
+     */
+    public static CouplingGraph fromCallGraph(CallGraph cg, ClassScope scope) {
+        return build(cg.edges, scope.resolve(cg.declaredClasses));
+    }
+
+    /**
+     * Couplage pondéré par le trafic observé (échantillons d'un profil JFR) au lieu du nombre
+     * d'appels statiques : une arête vaut son nombre d'échantillons.
+     */
+    public static CouplingGraph fromProfile(CallProfile profile, Set<String> allowedClasses) {
+        return build(profile.edges(), allowedClasses, profile::weight);
+    }
+
+    /** Poids d'une arête appelant -> appelé. */
+    interface EdgeWeight {
+        int of(NodeId from, NodeId to);
+    }
+
+    static CouplingGraph build(Map<NodeId, Set<NodeId>> edges, Set<String> allowedClasses) {
+        return build(edges, allowedClasses, (from, to) -> 1);
+    }
+
+    /**
+     * Agrégation : chaque nœud est résolu une seule fois en indice de classe (-1 si hors périmètre),
+     * mémorisé dans un tableau indexé par {@link NodeId#id}, puis les paires sont comptées sur des
+     * clés entières. Les classes sont identifiées par leur nom qualifié.
+     */
+    static CouplingGraph build(Map<NodeId, Set<NodeId>> edges, Set<String> allowedClasses, EdgeWeight weight) {
         CouplingGraph g = new CouplingGraph();
-        // Assurer que les 4 nœuds existent même si aucun lien
+        // Assurer que tous les nœuds retenus existent même si aucun lien
         g.classes.addAll(allowedClasses);
-
-        Map<String, Set<String>> edges = cg.edges;
         if (edges == null) return g;
 
-        for (Map.Entry<String, Set<String>> e : edges.entrySet()) {
-            String from = e.getKey();                      // "Class#method"
-            String fromClass = classOf(from);
-            if (fromClass == null || !allowedClasses.contains(fromClass)) continue;
+        long t0 = Instrumentation.start();
+        List<String> classList = new ArrayList<>(allowedClasses);
+        Map<String, Integer> classIdx = new HashMap<>(classList.size() * 2);
+        for (int i = 0; i < classList.size(); i++) classIdx.put(classList.get(i), i);
+
+        NodeClassIndex nodeClass = new NodeClassIndex(classIdx);
+        Map<Long, long[]> pairCounts = new LinkedHashMap<>();
 
-            for (String to : e.getValue()) {
-                String toClass = classOf(to);
-                if (toClass == null || !allowedClasses.contains(toClass)) continue;
-                if (fromClass.equals(toClass)) continue; // uniquement inter-classes
+        for (Map.Entry<NodeId, Set<NodeId>> e : edges.entrySet()) {
+            int from = nodeClass.of(e.getKey());
+            if (from < 0) continue;
 
-                Pair p = new Pair(fromClass, toClass);
-                g.counts.merge(p, 1, Integer::sum);
-                g.totalInterClassCalls++;
+            for (NodeId to : e.getValue()) {
+                int toIdx = nodeClass.of(to);
+                if (toIdx < 0 || toIdx == from) continue; // hors périmètre ou intra-classe
+
+                long key = from < toIdx ? ((long) from << 32) | toIdx : ((long) toIdx << 32) | from;
+                int w = weight.of(e.getKey(), to);
+                pairCounts.computeIfAbsent(key, __ -> new long[1])[0] += w;
+                g.totalInterClassCalls += w;
             }
         }
+
+        for (var e : pairCounts.entrySet()) {
+            int a = (int) (e.getKey() >>> 32), b = (int) (long) e.getKey();
+            g.counts.put(new Pair(classList.get(a), classList.get(b)), e.getValue()[0]);
+        }
+        Instrumentation.stop(Instrumentation.Stage.COUPLING, t0);
         return g;
     }
 
+    /** Cache NodeId -> indice de classe (-1 = hors périmètre), indexé par id interné. */
+    static final class NodeClassIndex {
+        private final Map<String, Integer> classIdx;
+        private int[] memo = new int[0];
+
+        NodeClassIndex(Map<String, Integer> classIdx) { this.classIdx = classIdx; }
+
+        int of(NodeId n) {
+            if (n.id >= memo.length) {
+                int old = memo.length;
+                memo = Arrays.copyOf(memo, Math.max(NodeId.count(), n.id + 1));
+                Arrays.fill(memo, old, memo.length, Integer.MIN_VALUE);
+            }
+            int v = memo[n.id];
+            if (v == Integer.MIN_VALUE) {
+                v = classIdx.getOrDefault(n.classKey(), -1);
+                memo[n.id] = v;
+            }
+            return v;
+        }
+    }
+
     /** Poids normalisé Couplage(A,B) dans [0,1]. */
     public double weight(String c1, String c2) {
         if (c1.equals(c2) || totalInterClassCalls == 0) return 0.0;
-        Integer v = counts.get(new Pair(c1, c2));
+        Long v = counts.get(new Pair(c1, c2));
         return v == null ? 0.0 : (v / (double) totalInterClassCalls);
     }
 
-    /** "Class#method" -> "Class" */
-    private static String classOf(String classHashMethod) {
-        if (classHashMethod == null) return null;
-        int i = classHashMethod.indexOf('#');
-        return i > 0 ? classHashMethod.substring(0, i) : null;
+    /**
+     * Matrice dense des poids dans l'ordre de {@code keys}, remplie directement depuis les paires
+     * existantes (pas de recherche par cellule) : O(n² + nb paires).
+     */
+    public double[][] weightMatrix(List<String> keys) {
+        int n = keys.size();
+        double[][] w = new double[n][n];
+        if (totalInterClassCalls == 0) return w;
+        Map<String, Integer> idx = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) idx.put(keys.get(i), i);
+        for (var e : counts.entrySet()) {
+            Integer i = idx.get(e.getKey().a), j = idx.get(e.getKey().b);
+            if (i == null || j == null) continue;
+            w[i][j] = w[j][i] = e.getValue() / (double) totalInterClassCalls;
+        }
+        return w;
     }
 
     /** Export CSV: ClassA,ClassB,Weight (pas de Count, comme demandé) */
     public String toCsvWeightsOnly() {
         StringBuilder sb = new StringBuilder("ClassA,ClassB,Weight\n");
         // Tri par poids décroissant
-        List<Map.Entry<Pair, Integer>> sorted = counts.entrySet().stream()
-                .sorted((a,b) -> Integer.compare(b.getValue(), a.getValue()))
+        List<Map.Entry<Pair, Long>> sorted = counts.entrySet().stream()
+                .sorted((a,b) -> Long.compare(b.getValue(), a.getValue()))
                 .collect(Collectors.toList());
         for (var e : sorted) {
             double w = totalInterClassCalls == 0 ? 0.0 : (e.getValue() / (double) totalInterClassCalls);
@@ -1,17 +1,207 @@
 package org.example.processing;
 
+import org.example.instrumentation.Instrumentation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
-import java.util.stream.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+/**
+ * Parcours des sources Java.
+ *
+ * Les dossiers sont listés en parallèle (un fork/join par dossier) ; les dossiers exclus par
+ * {@link IgnoreRules} (.git, .idea..., target / build à côté d'un pom.xml ou build.gradle, motifs
+ * .gitignore) sont élagués sans être ouverts. {@link #scan} livre les chemins au fil de la découverte, pour que le parsing démarre
+ * pendant que le parcours continue.
+ *
+ * Une racine peut aussi être une archive (.jar, .zip, ex: "guava-33.0-sources.jar") : elle est montée
+ * en FileSystem zip et ses entrées sont lues directement, sans extraction sur disque. Plusieurs
+ * racines (dossiers ou archives) sont parcourues en parallèle. Les archives restent montées jusqu'à
+ * {@link #closeArchives()} (les chemins renvoyés en dépendent).
+ */
 public class FileExplorer {
+
+    /** Archives montées : chemin de l'archive -> FileSystem zip (et l'inverse pour l'affichage). */
+    private static final Map<Path, FileSystem> ARCHIVES = new ConcurrentHashMap<>();
+    private static final Map<FileSystem, Path> ARCHIVE_OF = new ConcurrentHashMap<>();
+
+    /** Liste complète, triée (ordre stable d'un run à l'autre), avec les règles par défaut. */
     public static List<Path> listJavaFiles(Path root) throws Exception {
-        try (Stream<Path> s = Files.walk(root)) {
+        return listJavaFiles(List.of(root), IgnoreRules.defaults());
+    }
 
-            // renvoie la liste finale des fichiers trouvés
-            return s.filter(p -> p.toString().endsWith(".java"))
-                    .collect(Collectors.toList());
+    public static List<Path> listJavaFiles(List<Path> roots, IgnoreRules rules) throws Exception {
+        long t0 = Instrumentation.start();
+        try {
+            Queue<Path> out = new ConcurrentLinkedQueue<>();
+            walk(roots, rules, ForkJoinPool.commonPool(), out::add);
+            List<Path> files = new ArrayList<>(out);
+            files.sort(Comparator.comparing(FileExplorer::describe));   // racines de FileSystems différents
+            return files;
+        } finally {
+            Instrumentation.stop(Instrumentation.Stage.LIST_FILES, t0);
         }
     }
-}
 
+    /**
+     * Démarre un parcours en tâche de fond sur {@code threads} workers ; les fichiers .java sont
+     * consommés via {@link Scan#next} dès qu'ils sont trouvés (ordre non déterministe).
+     */
+    public static Scan scan(List<Path> roots, IgnoreRules rules, int threads) {
+        Scan scan = new Scan();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        Thread walker = new Thread(() -> {
+            long t0 = Instrumentation.start();
+            try {
+                walk(roots, rules, pool, p -> { scan.discovered.incrementAndGet(); scan.queue.add(p); });
+            } finally {
+                Instrumentation.stop(Instrumentation.Stage.LIST_FILES, t0);
+                pool.shutdown();
+                scan.queue.add(Scan.END);
+            }
+        }, "file-walker");
+        walker.setDaemon(true);
+        walker.start();
+        return scan;
+    }
+
+    /** Flux de chemins produit par {@link #scan}. */
+    public static final class Scan {
+        private static final Path END = Paths.get("");
+
+        private final BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger discovered = new AtomicInteger();
+        private volatile boolean finished;
+
+        /**
+         * Prochain fichier, en attendant au plus {@code timeout} ; null si rien n'est arrivé
+         * dans le délai ou si le parcours est terminé (voir {@link #finished()}).
+         */
+        public Path next(long timeout, TimeUnit unit) throws InterruptedException {
+            if (finished) return null;
+            Path p = queue.poll(timeout, unit);
+            if (p == END) { finished = true; return null; }
+            return p;
+        }
+
+        /** Vrai une fois le dernier fichier livré. */
+        public boolean finished() { return finished; }
+
+        /** Nombre de fichiers trouvés jusqu'ici. */
+        public int discovered() { return discovered.get(); }
+    }
+
+    /** Vrai pour un fichier .jar / .zip (racine à monter en FileSystem zip). */
+    public static boolean isArchive(Path p) {
+        String name = p.getFileName() == null ? "" : p.getFileName().toString().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".jar") || name.endsWith(".zip")) && Files.isRegularFile(p);
+    }
+
+    /** Racine de l'archive montée (montage au premier appel, partagé ensuite). */
+    public static Path openArchive(Path archive) {
+        Path key = archive.toAbsolutePath().normalize();
+        FileSystem fs = ARCHIVES.computeIfAbsent(key, k -> {
+            try {
+                FileSystem zfs = FileSystems.newFileSystem(k);
+                ARCHIVE_OF.put(zfs, k);
+                return zfs;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("archive illisible: " + k, ex);
+            }
+        });
+        return fs.getRootDirectories().iterator().next();
+    }
+
+    /** Démonte les archives ouvertes (les chemins qui en proviennent deviennent inutilisables). */
+    public static void closeArchives() {
+        for (FileSystem fs : ARCHIVES.values()) {
+            try { fs.close(); } catch (IOException ignored) { }
+        }
+        ARCHIVES.clear();
+        ARCHIVE_OF.clear();
+    }
+
+    /** Archive dont provient le fichier (chemin absolu), null pour un fichier du disque. */
+    public static Path archiveOf(Path p) {
+        return ARCHIVE_OF.get(p.getFileSystem());
+    }
+
+    /** Nom lisible d'un fichier : "lib/x-sources.jar!/org/x/A.java" pour une entrée d'archive. */
+    public static String describe(Path p) {
+        Path archive = ARCHIVE_OF.get(p.getFileSystem());
+        return archive == null ? p.toString() : archive + "!" + p;
+    }
+
+    private static void walk(List<Path> roots, IgnoreRules rules, ForkJoinPool pool, Consumer<Path> sink) {
+        List<DirTask> tasks = new ArrayList<>();
+        for (Path root : roots) {
+            if (isArchive(root)) {
+                try {
+                    root = openArchive(root);
+                } catch (UncheckedIOException ex) {
+                    System.err.println("WARN " + ex.getMessage() + " : " + ex.getCause().getMessage());
+                    continue;
+                }
+            }
+            if (!Files.exists(root)) {
+                System.err.println("WARN racine introuvable: " + root);
+                continue;
+            }
+            if (!Files.isDirectory(root)) {
+                if (root.getFileName() != null && root.getFileName().toString().endsWith(".java")) sink.accept(root);
+                continue;
+            }
+            tasks.add(new DirTask(root, root, rules.forRoot(root), sink));
+        }
+        // toutes les racines (dossiers et archives) dans le même pool : parcourues en parallèle
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() { invokeAll(tasks); }
+        });
+    }
+
+    /** Liste un dossier : fichiers .java envoyés au consommateur, sous-dossiers parcourus en parallèle. */
+    private static final class DirTask extends RecursiveAction {
+        private final Path root, dir;
+        private final IgnoreRules rules;
+        private final Consumer<Path> sink;
+
+        DirTask(Path root, Path dir, IgnoreRules rules, Consumer<Path> sink) {
+            this.root = root; this.dir = dir; this.rules = rules; this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirTask> subdirs = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path p : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException ex) {
+                        continue;
+                    }
+                    String name = p.getFileName().toString();
+                    if (attrs.isDirectory()) {
+                        if (!rules.ignoresDir(p, relative(p), name)) subdirs.add(new DirTask(root, p, rules, sink));
+                    } else if (attrs.isRegularFile() && name.endsWith(".java") && !rules.ignoresFile(relative(p))) {
+                        sink.accept(p);
+                    }
+                }
+            } catch (IOException ex) {
+                System.err.println("WARN dossier illisible: " + dir + " : " + ex.getMessage());
+            }
+            invokeAll(subdirs);
+        }
+
+        /** Chemin relatif à la racine avec '/' comme séparateur (format des motifs). */
+        private String relative(Path p) {
+            String rel = root.relativize(p).toString();
+            return p.getFileSystem().getSeparator().equals("/") ? rel : rel.replace(p.getFileSystem().getSeparator(), "/");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.processing;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bilan fichier par fichier d'une analyse : durée, taille (octets, nœuds AST) et statut.
+ * Alimenté par les workers (thread-safe) ; classements calculés à la demande :
+ *  - fichiers les plus lents / les plus gros (top K, tas borné),
+ *  - fichiers en échec (exception de parsing/analyse) ou abandonnés (délai dépassé).
+ */
+public final class FileReport {
+
+    public enum Status { OK, FAILED, TIMEOUT }
+
+    public record Entry(String file, Status status, long nanos, long bytes, int astNodes, String error) {
+        public double millis() { return nanos / 1e6; }
+    }
+
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    public void ok(String file, long nanos, long bytes, int astNodes) {
+        entries.add(new Entry(file, Status.OK, nanos, bytes, astNodes, null));
+    }
+
+    public void failed(String file, long nanos, Exception ex) {
+        String msg = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+        entries.add(new Entry(file, Status.FAILED, nanos, -1, -1, msg));
+    }
+
+    public void timedOut(String file, long nanos) {
+        entries.add(new Entry(file, Status.TIMEOUT, nanos, -1, -1, "délai dépassé"));
+    }
+
+    /** Ajoute une entrée existante (ex: bilan d'un shard relu pour la fusion). */
+    public void add(Entry e) {
+        entries.add(e);
+    }
+
+    public int size() { return entries.size(); }
+
+    /** Toutes les entrées, dans l'ordre où elles ont été signalées. */
+    public List<Entry> entries() {
+        return new ArrayList<>(entries);
+    }
+
+    public int failureCount() {
+        int n = 0;
+        for (Entry e : entries) if (e.status != Status.OK) n++;
+        return n;
+    }
+
+    public int count(Status s) {
+        int n = 0;
+        for (Entry e : entries) if (e.status == s) n++;
+        return n;
+    }
+
+    /** Les k fichiers analysés le plus lentement (ordre décroissant de durée). */
+    public List<Entry> slowest(int k) {
+        return top(k, Comparator.comparingLong(Entry::nanos));
+    }
+
+    /** Les k plus gros AST (ordre décroissant du nombre de nœuds). */
+    public List<Entry> largest(int k) {
+        return top(k, Comparator.comparingInt(Entry::astNodes));
+    }
+
+    /** Fichiers en échec ou abandonnés, dans l'ordre où ils ont été signalés. */
+    public List<Entry> failures() {
+        List<Entry> out = new ArrayList<>();
+        for (Entry e : entries) if (e.status != Status.OK) out.add(e);
+        return out;
+    }
+
+    private List<Entry> top(int k, Comparator<Entry> order) {
+        if (k <= 0) return List.of();
+        PriorityQueue<Entry> heap = new PriorityQueue<>(k + 1, order);   // tas min de taille k
+        for (Entry e : entries) {
+            if (e.status != Status.OK) continue;
+            heap.add(e);
+            if (heap.size() > k) heap.poll();
+        }
+        List<Entry> out = new ArrayList<>(heap);
+        out.sort(order.reversed());
+        return out;
+    }
+
+    /** Rapport texte : top K lents, top K gros, puis tous les échecs. */
+    public String toText(int k) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "=== Fichiers : %d analysés, %d en échec, %d abandonnés (délai) ===%n",
+                count(Status.OK), count(Status.FAILED), count(Status.TIMEOUT)));
+        sb.append("Plus lents :\n");
+        int rank = 1;
+        for (Entry e : slowest(k)) {
+            sb.append(String.format(Locale.ROOT, "  %2d. %9.1f ms  %8d nœuds  %9d o  %s%n",
+                    rank++, e.millis(), e.astNodes, e.bytes, e.file));
+        }
+        sb.append("Plus gros AST :\n");
+        rank = 1;
+        for (Entry e : largest(k)) {
+            sb.append(String.format(Locale.ROOT, "  %2d. %8d nœuds  %9.1f ms  %9d o  %s%n",
+                    rank++, e.astNodes, e.millis(), e.bytes, e.file));
+        }
+        List<Entry> fails = failures();
+        if (!fails.isEmpty()) {
+            sb.append("Échecs :\n");
+            for (Entry e : fails) {
+                sb.append(String.format(Locale.ROOT, "  [%s] %s (%.1f ms) : %s%n",
+                        e.status, e.file, e.millis(), e.error));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.processing;
 
+import org.example.instrumentation.Instrumentation;
+
 import java.util.*;
 
 /**
@@ -8,37 +10,68 @@ import java.util.*;
  */
 public final class HierarchicalClustering {
 
-    /** Noeud du dendrogramme. */
+    /**
+     * Noeud du dendrogramme.
+     *
+     * Porte la somme des poids de ses paires internes et leur nombre, cumulés depuis les enfants :
+     * la similarité de fusion (average-linkage) est la moyenne des |G|×|D| paires croisées, donc
+     * somme(parent) = somme(G) + somme(D) + similarité × |G| × |D|. La moyenne interne d'un cluster
+     * est ainsi connue en O(1), sans reparcourir ses paires.
+     */
     public static final class Node {
         public final Set<String> classes; // ensemble des classes dans ce cluster
         public final Node left, right;    // enfants (null si feuille)
         public final double similarity;   // score de fusion (poids moyen inter-clusters) ; 0 pour feuille
+        public final double internalSum;  // somme des poids des paires internes
+        public final long internalPairs;  // nombre de paires internes : n(n-1)/2
 
         public Node(Set<String> classes, Node left, Node right, double similarity) {
             this.classes = Collections.unmodifiableSet(new LinkedHashSet<>(classes));
             this.left = left;
             this.right = right;
             this.similarity = similarity;
+            long n = this.classes.size();
+            this.internalPairs = n * (n - 1) / 2;
+            this.internalSum = left == null || right == null ? 0.0
+                    : left.internalSum + right.internalSum + similarity * left.classes.size() * right.classes.size();
         }
 
         public boolean isLeaf() { return left == null && right == null; }
+
+        /** Moyenne des poids des paires internes (= {@link HierarchicalClustering#averageInternalCoupling(Set)} sur ses classes). */
+        public double averageInternalCoupling() {
+            return internalPairs == 0 ? 0.0 : internalSum / internalPairs;
+        }
     }
 
     private final Map<String, Integer> idx = new HashMap<>();
     private final List<String> classList;
     private final double[][] w; // matrice w[i][j] = couplage entre classList[i], classList[j]
+    private final int[][] neighbours; // neighbours[i] = indices j (j != i) tels que w[i][j] != 0
 
     public HierarchicalClustering(Set<String> classes, CouplingGraph cg) {
         this.classList = new ArrayList<>(classes);
         for (int i=0;i<classList.size();i++) idx.put(classList.get(i), i);
-        int n = classList.size();
-        this.w = new double[n][n];
-        for (int i=0;i<n;i++) for (int j=0;j<n;j++) {
-            if (i==j) w[i][j] = 0.0;
-            else w[i][j] = cg.weight(classList.get(i), classList.get(j));
+        this.w = cg.weightMatrix(classList);
+        this.neighbours = new int[w.length][];
+        for (int i=0;i<w.length;i++) {
+            int[] nb = new int[w.length]; int c = 0;
+            for (int j=0;j<w.length;j++) if (j != i && w[i][j] != 0.0) nb[c++] = j;
+            neighbours[i] = Arrays.copyOf(nb, c);
         }
     }
 
+    /** Nombre de classes du périmètre. */
+    int size() { return classList.size(); }
+
+    /** Indice d'une classe dans la matrice des poids, -1 si hors périmètre. */
+    int index(String cls) { return idx.getOrDefault(cls, -1); }
+
+    double weight(int i, int j) { return w[i][j]; }
+
+    /** Classes couplées à la classe i (liste creuse, pour les fusions de {@link ModulesExtractor}). */
+    int[] neighbours(int i) { return neighbours[i]; }
+
     /** moyenne des poids pour toutes les paires (a,b) avec a∈A, b∈B */
     private double avgSimilarity(Set<Integer> A, Set<Integer> B) {
         if (A.isEmpty() || B.isEmpty()) return 0.0;
@@ -53,6 +86,7 @@ public final class HierarchicalClustering {
 
     /** Réalise le clustering et renvoie la racine du dendrogramme. */
     public Node cluster() {
+        long t0 = Instrumentation.start();
         // clusters actifs: id -> indices de classes
         int n = classList.size();
         Map<Integer, Set<Integer>> clusters = new LinkedHashMap<>();
@@ -92,7 +126,9 @@ public final class HierarchicalClustering {
             nextId++;
         }
 
-        return nodes.values().iterator().next(); // racine
+        Node root = nodes.values().iterator().next(); // racine
+        Instrumentation.stop(Instrumentation.Stage.CLUSTERING, t0);
+        return root;
     }
 
     /** Moyenne interne de couplage pour un set de classes (toutes paires). */
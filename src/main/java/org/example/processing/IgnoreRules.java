@@ -0,0 +1,146 @@
+package org.example.processing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Règles d'exclusion du parcours des sources, à la manière de .gitignore.
+ *
+ *  - Dossiers exclus par nom, élagués dès leur découverte : leur contenu n'est jamais listé.
+ *    Par défaut, les dossiers VCS / IDE (.git, .idea, .gradle...) à toute profondeur, et les
+ *    sorties de build (target, build, node_modules) seulement à côté d'un descripteur de build
+ *    (pom.xml, build.gradle, package.json...) : "com/acme/build/" reste un package comme un autre.
+ *  - Motifs gitignore, évalués sur le chemin relatif à la racine (séparateur '/') :
+ *    "*.gen.java", "gen/" (dossier seulement), "/legacy" (ancré à la racine), "**&#47;test/**",
+ *    "!Keep.java" (ré-inclusion). Comme pour git, le dernier motif qui correspond l'emporte.
+ */
+public final class IgnoreRules {
+
+    /** Noms qui ne peuvent pas être des packages Java : élagués à toute profondeur. */
+    public static final Set<String> DEFAULT_EXCLUDED_DIRS = Set.of(
+            ".git", ".svn", ".hg", ".idea", ".gradle", ".mvn");
+
+    /** Sorties de build / dépendances : élaguées seulement si le dossier parent a un descripteur de build. */
+    public static final Set<String> DEFAULT_BUILD_OUTPUT_DIRS = Set.of("target", "build", "node_modules");
+
+    public static final List<String> BUILD_DESCRIPTORS = List.of(
+            "pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts",
+            "build.xml", "package.json");
+
+    private record Rule(Pattern pattern, boolean negate, boolean dirOnly) {}
+
+    private final Set<String> excludedDirNames;
+    private final Set<String> buildOutputDirNames;
+    private final List<Rule> rules = new ArrayList<>();
+
+    private IgnoreRules(Set<String> excludedDirNames, Set<String> buildOutputDirNames) {
+        this.excludedDirNames = excludedDirNames;
+        this.buildOutputDirNames = buildOutputDirNames;
+    }
+
+    /** Dossiers de build / VCS / dépendances exclus, aucun motif. */
+    public static IgnoreRules defaults() {
+        return new IgnoreRules(DEFAULT_EXCLUDED_DIRS, DEFAULT_BUILD_OUTPUT_DIRS);
+    }
+
+    /** Aucune exclusion (comportement historique de Files.walk). */
+    public static IgnoreRules none() {
+        return new IgnoreRules(Set.of(), Set.of());
+    }
+
+    /** Ajoute des motifs au format gitignore (lignes vides et commentaires '#' ignorés). */
+    public IgnoreRules withPatterns(Collection<String> lines) {
+        for (String raw : lines) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            boolean negate = line.startsWith("!");
+            if (negate) line = line.substring(1);
+            boolean dirOnly = line.endsWith("/");
+            if (dirOnly) line = line.substring(0, line.length() - 1);
+            if (line.isEmpty()) continue;
+            rules.add(new Rule(Pattern.compile(toRegex(line)), negate, dirOnly));
+        }
+        return this;
+    }
+
+    /**
+     * Règles propres à une racine : copie de ces règles complétée par le .gitignore de la racine.
+     * Les motifs du .gitignore passent avant ceux déjà présents (--exclude garde le dernier mot).
+     */
+    public IgnoreRules forRoot(Path root) {
+        IgnoreRules out = new IgnoreRules(excludedDirNames, buildOutputDirNames).withGitignore(root);
+        out.rules.addAll(rules);
+        return out;
+    }
+
+    /** Ajoute les motifs du fichier .gitignore de la racine, s'il existe. */
+    public IgnoreRules withGitignore(Path root) {
+        Path gi = root.resolve(".gitignore");
+        if (!Files.isRegularFile(gi)) return this;
+        try {
+            return withPatterns(Files.readAllLines(gi, StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            System.err.println("WARN .gitignore illisible: " + gi + " : " + ex.getMessage());
+            return this;
+        }
+    }
+
+    /** Vrai si le dossier {@code dir} (chemin relatif à la racine, nom) doit être élagué. */
+    public boolean ignoresDir(Path dir, String relative, String name) {
+        return excludedDirNames.contains(name)
+                || (buildOutputDirNames.contains(name) && hasBuildDescriptor(dir.getParent()))
+                || matches(relative, true);
+    }
+
+    private static boolean hasBuildDescriptor(Path parent) {
+        if (parent == null) return false;
+        for (String d : BUILD_DESCRIPTORS) {
+            if (Files.isRegularFile(parent.resolve(d))) return true;
+        }
+        return false;
+    }
+
+    /** Vrai si le fichier (chemin relatif) doit être ignoré. */
+    public boolean ignoresFile(String relative) {
+        return matches(relative, false);
+    }
+
+    private boolean matches(String relative, boolean isDir) {
+        boolean ignored = false;
+        for (Rule r : rules) {
+            if (r.dirOnly && !isDir) continue;
+            if (r.pattern.matcher(relative).matches()) ignored = !r.negate;
+        }
+        return ignored;
+    }
+
+    /**
+     * Motif gitignore -> regex sur le chemin relatif.
+     * Sans '/' interne : correspond au nom à n'importe quelle profondeur ; sinon ancré à la racine.
+     */
+    static String toRegex(String glob) {
+        boolean anchored = glob.startsWith("/") || glob.indexOf('/') >= 0;
+        if (glob.startsWith("/")) glob = glob.substring(1);
+
+        StringBuilder sb = new StringBuilder(anchored ? "" : "(?:.*/)?");
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                boolean slashAfter = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                if (slashAfter) { sb.append("(?:.*/)?"); i += 2; }   // "**/" = zéro ou plusieurs dossiers
+                else { sb.append(".*"); i++; }                      // "/**" = tout le contenu
+            } else if (c == '*') {
+                sb.append("[^/]*");
+            } else if (c == '?') {
+                sb.append("[^/]");
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.processing;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+import org.example.visitor.Signatures;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Import d'un enregistrement JFR (profilage en production) : les piles des événements
+ * jdk.ExecutionSample deviennent des arêtes pondérées entre méthodes du graphe d'appel.
+ *
+ * Lecture en flux, événement par événement ({@link RecordingFile#readEvent()}) : la mémoire ne dépend
+ * que du nombre de méthodes distinctes, pas de la taille de l'enregistrement.
+ *
+ * Chaque frame est rattachée à un nœud déclaré du {@link CallGraph} (lié) : classe (les classes
+ * anonymes sont rattachées à leur classe englobante, les classes imbriquées et locales gardent leur
+ * nom binaire "Outer$Inner" comme dans les visiteurs), méthode ("&lt;init&gt;" = constructeur,
+ * "lambda$run$0" = run),
+ * puis signature effacée du descripteur ; à défaut, arité, puis nom seul s'il est unique.
+ * Les frames hors graphe (JDK, bibliothèques) sont sautées : A -> Stream.forEach -> lambda de B
+ * donne l'arête A -> B. Dans un échantillon, chaque arête compte une fois (récursion).
+ */
+public final class JfrImporter {
+
+    public static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+
+    /** Au-delà, le cache par instance RecordedMethod est vidé (instances propres à chaque chunk). */
+    private static final int METHOD_CACHE_LIMIT = 1 << 16;
+
+    private static final NodeId NONE = NodeId.unresolved("", "<jfr>", "<none>", 0);
+
+    private final Map<String, NodeId> exact = new HashMap<>();               // "pkg.Cls#m(sig)"
+    private final Map<String, List<NodeId>> byName = new HashMap<>();        // "pkg.Cls#m"
+    private final Map<String, NodeId> byKey = new HashMap<>();               // clé JVM -> nœud (ou NONE)
+    private final IdentityHashMap<RecordedMethod, NodeId> byMethod = new IdentityHashMap<>();
+
+    /** {@code cg} doit être lié : ses appelants sont les méthodes déclarées. */
+    public JfrImporter(CallGraph cg) {
+        for (NodeId m : cg.edges.keySet()) {
+            if (!m.isResolved()) continue;
+            exact.put(m.toString(), m);
+            byName.computeIfAbsent(m.classKey() + "#" + m.methodName, __ -> new ArrayList<>()).add(m);
+        }
+    }
+
+    /** Importe plusieurs enregistrements dans un même profil. */
+    public static CallProfile importRecordings(List<Path> recordings, CallGraph cg) throws IOException {
+        JfrImporter importer = new JfrImporter(cg);
+        CallProfile profile = new CallProfile();
+        for (Path p : recordings) importer.read(p, profile);
+        return profile;
+    }
+
+    /** Lit un enregistrement et ajoute ses échantillons au profil. */
+    public void read(Path recording, CallProfile profile) throws IOException {
+        long t0 = Instrumentation.start();
+        try (RecordingFile rf = new RecordingFile(recording)) {
+            List<NodeId> stack = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+            while (rf.hasMoreEvents()) {
+                RecordedEvent e = rf.readEvent();
+                if (!e.getEventType().getName().equals(EXECUTION_SAMPLE)) continue;
+                RecordedStackTrace st = e.getStackTrace();
+                if (st == null) continue;
+                profile.samples++;
+
+                // frames du plus externe (appelant) au plus interne, réduites aux méthodes du graphe
+                List<RecordedFrame> frames = st.getFrames();
+                stack.clear();
+                for (int i = frames.size() - 1; i >= 0; i--) {
+                    RecordedFrame f = frames.get(i);
+                    profile.frames++;
+                    NodeId n = f.isJavaFrame() ? node(f.getMethod()) : NONE;
+                    if (n == NONE) { profile.unmappedFrames++; continue; }
+                    if (stack.isEmpty() || stack.get(stack.size() - 1) != n) stack.add(n);
+                }
+
+                seen.clear();
+                for (int i = 1; i < stack.size(); i++) {
+                    NodeId from = stack.get(i - 1), to = stack.get(i);
+                    if (seen.add(((long) from.id << 32) | to.id)) profile.add(from, to, 1);
+                }
+                if (!seen.isEmpty()) profile.mappedSamples++;
+            }
+        } finally {
+            Instrumentation.stop(Instrumentation.Stage.PROFILE, t0);
+        }
+    }
+
+    private NodeId node(RecordedMethod m) {
+        if (m == null) return NONE;
+        NodeId n = byMethod.get(m);
+        if (n != null) return n;
+        if (byMethod.size() >= METHOD_CACHE_LIMIT) byMethod.clear();
+        String key = m.getType().getName() + "#" + m.getName() + m.getDescriptor();
+        n = byKey.computeIfAbsent(key, __ -> resolve(m.getType().getName(), m.getName(), m.getDescriptor()));
+        byMethod.put(m, n);
+        return n;
+    }
+
+    /** Nom binaire JVM + méthode + descripteur -> nœud déclaré, ou NONE. */
+    NodeId resolve(String binaryName, String method, String descriptor) {
+        if (method.equals("<clinit>")) return NONE;
+        int dot = binaryName.lastIndexOf('.');
+        String pkg = dot < 0 ? "" : binaryName.substring(0, dot);
+        String cls = Signatures.sourceClassName(binaryName.substring(dot + 1));
+        if (cls == null) return NONE;
+        String owner = pkg.isEmpty() ? cls : pkg + "." + cls;
+
+        String name = method;
+        if (name.equals("<init>")) name = Signatures.innerName(cls);
+        else if (name.startsWith("lambda$")) {
+            // lambda$run$0 : corps d'une lambda de run() (paramètres = captures + arguments)
+            int end = name.indexOf('$', 7);
+            name = end < 0 ? name.substring(7) : name.substring(7, end);
+            if (name.equals("new")) name = Signatures.innerName(cls);   // lambda d'un constructeur
+        }
+        boolean lambda = !name.equals(method) && !method.equals("<init>");
+
+        List<String> params = Signatures.descriptorParameters(descriptor);
+        if (!lambda) {
+            NodeId n = exact.get(owner + "#" + name + "(" + String.join(",", params) + ")");
+            if (n != null) return n;
+        }
+        List<NodeId> candidates = byName.getOrDefault(owner + "#" + name, List.of());
+        if (candidates.size() == 1) return candidates.get(0);
+        if (!lambda) {
+            NodeId match = null;
+            for (NodeId c : candidates) {
+                if (c.arity != params.size()) continue;
+                if (match != null) return NONE;   // surcharges de même arité : ambigu
+                match = c;
+            }
+            if (match != null) return match;
+        }
+        return NONE;
+    }
+}
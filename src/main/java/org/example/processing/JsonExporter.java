@@ -0,0 +1,203 @@
+package org.example.processing;
+
+import org.example.model.NodeId;
+import org.example.visitor.MetricsCollector.FileMetrics;
+
+import java.util.*;
+
+/**
+ * Sérialisation JSON minimale (sans dépendance externe) des résultats d'analyse.
+ * Chaque enregistrement tient sur une seule ligne : utilisable tel quel en NDJSON
+ * ou comme élément d'un tableau JSON.
+ */
+public final class JsonExporter {
+
+    private JsonExporter() {}
+
+    /** Métriques d'un fichier : {"type":"file", ...} */
+    public static String fileRecord(FileMetrics fm) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "file");
+        o.put("file", fm.fileName);
+        o.put("package", fm.packageName);
+        o.put("loc", fm.fileLoc);
+        o.put("classes", fm.classes);
+        o.put("methods", fm.methods);
+        o.put("fields", fm.fields);
+        o.put("maxParams", fm.maxParamsInFile);
+        o.put("methodsPerClass", fm.methodsPerClass);
+        o.put("fieldsPerClass", fm.fieldsPerClass);
+        o.put("methodLoc", fm.methodLoc);
+        o.put("cyclomatic", fm.cyclomatic);
+        return object(o);
+    }
+
+    /** Arête du graphe d'appel : {"type":"edge","from":"p.A#m(int)","to":"p.B#n()"} */
+    public static String edgeRecord(NodeId from, NodeId to) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "edge");
+        o.put("from", from.toString());
+        o.put("to", to.toString());
+        return object(o);
+    }
+
+    /** Arête observée à l'exécution : {"type":"profileEdge","from":...,"to":...,"samples":42} */
+    public static String profileEdgeRecord(NodeId from, NodeId to, int samples) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "profileEdge");
+        o.put("from", from.toString());
+        o.put("to", to.toString());
+        o.put("samples", samples);
+        return object(o);
+    }
+
+    /** Couplage d'une paire à un niveau donné : {"type":"coupling","level":"package", ...} */
+    public static String couplingRecord(String level, CouplingGraph.Pair p, long count, double weight) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "coupling");
+        o.put("level", level);
+        o.put("a", p.a);
+        o.put("b", p.b);
+        o.put("count", count);
+        o.put("weight", weight);
+        return object(o);
+    }
+
+    /** Module issu de la découpe du dendrogramme : {"type":"module", ...} */
+    public static String moduleRecord(int index, ModulesExtractor.Module m) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "module");
+        o.put("index", index);
+        o.put("classes", m.classes);
+        o.put("avgCoupling", m.avgCoupling);
+        return object(o);
+    }
+
+    /** Point chaud : {"type":"hotspot","rank":1,"method":"p.A#m(int)","cyclomatic":12,...} */
+    public static String hotspotRecord(int rank, StatisticsService.Hotspot h) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "hotspot");
+        o.put("rank", rank);
+        o.put("method", h.method().toString());
+        o.put("cyclomatic", h.cyclomatic());
+        o.put("nesting", h.nesting());
+        o.put("callSites", h.callSites());
+        o.put("fanIn", h.fanIn());
+        o.put("fanOut", h.fanOut());
+        o.put("score", h.score());
+        return object(o);
+    }
+
+    /** Résultat de requête : {"type":"queryHit","query":"class.methods>5","rank":1,"key":"p.A","value":12} */
+    public static String queryHitRecord(String query, int rank, MetricsQuery.Hit<String> h) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "queryHit");
+        o.put("query", query);
+        o.put("rank", rank);
+        o.put("key", h.key());
+        o.put("value", h.value());
+        return object(o);
+    }
+
+    /** Métriques de classe : {"type":"class","class":"p.A","lcom4":1,"cbo":3,"rfc":12,"dit":1,"noc":0,...} */
+    public static String classRecord(ClassMetrics.Result r) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", "class");
+        o.put("class", r.cls());
+        o.put("lcom4", r.lcom4());
+        o.put("cbo", r.cbo());
+        o.put("rfc", r.rfc());
+        o.put("dit", r.dit());
+        o.put("noc", r.noc());
+        o.put("methods", r.methods());
+        o.put("fields", r.fields());
+        return object(o);
+    }
+
+    /**
+     * Ligne du bilan par fichier : {"type":"slowFile"|"largeFile"|"failedFile","rank":1,"file":...}
+     * (rank = 0 pour les échecs, non classés).
+     */
+    public static String fileReportRecord(String type, int rank, FileReport.Entry e) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("type", type);
+        if (rank > 0) o.put("rank", rank);
+        o.put("file", e.file());
+        o.put("status", e.status().name().toLowerCase(Locale.ROOT));
+        o.put("elapsedMs", e.millis());
+        if (e.status() == FileReport.Status.OK) {
+            o.put("astNodes", e.astNodes());
+            o.put("bytes", e.bytes());
+        } else {
+            o.put("error", e.error());
+        }
+        return object(o);
+    }
+
+    /** Objet JSON générique (valeurs : String, Number, Boolean, Map, Collection, null). */
+    public static String object(Map<String, ?> fields) {
+        StringBuilder sb = new StringBuilder();
+        appendValue(sb, fields);
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object v) {
+        if (v == null) {
+            sb.append("null");
+        } else if (v instanceof String s) {
+            appendQuoted(sb, s);
+        } else if (v instanceof Double d) {
+            sb.append(d.isNaN() || d.isInfinite() ? "null" : String.format(Locale.ROOT, "%.6f", d));
+        } else if (v instanceof Number || v instanceof Boolean) {
+            sb.append(v);
+        } else if (v instanceof Map<?, ?> m) {
+            sb.append('{');
+            boolean first = true;
+            for (var e : m.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                appendQuoted(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                appendValue(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (v instanceof Collection<?> c) {
+            sb.append('[');
+            boolean first = true;
+            for (Object x : c) {
+                if (!first) sb.append(',');
+                first = false;
+                appendValue(sb, x);
+            }
+            sb.append(']');
+        } else {
+            appendQuoted(sb, v.toString());
+        }
+    }
+
+    /** Chaîne JSON échappée (guillemets, antislash, caractères de contrôle). */
+    public static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        appendQuoted(sb, s);
+        return sb.toString();
+    }
+
+    private static void appendQuoted(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"'  -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.processing;
+
+import org.example.model.NodeId;
+import org.example.visitor.MetricsCollector.FileMetrics;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Requêtes sur les métriques d'une analyse, par index construits une fois.
+ *
+ * À la construction, chaque métrique (méthodes / attributs par classe, LOC, paramètres, complexité,
+ * imbrication, sites d'appel par méthode) est triée dans un {@link Ranking} : seuil, intervalle et
+ * top K se font par recherche dichotomique, en O(log n + k) pour k résultats, au lieu d'un filtrage
+ * et d'un tri de toutes les entrées à chaque question. Les méthodes de chaque classe ont leurs
+ * propres classements ; noms de classes et de méthodes sont triés pour les requêtes par préfixe.
+ *
+ * L'index est immuable : partageable entre threads (interface Swing, CLI, serveur).
+ * Syntaxe textuelle : voir {@link #run(String)}.
+ */
+public final class MetricsQuery {
+
+    public enum ClassMetric { METHODS, FIELDS }
+
+    public enum MethodMetric { LOC, PARAMS, CYCLOMATIC, NESTING, CALL_SITES }
+
+    /** Résultat d'une requête : clé (classe ou méthode) et valeur de la métrique. */
+    public record Hit<T>(T key, int value) {}
+
+    private final EnumMap<ClassMetric, Map<String, Integer>> classValues = new EnumMap<>(ClassMetric.class);
+    private final EnumMap<MethodMetric, Map<NodeId, Integer>> methodValues = new EnumMap<>(MethodMetric.class);
+    private final EnumMap<ClassMetric, Ranking<String>> classRankings = new EnumMap<>(ClassMetric.class);
+    private final EnumMap<MethodMetric, Ranking<NodeId>> methodRankings = new EnumMap<>(MethodMetric.class);
+    private final Map<String, EnumMap<MethodMetric, Ranking<NodeId>>> byClass = new HashMap<>();
+    private final Map<String, List<String>> classesByPackage = new TreeMap<>();
+    private final String[] classNames;     // triés
+    private final String[] methodNames;    // triés (NodeId.toString)
+    private final NodeId[] methods;        // même ordre que methodNames
+
+    private MetricsQuery(List<FileMetrics> files) {
+        Map<String, Integer> methodCount = new HashMap<>(), fieldCount = new HashMap<>();
+        EnumMap<MethodMetric, Map<NodeId, Integer>> values = new EnumMap<>(MethodMetric.class);
+        for (MethodMetric m : MethodMetric.values()) values.put(m, new HashMap<>());
+        Map<String, String> packageOf = new HashMap<>();
+
+        for (FileMetrics fm : files) {
+            fm.methodsPerClass.forEach((k, v) -> { methodCount.merge(k, v, Integer::sum); packageOf.put(k, fm.packageName); });
+            fm.fieldsPerClass.forEach((k, v) -> { fieldCount.merge(k, v, Integer::sum); packageOf.put(k, fm.packageName); });
+            values.get(MethodMetric.LOC).putAll(fm.methodLoc);
+            values.get(MethodMetric.PARAMS).putAll(fm.paramsPerMethod);
+            values.get(MethodMetric.CYCLOMATIC).putAll(fm.cyclomatic);
+            values.get(MethodMetric.NESTING).putAll(fm.maxNesting);
+            values.get(MethodMetric.CALL_SITES).putAll(fm.callSites);
+        }
+
+        // classes : toutes celles vues, 0 pour une métrique absente
+        for (String c : packageOf.keySet()) {
+            methodCount.putIfAbsent(c, 0);
+            fieldCount.putIfAbsent(c, 0);
+        }
+        classValues.put(ClassMetric.METHODS, methodCount);
+        classValues.put(ClassMetric.FIELDS, fieldCount);
+        classValues.forEach((metric, v) -> classRankings.put(metric, Ranking.of(v.keySet(), v)));
+        classNames = packageOf.keySet().toArray(new String[0]);
+        Arrays.sort(classNames);
+        for (String c : classNames) {
+            classesByPackage.computeIfAbsent(packageOf.get(c) == null ? "" : packageOf.get(c), __ -> new ArrayList<>()).add(c);
+        }
+
+        // méthodes : celles qui ont une LOC (toutes les déclarations), 0 pour une métrique absente
+        Set<NodeId> all = values.get(MethodMetric.LOC).keySet();
+        methods = all.toArray(new NodeId[0]);
+        Arrays.sort(methods);
+        methodNames = new String[methods.length];
+        for (int i = 0; i < methods.length; i++) methodNames[i] = methods[i].toString();
+
+        Map<String, List<NodeId>> methodsOf = new HashMap<>();
+        for (NodeId m : methods) methodsOf.computeIfAbsent(m.classKey(), __ -> new ArrayList<>()).add(m);
+        for (MethodMetric metric : MethodMetric.values()) {
+            Map<NodeId, Integer> v = values.get(metric);
+            methodValues.put(metric, v);
+            methodRankings.put(metric, Ranking.of(Arrays.asList(methods), v));
+            methodsOf.forEach((cls, own) ->
+                    byClass.computeIfAbsent(cls, __ -> new EnumMap<>(MethodMetric.class)).put(metric, Ranking.of(own, v)));
+        }
+    }
+
+    public static MetricsQuery of(List<FileMetrics> files) {
+        return new MetricsQuery(files);
+    }
+
+    // ---------- index ----------
+
+    public Ranking<String> classes(ClassMetric metric) { return classRankings.get(metric); }
+
+    public Ranking<NodeId> methods(MethodMetric metric) { return methodRankings.get(metric); }
+
+    /** Valeur d'une métrique de classe (0 si inconnue). */
+    public int value(ClassMetric metric, String className) { return classValues.get(metric).getOrDefault(className, 0); }
+
+    /** Valeur d'une métrique de méthode (0 si inconnue). */
+    public int value(MethodMetric metric, NodeId method) { return methodValues.get(metric).getOrDefault(method, 0); }
+
+    /** Classement des méthodes d'une classe (nom qualifié) ; vide si la classe est inconnue. */
+    public Ranking<NodeId> methodsOf(String className, MethodMetric metric) {
+        var rankings = byClass.get(className);
+        return rankings == null ? Ranking.empty() : rankings.get(metric);
+    }
+
+    /** Noms qualifiés des classes, triés. */
+    public List<String> classNames() { return Collections.unmodifiableList(Arrays.asList(classNames)); }
+
+    public Set<String> packages() { return Collections.unmodifiableSet(classesByPackage.keySet()); }
+
+    /** Classes déclarées directement dans un package (sans ses sous-packages). */
+    public List<String> classesIn(String pkg) {
+        return Collections.unmodifiableList(classesByPackage.getOrDefault(pkg, List.of()));
+    }
+
+    /** Classes dont le nom qualifié commence par {@code prefix} (ex: "org.example.codebase.C"), triées. */
+    public List<String> classesWithPrefix(String prefix) {
+        return Collections.unmodifiableList(Arrays.asList(classNames).subList(lowerBound(classNames, prefix), prefixEnd(classNames, prefix)));
+    }
+
+    /** Méthodes dont l'identité commence par {@code prefix} (ex: "org.example.codebase.Circle#get"), triées. */
+    public List<NodeId> methodsWithPrefix(String prefix) {
+        return Collections.unmodifiableList(Arrays.asList(methods).subList(lowerBound(methodNames, prefix), prefixEnd(methodNames, prefix)));
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int i = Arrays.binarySearch(sorted, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** Fin (exclue) de la plage des chaînes préfixées : toutes sont inférieures à prefix + U+FFFF. */
+    private static int prefixEnd(String[] sorted, String prefix) {
+        return lowerBound(sorted, prefix + Character.MAX_VALUE);
+    }
+
+    // ---------- requêtes textuelles ----------
+
+    private static final Pattern QUERY = Pattern.compile(
+            "(class|method)\\.(\\w+)\\s*(>=|<=|>|<|=|:)\\s*(top\\s*\\d+|-?\\d+\\s*\\.\\.\\s*-?\\d+|-?\\d+)\\s*(?:@\\s*(\\S+))?");
+
+    /**
+     * Exécute une requête textuelle, résultats par valeur décroissante :
+     * <pre>
+     *   class.methods &gt; 5                 classes de plus de 5 méthodes
+     *   method.loc:top10                    10 méthodes les plus longues
+     *   method.cyclomatic:5..10             complexité entre 5 et 10 (inclus)
+     *   method.loc:top3 @org.example.Circle méthodes d'une classe
+     *   prefix:org.example.codebase.C       classes (ou méthodes si le préfixe contient '#')
+     * </pre>
+     * Métriques : methods, fields (classes) ; loc, params, cyclomatic, nesting, call_sites (méthodes).
+     */
+    public List<Hit<String>> run(String query) {
+        String q = query.trim();
+        if (q.startsWith("prefix:")) {
+            String prefix = q.substring("prefix:".length());
+            List<Hit<String>> out = new ArrayList<>();
+            if (prefix.indexOf('#') >= 0) {
+                for (NodeId m : methodsWithPrefix(prefix)) out.add(new Hit<>(m.toString(), value(MethodMetric.LOC, m)));
+            } else {
+                for (String c : classesWithPrefix(prefix)) out.add(new Hit<>(c, value(ClassMetric.METHODS, c)));
+            }
+            return out;
+        }
+        Matcher m = QUERY.matcher(q);
+        if (!m.matches()) throw new IllegalArgumentException("requête invalide: " + query
+                + " (ex: class.methods>5, method.loc:top10, method.cyclomatic:5..10, prefix:org.example.)");
+        String metric = m.group(2).toUpperCase(Locale.ROOT);
+        Ranking<?> ranking;
+        if (m.group(1).equals("class") && m.group(5) != null)
+            throw new IllegalArgumentException("@CLASSE ne s'applique qu'aux méthodes: " + query);
+        try {
+            if (m.group(1).equals("class")) {
+                ranking = classes(ClassMetric.valueOf(metric));
+            } else {
+                MethodMetric mm = MethodMetric.valueOf(metric);
+                ranking = m.group(5) == null ? methods(mm) : methodsOf(m.group(5), mm);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("métrique inconnue: " + m.group(2) + " dans " + query);
+        }
+        List<? extends Hit<?>> hits = select(ranking, m.group(3), m.group(4).replace(" ", ""));
+        List<Hit<String>> out = new ArrayList<>(hits.size());
+        for (Hit<?> h : hits) out.add(new Hit<>(h.key().toString(), h.value()));
+        return out;
+    }
+
+    private static <T> List<Hit<T>> select(Ranking<T> r, String op, String arg) {
+        if (op.equals(":")) {
+            if (arg.startsWith("top")) return r.top(Integer.parseInt(arg.substring(3)));
+            int dots = arg.indexOf("..");
+            if (dots > 0) return r.between(Integer.parseInt(arg.substring(0, dots)), Integer.parseInt(arg.substring(dots + 2)));
+            int v = Integer.parseInt(arg);
+            return r.between(v, v);
+        }
+        if (arg.startsWith("top") || arg.contains("..")) throw new IllegalArgumentException("opérateur " + op + " suivi de " + arg);
+        int v = Integer.parseInt(arg);
+        return switch (op) {
+            case ">" -> r.greaterThan(v);
+            case ">=" -> r.atLeast(v);
+            case "<" -> v == Integer.MIN_VALUE ? List.of() : r.atMost(v - 1);
+            case "<=" -> r.atMost(v);
+            default -> r.between(v, v);
+        };
+    }
+
+    /**
+     * Entrées triées par valeur croissante (tableaux parallèles) ; les requêtes renvoient des vues par
+     * valeur décroissante, à égalité dans l'ordre des clés, sans copie.
+     */
+    public static final class Ranking<T> {
+
+        private static final Ranking<?> EMPTY = new Ranking<>(new Object[0], new int[0]);
+
+        private final Object[] keys;
+        private final int[] values;
+
+        private Ranking(Object[] keys, int[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        /** Classement des clés données (valeur absente = 0) ; à égalité, ordre naturel des clés. */
+        static <T extends Comparable<? super T>> Ranking<T> of(Collection<T> keys, Map<T, Integer> values) {
+            record Entry<T>(T key, int value) {}
+            List<Entry<T>> sorted = new ArrayList<>(keys.size());
+            for (T k : keys) sorted.add(new Entry<>(k, values.getOrDefault(k, 0)));
+            sorted.sort(Comparator.<Entry<T>>comparingInt(Entry::value)
+                    .thenComparing(Entry::key, Comparator.reverseOrder()));
+            Object[] ks = new Object[sorted.size()];
+            int[] vs = new int[sorted.size()];
+            for (int i = 0; i < ks.length; i++) {
+                ks[i] = sorted.get(i).key();
+                vs[i] = sorted.get(i).value();
+            }
+            return new Ranking<>(ks, vs);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Ranking<T> empty() { return (Ranking<T>) EMPTY; }
+
+        public int size() { return keys.length; }
+
+        /** Les k plus grandes valeurs. */
+        public List<Hit<T>> top(int k) {
+            return descending(Math.max(0, keys.length - Math.max(0, k)), keys.length);
+        }
+
+        /** Les k premiers pour cent (au moins une entrée si non vide), comme les tops de StatisticsService. */
+        public List<Hit<T>> topPercent(int pct) {
+            if (keys.length == 0) return List.of();
+            return top(Math.max(1, (int) Math.ceil(keys.length * (pct / 100.0))));
+        }
+
+        public List<Hit<T>> atLeast(int min) { return descending(lowerBound(min), keys.length); }
+
+        public List<Hit<T>> greaterThan(int x) { return x == Integer.MAX_VALUE ? List.of() : atLeast(x + 1); }
+
+        public List<Hit<T>> atMost(int max) {
+            return descending(0, max == Integer.MAX_VALUE ? keys.length : lowerBound(max + 1));
+        }
+
+        /** Valeurs dans [lo, hi]. */
+        public List<Hit<T>> between(int lo, int hi) {
+            if (lo > hi) return List.of();
+            return descending(lowerBound(lo), hi == Integer.MAX_VALUE ? keys.length : lowerBound(hi + 1));
+        }
+
+        /** Premier indice de valeur &gt;= v. */
+        private int lowerBound(int v) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < v) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /** Vue des indices [from, to) dans l'ordre décroissant. */
+        private List<Hit<T>> descending(int from, int to) {
+            int n = Math.max(0, to - from);
+            return new AbstractList<>() {
+                @SuppressWarnings("unchecked")
+                @Override public Hit<T> get(int i) {
+                    Objects.checkIndex(i, n);
+                    int j = to - 1 - i;
+                    return new Hit<>((T) keys[j], values[j]);
+                }
+                @Override public int size() { return n; }
+            };
+        }
+    }
+}
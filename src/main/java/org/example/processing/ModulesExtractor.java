@@ -1,5 +1,7 @@
 package org.example.processing;
 
+import org.example.instrumentation.Instrumentation;
+
 import java.util.*;
 
 /**
@@ -26,49 +28,251 @@ public final class ModulesExtractor {
      * Découpe le dendrogramme en modules.
      * Stratégie : DFS — si le cluster courant n'atteint pas CP et qu'on peut couper (respect maxModules),
      * on tente de descendre (left/right) ; sinon on prend le cluster tel quel (même s'il est < CP si bloqué par max).
+     * La moyenne interne de chaque nœud est précalculée ({@link HierarchicalClustering.Node#averageInternalCoupling()}) :
+     * la découpe est en O(nœuds visités).
      */
     public static List<Module> cutIntoModules(HierarchicalClustering.Node root,
                                               HierarchicalClustering hc,
                                               double CP,
                                               int maxModules) {
-        List<Module> out = new ArrayList<>();
-        cutRec(root, hc, CP, maxModules, out);
-        // Si on dépasse la limite, on remonte en fusionnant les modules les plus proches (rare ici)
-        while (out.size() > maxModules) {
-            // fusion naïve : joindre les deux plus petits (en nb de classes)
-            int iMin = -1, jMin = -1, best = Integer.MAX_VALUE;
-            for (int i=0;i<out.size();i++) for (int j=i+1;j<out.size();j++) {
-                int sz = out.get(i).classes.size() + out.get(j).classes.size();
-                if (sz < best) { best = sz; iMin=i; jMin=j; }
+        long t0 = Instrumentation.start();
+        List<HierarchicalClustering.Node> nodes = new ArrayList<>();
+        cutRec(root, CP, maxModules, nodes);
+        List<Module> out = new ArrayList<>(nodes.size());
+        for (HierarchicalClustering.Node n : nodes) out.add(new Module(n.classes, n.averageInternalCoupling()));
+        limit(out, hc, maxModules);
+        Instrumentation.stop(Instrumentation.Stage.MODULES, t0);
+        return out;
+    }
+
+    /**
+     * Le DFS ne compte pas la branche droite encore à visiter : il peut dépasser maxModules.
+     * On revient alors sous la limite par fusions successives de la paire de modules la plus
+     * couplée (poids moyen entre leurs classes, comme l'average-linkage du dendrogramme), tirée
+     * d'une file de priorité. Les sommes de poids (internes et entre modules) sont mises à jour
+     * à chaque fusion au lieu d'être recalculées ; les entrées périmées de la file sont ignorées
+     * au dépilement (version du module). S'il ne reste aucune paire couplée, on joint les deux
+     * plus petits modules.
+     */
+    private static void limit(List<Module> out, HierarchicalClustering hc, int maxModules) {
+        int m = out.size(), max = Math.max(1, maxModules);
+        if (m <= max) return;
+
+        // État par module : classes, taille, somme interne, version, sommes croisées (creuses)
+        List<Set<String>> members = new ArrayList<>(m);
+        int[] size = new int[m], version = new int[m];
+        double[] sum = new double[m];
+        List<Map<Integer, Double>> cross = new ArrayList<>(m);
+        int[] owner = new int[hc.size()];
+        Arrays.fill(owner, -1);
+        for (int i = 0; i < m; i++) {
+            Module mod = out.get(i);
+            members.add(mod.classes);
+            size[i] = mod.classes.size();
+            sum[i] = mod.avgCoupling * pairs(size[i]);
+            cross.add(new HashMap<>());
+            for (String c : mod.classes) {
+                int k = hc.index(c);
+                if (k >= 0) owner[k] = i;
             }
-            Set<String> merge = new LinkedHashSet<>(out.get(iMin).classes);
-            merge.addAll(out.get(jMin).classes);
-            double avg = hc.averageInternalCoupling(merge);
-            out.remove(jMin); out.remove(iMin);
-            out.add(new Module(merge, avg));
         }
-        return out;
+        for (int k = 0; k < owner.length; k++) {
+            if (owner[k] < 0) continue;
+            for (int nb : hc.neighbours(k)) {
+                if (nb < k || owner[nb] < 0 || owner[nb] == owner[k]) continue;
+                double v = hc.weight(k, nb);
+                cross.get(owner[k]).merge(owner[nb], v, Double::sum);
+                cross.get(owner[nb]).merge(owner[k], v, Double::sum);
+            }
+        }
+
+        record Candidate(double avg, int a, int b, int va, int vb, int size) {}
+        PriorityQueue<Candidate> coupled = new PriorityQueue<>(Comparator
+                .comparingDouble(Candidate::avg).reversed()
+                .thenComparingInt(Candidate::size)
+                .thenComparingInt(Candidate::a)
+                .thenComparingInt(Candidate::b));
+        PriorityQueue<int[]> smallest = new PriorityQueue<>(Comparator    // {taille, module, version}
+                .<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+        for (int i = 0; i < m; i++) {
+            smallest.add(new int[] { size[i], i, 0 });
+            for (var e : cross.get(i).entrySet()) {
+                int x = e.getKey();
+                if (x > i) coupled.add(new Candidate(e.getValue() / ((double) size[i] * size[x]), i, x, 0, 0, size[i] + size[x]));
+            }
+        }
+
+        boolean[] dead = new boolean[m];
+        for (int alive = m; alive > max; alive--) {
+            int a = -1, b = -1;
+            while (!coupled.isEmpty()) {
+                Candidate c = coupled.poll();
+                if (!dead[c.a()] && !dead[c.b()] && version[c.a()] == c.va() && version[c.b()] == c.vb()) {
+                    a = c.a(); b = c.b();
+                    break;
+                }
+            }
+            if (a < 0) {
+                // plus aucune paire couplée : les deux plus petits modules
+                int[] picked = new int[2];
+                for (int n = 0; n < 2; ) {
+                    int[] e = smallest.poll();
+                    if (!dead[e[1]] && version[e[1]] == e[2]) picked[n++] = e[1];
+                }
+                a = Math.min(picked[0], picked[1]);
+                b = Math.max(picked[0], picked[1]);
+            }
+
+            // fusion de b dans a (a garde sa place dans l'ordre du parcours)
+            Map<Integer, Double> ca = cross.get(a), cb = cross.get(b);
+            sum[a] += sum[b] + ca.getOrDefault(b, 0.0);
+            ca.remove(b);
+            cb.remove(a);
+            for (var e : cb.entrySet()) {
+                int x = e.getKey();
+                ca.merge(x, e.getValue(), Double::sum);
+                Map<Integer, Double> cx = cross.get(x);
+                cx.remove(b);
+                cx.merge(a, e.getValue(), Double::sum);
+            }
+            cross.set(b, null);
+            Set<String> merged = new LinkedHashSet<>(members.get(a));
+            merged.addAll(members.get(b));
+            members.set(a, merged);
+            size[a] += size[b];
+            version[a]++;
+            dead[b] = true;
+
+            smallest.add(new int[] { size[a], a, version[a] });
+            for (var e : ca.entrySet()) {
+                int x = e.getKey();
+                int lo = Math.min(a, x), hi = Math.max(a, x);
+                coupled.add(new Candidate(e.getValue() / ((double) size[a] * size[x]),
+                        lo, hi, version[lo], version[hi], size[a] + size[x]));
+            }
+        }
+
+        List<Module> kept = new ArrayList<>(max);
+        for (int i = 0; i < m; i++) {
+            if (dead[i]) continue;
+            kept.add(version[i] == 0 ? out.get(i) : new Module(members.get(i), sum[i] / pairs(size[i])));
+        }
+        out.clear();
+        out.addAll(kept);
     }
 
+    private static long pairs(int n) { return (long) n * (n - 1) / 2; }
+
+    /** Branches retenues comme modules, dans l'ordre du parcours (gauche puis droite). */
     private static void cutRec(HierarchicalClustering.Node node,
-                               HierarchicalClustering hc,
                                double CP,
                                int maxModules,
-                               List<Module> acc) {
+                               List<HierarchicalClustering.Node> acc) {
         if (node == null) return;
-        double avg = hc.averageInternalCoupling(node.classes);
-        if ((avg >= CP) || node.isLeaf()) {
+        if ((node.averageInternalCoupling() >= CP) || node.isLeaf()) {
             // On prend ce cluster comme module (respecte "une seule branche")
-            acc.add(new Module(node.classes, avg));
+            acc.add(node);
             return;
         }
         // Si on peut encore ajouter au moins 2 modules, on coupe
         if (acc.size() + 2 <= maxModules && node.left != null && node.right != null) {
-            cutRec(node.left, hc, CP, maxModules, acc);
-            cutRec(node.right, hc, CP, maxModules, acc);
+            cutRec(node.left, CP, maxModules, acc);
+            cutRec(node.right, CP, maxModules, acc);
         } else {
             // sinon, on prend tel quel (contrainte M/2 prioritaire)
-            acc.add(new Module(node.classes, avg));
+            acc.add(node);
+        }
+    }
+
+    // ===================== Balayage de CP =====================
+
+    /** Partition obtenue pour tout CP de l'intervalle ]fromCp, toCp]. */
+    public record Cut(double fromCp, double toCp, List<Module> modules) {}
+
+    /**
+     * Partitions du dendrogramme pour toute une plage de CP, à maxModules fixé. La découpe ne dépend
+     * de CP qu'à travers les tests « moyenne interne >= CP » : elle est constante entre deux moyennes
+     * de nœuds consécutives. Une découpe par moyenne distincte suffit donc, et les paliers
+     * consécutifs qui donnent la même partition sont fusionnés.
+     */
+    public static final class Sweep {
+        public final int maxModules;
+        public final List<Cut> cuts;   // ordonnés par CP croissant, intervalles contigus
+
+        private Sweep(int maxModules, List<Cut> cuts) {
+            this.maxModules = maxModules;
+            this.cuts = Collections.unmodifiableList(cuts);
+        }
+
+        /** Découpe en vigueur pour {@code cp} (recherche dichotomique sur les bornes). */
+        public Cut cutAt(double cp) {
+            int lo = 0, hi = cuts.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cuts.get(mid).toCp() >= cp) hi = mid; else lo = mid + 1;
+            }
+            return cuts.get(lo);
+        }
+
+        /** Modules pour {@code cp} : identiques à {@code cutIntoModules(root, hc, cp, maxModules)}. */
+        public List<Module> at(double cp) {
+            return cutAt(cp).modules();
+        }
+    }
+
+    /** Balayage de toutes les valeurs de CP. */
+    public static Sweep sweep(HierarchicalClustering.Node root, HierarchicalClustering hc, int maxModules) {
+        return sweep(root, hc, maxModules, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Balayage restreint à [minCp, maxCp] : seules les moyennes de nœuds de la plage (plus le seuil
+     * voisin de part et d'autre) donnent lieu à une découpe. Les intervalles restent exacts ;
+     * {@link Sweep#at} hors de ]cuts[0].fromCp, dernier toCp] renvoie la découpe extrême.
+     */
+    public static Sweep sweep(HierarchicalClustering.Node root, HierarchicalClustering hc,
+                              int maxModules, double minCp, double maxCp) {
+        long t0 = Instrumentation.start();
+        int max = Math.max(1, maxModules);
+        // Seuils de rupture : moyennes internes distinctes des nœuds internes
+        TreeSet<Double> breaks = new TreeSet<>();
+        Deque<HierarchicalClustering.Node> stack = new ArrayDeque<>();
+        if (root != null) stack.push(root);
+        while (!stack.isEmpty()) {
+            HierarchicalClustering.Node n = stack.pop();
+            if (n.isLeaf()) continue;
+            breaks.add(n.averageInternalCoupling());
+            if (n.left != null) stack.push(n.left);
+            if (n.right != null) stack.push(n.right);
+        }
+        // Une découpe par seuil (CP = seuil), plus une au-delà du dernier ; les modules d'un même
+        // nœud sont partagés entre les découpes.
+        Map<HierarchicalClustering.Node, Module> modules = new IdentityHashMap<>();
+        List<Cut> cuts = new ArrayList<>();
+        List<HierarchicalClustering.Node> previous = null;
+        Double below = breaks.lower(minCp), above = breaks.higher(maxCp);
+        double from = below == null ? Double.NEGATIVE_INFINITY : below;
+        List<Double> points = new ArrayList<>(minCp > maxCp ? Set.of() : breaks.subSet(minCp, true, maxCp, true));
+        // au-delà du dernier seuil (+inf) : aucun nœud interne n'atteint CP
+        points.add(above == null ? Double.POSITIVE_INFINITY : above);
+        for (double cp : points) {
+            List<HierarchicalClustering.Node> nodes = new ArrayList<>();
+            cutRec(root, cp, max, nodes);
+            if (nodes.equals(previous)) {
+                Cut last = cuts.remove(cuts.size() - 1);
+                cuts.add(new Cut(last.fromCp(), cp, last.modules()));
+            } else {
+                List<Module> ms = new ArrayList<>(nodes.size());
+                for (HierarchicalClustering.Node n : nodes) {
+                    ms.add(modules.computeIfAbsent(n, k -> new Module(k.classes, k.averageInternalCoupling())));
+                }
+                limit(ms, hc, max);
+                cuts.add(new Cut(from, cp, Collections.unmodifiableList(ms)));
+            }
+            previous = nodes;
+            from = cp;
         }
+        Instrumentation.stop(Instrumentation.Stage.MODULES, t0);
+        return new Sweep(max, cuts);
     }
 }
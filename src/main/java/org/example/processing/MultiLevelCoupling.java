@@ -0,0 +1,111 @@
+package org.example.processing;
+
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+
+import java.util.*;
+
+/**
+ * Couplage simultané à trois granularités, calculé en un seul parcours du graphe d'appel :
+ *  - CLASS   : clé = nom qualifié de la classe   (ex: "org.example.codebase.Point")
+ *  - PACKAGE : clé = package                     (ex: "org.example.codebase")
+ *  - MODULE  : clé = les {@code moduleDepth} premiers segments du package (ex: "org.example")
+ *
+ * Chaque arête inter-classes est comptée au niveau classe, puis au niveau package si les deux
+ * packages diffèrent, puis au niveau module si les deux modules diffèrent. Chaque niveau est
+ * normalisé par son propre total (les appels internes à un package ne couplent pas de packages).
+ */
+public final class MultiLevelCoupling {
+
+    public enum Level { CLASS, PACKAGE, MODULE }
+
+    public static final int DEFAULT_MODULE_DEPTH = 3;
+
+    private final EnumMap<Level, CouplingGraph> graphs = new EnumMap<>(Level.class);
+
+    private MultiLevelCoupling() {}
+
+    public CouplingGraph level(Level level) { return graphs.get(level); }
+
+    public static MultiLevelCoupling fromCallGraph(CallGraph cg, ClassScope scope) {
+        return fromCallGraph(cg, scope, DEFAULT_MODULE_DEPTH);
+    }
+
+    public static MultiLevelCoupling fromCallGraph(CallGraph cg, ClassScope scope, int moduleDepth) {
+        return build(cg.edges, scope.resolve(cg.declaredClasses), moduleDepth, (from, to) -> 1);
+    }
+
+    /** Mêmes niveaux, pondérés par les échantillons d'un profil d'exécution ({@link JfrImporter}). */
+    public static MultiLevelCoupling fromProfile(CallProfile profile, CallGraph cg, ClassScope scope, int moduleDepth) {
+        return build(profile.edges(), scope.resolve(cg.declaredClasses), moduleDepth, profile::weight);
+    }
+
+    private static MultiLevelCoupling build(Map<NodeId, Set<NodeId>> edges, Set<String> allowed, int moduleDepth,
+                                            CouplingGraph.EdgeWeight weight) {
+        long t0 = Instrumentation.start();
+        // 1) Clés hiérarchiques internées une fois par classe retenue : [classe, package, module]
+        List<List<String>> keys = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        List<Map<String, Integer>> keyIds = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        Map<String, int[]> classIds = new HashMap<>();   // nom qualifié -> ids par niveau
+
+        for (String cls : allowed) {
+            String pkg = ClassScope.packageOf(cls);
+            String[] hk = { cls, pkg, moduleOf(pkg, moduleDepth) };
+            int[] ids = new int[3];
+            for (int l = 0; l < 3; l++) {
+                List<String> names = keys.get(l);
+                ids[l] = keyIds.get(l).computeIfAbsent(hk[l], k -> { names.add(k); return names.size() - 1; });
+            }
+            classIds.put(cls, ids);
+        }
+
+        // 2) Un seul parcours des arêtes ; chaque nœud est résolu une seule fois (clé = NodeId interné)
+        List<Map<Long, long[]>> pairCounts = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        long[] totals = new long[3];   // sommes d'échantillons : long (profils JFR longs)
+        Map<NodeId, int[]> nodeIds = new HashMap<>();
+        int[] none = new int[0];
+
+        for (var e : edges.entrySet()) {
+            int[] from = nodeIds.computeIfAbsent(e.getKey(), n -> classIds.getOrDefault(n.classKey(), none));
+            if (from.length == 0) continue;
+            for (NodeId to : e.getValue()) {
+                int[] t = nodeIds.computeIfAbsent(to, n -> classIds.getOrDefault(n.classKey(), none));
+                if (t.length == 0) continue;
+                int w = weight.of(e.getKey(), to);
+                for (int l = 0; l < 3; l++) {
+                    // niveau l identique => niveaux supérieurs identiques aussi
+                    if (from[l] == t[l]) break;
+                    int a = Math.min(from[l], t[l]), b = Math.max(from[l], t[l]);
+                    pairCounts.get(l).computeIfAbsent(((long) a << 32) | b, __ -> new long[1])[0] += w;
+                    totals[l] += w;
+                }
+            }
+        }
+
+        // 3) Un CouplingGraph par niveau (réutilisable tel quel par HierarchicalClustering)
+        MultiLevelCoupling out = new MultiLevelCoupling();
+        Level[] levels = Level.values();
+        for (int l = 0; l < 3; l++) {
+            List<String> names = keys.get(l);
+            Map<CouplingGraph.Pair, Long> counts = new LinkedHashMap<>();
+            for (var pc : pairCounts.get(l).entrySet()) {
+                int a = (int) (pc.getKey() >>> 32), b = (int) (long) pc.getKey();
+                counts.put(new CouplingGraph.Pair(names.get(a), names.get(b)), pc.getValue()[0]);
+            }
+            out.graphs.put(levels[l], CouplingGraph.of(names, counts, totals[l]));
+        }
+        Instrumentation.stop(Instrumentation.Stage.COUPLING, t0);
+        return out;
+    }
+
+    /** Les {@code depth} premiers segments du package ("" pour le package par défaut). */
+    static String moduleOf(String pkg, int depth) {
+        if (pkg.isEmpty() || depth <= 0) return pkg;
+        int idx = -1;
+        for (int i = 0; i < depth; i++) {
+            idx = pkg.indexOf('.', idx + 1);
+            if (idx < 0) return pkg;
+        }
+        return pkg.substring(0, idx);
+    }
+}
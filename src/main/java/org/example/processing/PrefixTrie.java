@@ -0,0 +1,83 @@
+package org.example.processing;
+
+import java.util.*;
+
+/**
+ * Trie de caractères sur des noms qualifiés (ex: "org.example.codebase.Point").
+ * Deux types d'entrées :
+ *  - exacte  : le nom doit être identique à l'entrée ;
+ *  - préfixe : le nom doit commencer par l'entrée, suivie d'un '.', d'un '$' ou de la fin du nom
+ *              ("org.example" couvre "org.example.Point" mais pas "org.examples.Point",
+ *              "org.example.Point" couvre "org.example.Point$Polar").
+ * Le test coûte O(longueur du nom), quel que soit le nombre d'entrées.
+ */
+public final class PrefixTrie {
+
+    private static final class TrieNode {
+        // Les enfants sont peu nombreux : tableaux parallèles plutôt qu'une Map par nœud
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        boolean exact;
+        boolean prefix;
+
+        TrieNode child(char c) {
+            for (int i = 0; i < keys.length; i++) if (keys[i] == c) return children[i];
+            return null;
+        }
+
+        TrieNode addChild(char c) {
+            TrieNode n = child(c);
+            if (n != null) return n;
+            n = new TrieNode();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = n;
+            return n;
+        }
+    }
+
+    private final TrieNode root = new TrieNode();
+    private int size = 0;
+
+    /** Ajoute un nom devant correspondre exactement. */
+    public void addExact(String name) {
+        TrieNode n = insert(name);
+        if (!n.exact) size++;
+        n.exact = true;
+    }
+
+    /**
+     * Ajoute un préfixe de package (ou de classe englobante : {@code pkg.Outer} couvre aussi
+     * {@code pkg.Outer$Inner}). Le préfixe vide couvre tout.
+     */
+    public void addPrefix(String prefix) {
+        TrieNode n = insert(prefix);
+        if (!n.prefix) size++;
+        n.prefix = true;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** Vrai si le nom correspond à une entrée exacte ou est couvert par un préfixe. */
+    public boolean matches(String name) {
+        TrieNode n = root;
+        if (n.prefix) return true;
+        for (int i = 0; i < name.length(); i++) {
+            n = n.child(name.charAt(i));
+            if (n == null) return false;
+            if (n.prefix && (i + 1 == name.length() || isBoundary(name.charAt(i + 1)))) return true;
+        }
+        return n.exact;
+    }
+
+    /** Séparateur de package ('.') ou de classe imbriquée ('$'). */
+    private static boolean isBoundary(char c) { return c == '.' || c == '$'; }
+
+    private TrieNode insert(String s) {
+        TrieNode n = root;
+        for (int i = 0; i < s.length(); i++) n = n.addChild(s.charAt(i));
+        return n;
+    }
+}
@@ -0,0 +1,393 @@
+package org.example.processing;
+
+import org.example.model.NodeId;
+
+import java.util.*;
+
+/**
+ * Index de requêtes d'accessibilité sur le graphe d'appel, construit une fois puis interrogé
+ * autant de fois que nécessaire (GUI, CLI) sans refaire de BFS sur le graphe complet :
+ *  - reachable(a, b)      : existe-t-il une chaîne d'appels a -> ... -> b ?
+ *  - forwardSlice(a)      : tout ce que a peut atteindre ("que peut appeler Main#run ?")
+ *  - backwardSlice(b)     : tous les appelants transitifs ("qui appelle Point#distanceTo ?")
+ *  - callDepth(a, b)      : nombre minimal d'appels entre a et b
+ *
+ * Construction :
+ *  1) adjacence compacte (CSR : tableaux d'int) sur des indices locaux ;
+ *  2) composantes fortement connexes (Tarjan itératif, pas de récursion sur les gros graphes),
+ *     numérotées en ordre topologique inverse : toute arête inter-composantes va d'un numéro
+ *     plus grand vers un plus petit, ce qui élimine déjà la moitié des requêtes négatives ;
+ *  3) sur le DAG condensé :
+ *     - jusqu'à {@link #BITSET_LIMIT} composantes, fermeture transitive complète en bitsets
+ *       (requête en temps constant) ;
+ *     - au-delà, étiquetage par intervalles (type GRAIL, {@link #GRAIL_TRAVERSALS} parcours aléatoires) :
+ *       si l'intervalle de b n'est pas inclus dans celui de a, b est inaccessible ; sinon un DFS
+ *       élagué par les mêmes intervalles tranche.
+ */
+public final class ReachabilityIndex {
+
+    public static final int BITSET_LIMIT = 16_384;
+    public static final int GRAIL_TRAVERSALS = 3;
+
+    // --- graphe d'origine (indices locaux) ---
+    private final NodeId[] nodes;
+    private final int[] localOf;          // NodeId.id -> indice local (-1 si absent)
+    private final int[] fwdOff, fwdAdj;   // CSR avant
+
+    // --- condensation ---
+    private final int[] comp;             // nœud -> composante
+    private final int compCount;
+    private final int[] memberOff, members; // composante -> nœuds
+    private final boolean[] cyclic;       // composante avec cycle (taille > 1 ou boucle)
+    private final int[] dagOff, dagAdj;   // DAG condensé, avant
+    private final int[] revOff, revAdj;   // DAG condensé, arrière
+
+    // --- index ---
+    private final long[][] closure;       // mode bitset (sinon null)
+    private final int[][] low, rank;      // mode GRAIL : [parcours][composante]
+
+    // tampons de parcours réutilisés (l'index n'est pas thread-safe pour les requêtes)
+    private final int[] stamp;
+    private int epoch = 0;
+
+    public static ReachabilityIndex build(CallGraph cg) {
+        return build(cg.edges);
+    }
+
+    public static ReachabilityIndex build(Map<NodeId, Set<NodeId>> edges) {
+        return new ReachabilityIndex(edges);
+    }
+
+    private ReachabilityIndex(Map<NodeId, Set<NodeId>> edges) {
+        // 1) indices locaux + CSR
+        int[] local = new int[NodeId.count()];
+        Arrays.fill(local, -1);
+        List<NodeId> list = new ArrayList<>();
+        int m = 0;
+        for (var e : edges.entrySet()) {
+            local = register(e.getKey(), local, list);
+            for (NodeId t : e.getValue()) { local = register(t, local, list); m++; }
+        }
+        this.localOf = local;
+        this.nodes = list.toArray(new NodeId[0]);
+        int n = nodes.length;
+
+        this.fwdOff = new int[n + 1];
+        for (var e : edges.entrySet()) fwdOff[localOf[e.getKey().id] + 1] += e.getValue().size();
+        for (int i = 0; i < n; i++) fwdOff[i + 1] += fwdOff[i];
+        this.fwdAdj = new int[m];
+        int[] fill = Arrays.copyOf(fwdOff, n);
+        for (var e : edges.entrySet()) {
+            int u = localOf[e.getKey().id];
+            for (NodeId t : e.getValue()) fwdAdj[fill[u]++] = localOf[t.id];
+        }
+
+        // 2) SCC (Tarjan itératif)
+        this.comp = new int[n];
+        this.compCount = tarjan(n);
+
+        int[] size = new int[compCount + 1];
+        for (int v = 0; v < n; v++) size[comp[v] + 1]++;
+        for (int c = 0; c < compCount; c++) size[c + 1] += size[c];
+        this.memberOff = size;
+        this.members = new int[n];
+        int[] mf = Arrays.copyOf(memberOff, compCount);
+        for (int v = 0; v < n; v++) members[mf[comp[v]]++] = v;
+
+        // 3) DAG condensé (arêtes dédoublonnées) + composantes cycliques
+        this.cyclic = new boolean[compCount];
+        this.stamp = new int[Math.max(n, compCount)];
+        int[][] dag = condense(n);
+        this.dagOff = dag[0]; this.dagAdj = dag[1];
+        int[][] rev = reverse(compCount, dagOff, dagAdj);
+        this.revOff = rev[0]; this.revAdj = rev[1];
+
+        // 4) index
+        if (compCount <= BITSET_LIMIT) {
+            this.closure = buildClosure();
+            this.low = null; this.rank = null;
+        } else {
+            this.closure = null;
+            this.low = new int[GRAIL_TRAVERSALS][];
+            this.rank = new int[GRAIL_TRAVERSALS][];
+            Random rnd = new Random(42);
+            for (int k = 0; k < GRAIL_TRAVERSALS; k++) grail(k, rnd);
+        }
+    }
+
+    private static int[] register(NodeId id, int[] local, List<NodeId> list) {
+        if (id.id >= local.length) {
+            int old = local.length;
+            local = Arrays.copyOf(local, Math.max(NodeId.count(), id.id + 1));
+            Arrays.fill(local, old, local.length, -1);
+        }
+        if (local[id.id] < 0) { local[id.id] = list.size(); list.add(id); }
+        return local;
+    }
+
+    // ------------------------------------------------------------------ construction
+
+    private int tarjan(int n) {
+        int[] index = new int[n], lowLink = new int[n], edgePos = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n], callStack = new int[n];
+        int sp = 0, counter = 0, comps = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int csp = 0;
+            callStack[csp++] = root;
+            index[root] = lowLink[root] = counter++;
+            edgePos[root] = fwdOff[root];
+            stack[sp++] = root; onStack[root] = true;
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgePos[v] < fwdOff[v + 1]) {
+                    int w = fwdAdj[edgePos[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        edgePos[w] = fwdOff[w];
+                        stack[sp++] = w; onStack[w] = true;
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                } else {
+                    csp--;
+                    if (csp > 0) {
+                        int parent = callStack[csp - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                    }
+                    if (lowLink[v] == index[v]) {
+                        int w;
+                        do { w = stack[--sp]; onStack[w] = false; comp[w] = comps; } while (w != v);
+                        comps++;
+                    }
+                }
+            }
+        }
+        return comps;
+    }
+
+    private int[][] condense(int n) {
+        int[] off = new int[compCount + 1];
+        int[] adj = new int[fwdAdj.length];
+        int k = 0;
+        epoch++;
+        for (int c = 0; c < compCount; c++) {
+            off[c] = k;
+            int mark = ++epoch;
+            for (int i = memberOff[c]; i < memberOff[c + 1]; i++) {
+                int v = members[i];
+                for (int j = fwdOff[v]; j < fwdOff[v + 1]; j++) {
+                    int d = comp[fwdAdj[j]];
+                    if (d == c) { cyclic[c] = true; continue; }
+                    if (stamp[d] != mark) { stamp[d] = mark; adj[k++] = d; }
+                }
+            }
+            if (memberOff[c + 1] - memberOff[c] > 1) cyclic[c] = true;
+        }
+        off[compCount] = k;
+        return new int[][] { off, Arrays.copyOf(adj, k) };
+    }
+
+    private static int[][] reverse(int count, int[] off, int[] adj) {
+        int[] roff = new int[count + 1];
+        for (int d : adj) roff[d + 1]++;
+        for (int c = 0; c < count; c++) roff[c + 1] += roff[c];
+        int[] radj = new int[adj.length];
+        int[] fill = Arrays.copyOf(roff, count);
+        for (int c = 0; c < count; c++)
+            for (int j = off[c]; j < off[c + 1]; j++) radj[fill[adj[j]]++] = c;
+        return new int[][] { roff, radj };
+    }
+
+    /** Les successeurs ont des numéros plus petits : on remplit dans l'ordre croissant. */
+    private long[][] buildClosure() {
+        int words = (compCount + 63) >>> 6;
+        long[][] cl = new long[compCount][];
+        for (int c = 0; c < compCount; c++) {
+            long[] bits = new long[words];
+            for (int j = dagOff[c]; j < dagOff[c + 1]; j++) {
+                int d = dagAdj[j];
+                bits[d >>> 6] |= 1L << d;
+                long[] sub = cl[d];
+                for (int w = 0; w <= (d >>> 6); w++) bits[w] |= sub[w];   // d n'atteint que des numéros < d
+            }
+            cl[c] = bits;
+        }
+        return cl;
+    }
+
+    /** Un parcours post-ordre aléatoire : rank = numéro post-ordre, low = min des rangs du sous-DAG. */
+    private void grail(int k, Random rnd) {
+        int[] r = new int[compCount], lo = new int[compCount];
+        Arrays.fill(r, -1);
+        int[] callStack = new int[compCount], pos = new int[compCount], start = new int[compCount];
+        int counter = 0;
+
+        // racines (sans prédécesseur) dans un ordre aléatoire
+        int[] roots = new int[compCount];
+        int nr = 0;
+        for (int c = 0; c < compCount; c++) if (revOff[c] == revOff[c + 1]) roots[nr++] = c;
+        for (int i = nr - 1; i > 0; i--) { int j = rnd.nextInt(i + 1); int t = roots[i]; roots[i] = roots[j]; roots[j] = t; }
+
+        for (int ri = 0; ri < nr; ri++) {
+            int root = roots[ri];
+            if (r[root] >= 0) continue;
+            int csp = 0;
+            callStack[csp++] = root;
+            r[root] = Integer.MAX_VALUE;            // "en cours"
+            lo[root] = Integer.MAX_VALUE;
+            start[root] = rnd.nextInt(Math.max(1, dagOff[root + 1] - dagOff[root]));
+            pos[root] = 0;
+
+            while (csp > 0) {
+                int c = callStack[csp - 1];
+                int deg = dagOff[c + 1] - dagOff[c];
+                if (pos[c] < deg) {
+                    int d = dagAdj[dagOff[c] + (start[c] + pos[c]++) % deg];
+                    if (r[d] < 0) {
+                        r[d] = Integer.MAX_VALUE;
+                        lo[d] = Integer.MAX_VALUE;
+                        start[d] = rnd.nextInt(Math.max(1, dagOff[d + 1] - dagOff[d]));
+                        pos[d] = 0;
+                        callStack[csp++] = d;
+                    } else {
+                        lo[c] = Math.min(lo[c], lo[d]);
+                    }
+                } else {
+                    r[c] = counter++;
+                    lo[c] = Math.min(lo[c], r[c]);
+                    csp--;
+                    if (csp > 0) {
+                        int parent = callStack[csp - 1];
+                        lo[parent] = Math.min(lo[parent], lo[c]);
+                    }
+                }
+            }
+        }
+        rank[k] = r;
+        low[k] = lo;
+    }
+
+    // ------------------------------------------------------------------ requêtes
+
+    public int nodeCount() { return nodes.length; }
+    public int componentCount() { return compCount; }
+    public boolean usesBitsetClosure() { return closure != null; }
+
+    /** Vrai s'il existe une chaîne d'appels (éventuellement vide) de a vers b. */
+    public boolean reachable(NodeId a, NodeId b) {
+        int u = local(a), v = local(b);
+        if (u < 0 || v < 0) return a == b;
+        return compReachable(comp[u], comp[v]);
+    }
+
+    private boolean compReachable(int cu, int cv) {
+        if (cu == cv) return true;
+        if (cu < cv) return false;                         // ordre topologique
+        if (closure != null) return (closure[cu][cv >>> 6] & (1L << cv)) != 0;
+        if (!labelsContain(cu, cv)) return false;
+
+        // DFS élagué par les intervalles
+        int mark = ++epoch;
+        int[] st = new int[16];
+        int sp = 0;
+        st[sp++] = cu; stamp[cu] = mark;
+        while (sp > 0) {
+            int c = st[--sp];
+            for (int j = dagOff[c]; j < dagOff[c + 1]; j++) {
+                int d = dagAdj[j];
+                if (d == cv) return true;
+                if (stamp[d] == mark || d < cv || !labelsContain(d, cv)) continue;
+                stamp[d] = mark;
+                if (sp == st.length) st = Arrays.copyOf(st, sp * 2);
+                st[sp++] = d;
+            }
+        }
+        return false;
+    }
+
+    private boolean labelsContain(int cu, int cv) {
+        for (int k = 0; k < GRAIL_TRAVERSALS; k++) {
+            if (low[k][cv] < low[k][cu] || rank[k][cv] > rank[k][cu]) return false;
+        }
+        return true;
+    }
+
+    /** Méthodes atteignables depuis a par au moins un appel (a inclus seulement s'il est récursif). */
+    public Set<NodeId> forwardSlice(NodeId a) {
+        return slice(a, dagOff, dagAdj);
+    }
+
+    /** Appelants transitifs de b (b inclus seulement s'il est récursif). */
+    public Set<NodeId> backwardSlice(NodeId b) {
+        return slice(b, revOff, revAdj);
+    }
+
+    private Set<NodeId> slice(NodeId from, int[] off, int[] adj) {
+        int u = local(from);
+        Set<NodeId> out = new LinkedHashSet<>();
+        if (u < 0) return out;
+        int c0 = comp[u];
+        if (cyclic[c0]) addMembers(c0, out);
+
+        int mark = ++epoch;
+        int[] queue = new int[compCount];
+        int head = 0, tail = 0;
+        queue[tail++] = c0; stamp[c0] = mark;
+        while (head < tail) {
+            int c = queue[head++];
+            for (int j = off[c]; j < off[c + 1]; j++) {
+                int d = adj[j];
+                if (stamp[d] == mark) continue;
+                stamp[d] = mark;
+                queue[tail++] = d;
+                addMembers(d, out);
+            }
+        }
+        return out;
+    }
+
+    private void addMembers(int c, Set<NodeId> out) {
+        for (int i = memberOff[c]; i < memberOff[c + 1]; i++) out.add(nodes[members[i]]);
+    }
+
+    /**
+     * Profondeur d'appel minimale de a vers b (0 si a == b), -1 si b est inaccessible.
+     * L'index écarte d'abord les cas inaccessibles ; le BFS ne parcourt ensuite que les
+     * composantes qui peuvent encore mener à b.
+     */
+    public int callDepth(NodeId a, NodeId b) {
+        if (a == b) return 0;
+        int u = local(a), v = local(b);
+        if (u < 0 || v < 0 || !compReachable(comp[u], comp[v])) return -1;
+
+        int cv = comp[v];
+        int n = nodes.length;
+        int[] dist = new int[n];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = u; dist[u] = 0;
+        while (head < tail) {
+            int x = queue[head++];
+            for (int j = fwdOff[x]; j < fwdOff[x + 1]; j++) {
+                int y = fwdAdj[j];
+                if (dist[y] >= 0) continue;
+                dist[y] = dist[x] + 1;
+                if (y == v) return dist[y];
+                if (comp[y] < cv || (comp[y] != cv && closure != null && !compReachable(comp[y], cv))) continue;
+                queue[tail++] = y;
+            }
+        }
+        return -1;
+    }
+
+    private int local(NodeId id) {
+        return id.id < localOf.length ? localOf[id.id] : -1;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.processing;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Part K sur N des sources, pour répartir l'analyse d'un gros dépôt sur plusieurs processus.
+ *
+ * L'affectation d'un fichier ne dépend que de son chemin relatif à sa racine (ou du nom de son
+ * archive) : deux processus lancés avec les mêmes --src et le même N se répartissent les fichiers
+ * sans recouvrement, sur la même machine ou non.
+ *  - HASH   : hachage du chemin relatif, répartition homogène fichier par fichier ;
+ *  - MODULE : hachage du module (premier dossier sous la racine, ou la racine elle-même s'il y en a
+ *             plusieurs, ou l'archive) : un module reste entier dans un seul shard.
+ */
+public final class Shard {
+
+    public enum Mode { HASH, MODULE }
+
+    public final int index;    // 0 <= index < count
+    public final int count;
+    public final Mode mode;
+
+    public Shard(int index, int count, Mode mode) {
+        if (count < 1 || index < 0 || index >= count)
+            throw new IllegalArgumentException("shard invalide: " + (index + 1) + "/" + count);
+        this.index = index;
+        this.count = count;
+        this.mode = mode;
+    }
+
+    /** "K/N" avec 1 <= K <= N (ex: "2/8"). */
+    public static Shard parse(String spec, Mode mode) {
+        String[] parts = spec.trim().split("/");
+        if (parts.length != 2) throw new IllegalArgumentException("shard attendu sous la forme K/N: " + spec);
+        return new Shard(Integer.parseInt(parts[0].trim()) - 1, Integer.parseInt(parts[1].trim()), mode);
+    }
+
+    public static Mode parseMode(String s) {
+        return switch (s.toLowerCase(Locale.ROOT)) {
+            case "hash" -> Mode.HASH;
+            case "module" -> Mode.MODULE;
+            default -> throw new IllegalArgumentException("mode de shard inconnu: " + s);
+        };
+    }
+
+    /** Vrai si le fichier (issu d'une des racines {@code roots}) appartient à ce shard. */
+    public boolean includes(Path file, List<Path> roots) {
+        return count == 1 || bucket(key(file, roots, mode), count) == index;
+    }
+
+    /** Clé d'affectation, indépendante de l'emplacement absolu des racines. */
+    static String key(Path file, List<Path> roots, Mode mode) {
+        Path archive = FileExplorer.archiveOf(file);
+        if (archive != null) {
+            String name = archive.getFileName().toString();
+            return mode == Mode.MODULE ? name : name + "!" + file;
+        }
+        for (int i = 0; i < roots.size(); i++) {
+            Path root = roots.get(i);
+            if (!file.startsWith(root) || file.equals(root)) continue;
+            Path rel = root.relativize(file);
+            if (mode == Mode.HASH) return slashes(rel);
+            return roots.size() > 1 ? "root:" + i : rel.getName(0).toString();
+        }
+        return slashes(file);   // fichier passé directement en racine
+    }
+
+    /** Hachage mélangé (finaliseur murmur3) : String.hashCode seul répartit mal les chemins proches. */
+    static int bucket(String key, int count) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, count);
+    }
+
+    private static String slashes(Path p) {
+        String sep = p.getFileSystem().getSeparator();
+        return sep.equals("/") ? p.toString() : p.toString().replace(sep, "/");
+    }
+
+    @Override public String toString() {
+        return (index + 1) + "/" + count + " (" + mode.name().toLowerCase(Locale.ROOT) + ")";
+    }
+}
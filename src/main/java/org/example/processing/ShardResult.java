@@ -0,0 +1,349 @@
+package org.example.processing;
+
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+import org.example.visitor.ClassVisitor.ClassInfo;
+import org.example.visitor.MetricsCollector.FileMetrics;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Résultat partiel d'un shard, fusionnable : métriques par fichier, arêtes du graphe d'appel
+ * NON liées, classes déclarées, hiérarchie de types et bilan par fichier.
+ *
+ * Le graphe n'est lié qu'après fusion : une cible appelée dans un shard peut être déclarée dans un
+ * autre. Le couplage (CouplingGraph, niveaux, clustering) se calcule donc sur le graphe fusionné ; ses
+ * compteurs sont additifs sur les arêtes, le résultat est identique à celui d'une analyse en un seul
+ * processus.
+ *
+ * Format binaire compressé (gzip) : chaînes et NodeId sont définis à leur première occurrence puis
+ * référencés par indice, ce qui garde les fichiers petits pour des millions d'arêtes.
+ */
+public final class ShardResult {
+
+    private static final int MAGIC = 0x4A414E31;   // "JAN1"
+    private static final int VERSION = 2;
+
+    public final int shardCount;
+    public final BitSet shards;                          // indices des shards couverts
+    public final List<FileMetrics> files = new ArrayList<>();
+    public final CallGraph calls = new CallGraph();      // non lié
+    public final FileReport report = new FileReport();
+
+    public ShardResult(int shardCount, BitSet shards) {
+        this.shardCount = shardCount;
+        this.shards = shards;
+    }
+
+    /** Résultat vide d'un shard, à remplir par l'analyse (null = analyse complète, un shard sur un). */
+    public static ShardResult forShard(Shard shard) {
+        BitSet covered = new BitSet();
+        covered.set(shard == null ? 0 : shard.index);
+        return new ShardResult(shard == null ? 1 : shard.count, covered);
+    }
+
+    /**
+     * Fusionne des résultats partiels (shards ou fusions intermédiaires).
+     * Un shard déjà couvert par un fichier précédent est ignoré (pas de double comptage) ;
+     * les shards manquants sont signalés sur stderr.
+     */
+    public static ShardResult merge(List<Path> partials) throws IOException {
+        long t0 = Instrumentation.start();
+        ShardResult out = null;
+        for (Path p : partials) {
+            ShardResult r = read(p);
+            if (out == null) {
+                out = new ShardResult(r.shardCount, new BitSet());
+            } else if (r.shardCount != out.shardCount) {
+                throw new IOException("nombre de shards incohérent: " + p + " (" + r.shardCount + " au lieu de " + out.shardCount + ")");
+            }
+            if (r.shards.intersects(out.shards)) {
+                System.err.println("WARN shard déjà fusionné, ignoré: " + p + " " + r.shards);
+                continue;
+            }
+            out.mergeFrom(r);
+        }
+        if (out == null) throw new IOException("aucun résultat partiel à fusionner");
+        if (out.shards.cardinality() < out.shardCount) {
+            BitSet missing = new BitSet();
+            missing.set(0, out.shardCount);
+            missing.andNot(out.shards);
+            System.err.println("WARN shards manquants (numéros à partir de 0): " + missing);
+        }
+        Instrumentation.stop(Instrumentation.Stage.MERGE, t0);
+        return out;
+    }
+
+    public void mergeFrom(ShardResult other) {
+        shards.or(other.shards);
+        files.addAll(other.files);
+        calls.mergeFrom(other.calls);
+        for (FileReport.Entry e : other.report.entries()) report.add(e);
+    }
+
+    // ---------- écriture ----------
+
+    public void write(Path path) throws IOException {
+        try (Out out = new Out(new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(path), 1 << 16))))) {
+            DataOutputStream d = out.d;
+            d.writeInt(MAGIC);
+            d.writeInt(VERSION);
+            d.writeInt(shardCount);
+            long[] bits = shards.toLongArray();
+            d.writeInt(bits.length);
+            for (long b : bits) d.writeLong(b);
+
+            d.writeInt(files.size());
+            for (FileMetrics fm : files) writeFile(out, fm);
+
+            d.writeInt(calls.declaredClasses.size());
+            for (String c : calls.declaredClasses) out.str(c);
+            d.writeInt(calls.edges.size());
+            for (var e : calls.edges.entrySet()) {
+                out.node(e.getKey());
+                d.writeInt(e.getValue().size());
+                for (NodeId t : e.getValue()) out.node(t);
+            }
+            d.writeInt(calls.supertypes.size());
+            for (var e : calls.supertypes.entrySet()) {
+                out.str(e.getKey());
+                d.writeInt(e.getValue().size());
+                for (String s : e.getValue()) out.str(s);
+            }
+            d.writeInt(calls.instantiated.size());
+            for (String c : calls.instantiated) out.str(c);
+            d.writeInt(calls.nonOverridable.size());
+            for (NodeId m : calls.nonOverridable) out.node(m);
+
+            List<FileReport.Entry> entries = report.entries();
+            d.writeInt(entries.size());
+            for (FileReport.Entry e : entries) {
+                out.str(e.file());
+                d.writeByte(e.status().ordinal());
+                d.writeLong(e.nanos());
+                d.writeLong(e.bytes());
+                d.writeInt(e.astNodes());
+                out.str(e.error());
+            }
+        }
+    }
+
+    private static void writeFile(Out out, FileMetrics fm) throws IOException {
+        DataOutputStream d = out.d;
+        out.str(fm.fileName);
+        out.str(fm.packageName);
+        d.writeInt(fm.fileLoc);
+        d.writeInt(fm.classes);
+        d.writeInt(fm.methods);
+        d.writeInt(fm.fields);
+        d.writeInt(fm.maxParamsInFile);
+        out.strIntMap(fm.methodsPerClass);
+        out.strIntMap(fm.fieldsPerClass);
+        out.nodeIntMap(fm.methodLoc);
+        out.nodeIntMap(fm.paramsPerMethod);
+        out.nodeIntMap(fm.cyclomatic);
+        out.nodeIntMap(fm.maxNesting);
+        out.nodeIntMap(fm.callSites);
+        d.writeInt(fm.classInfos.size());
+        for (ClassInfo c : fm.classInfos) {
+            out.str(c.name);
+            out.str(c.superClass);
+            d.writeInt(c.fields.size());
+            for (int i = 0; i < c.fields.size(); i++) {
+                out.str(c.fields.get(i));
+                out.str(c.fieldTypes.get(i));
+            }
+            d.writeInt(c.methods.size());
+            for (NodeId m : c.methods) out.node(m);
+            d.writeInt(c.fieldUse.size());
+            for (var e : c.fieldUse.entrySet()) {
+                out.node(e.getKey());
+                long[] bits = e.getValue().toLongArray();
+                d.writeInt(bits.length);
+                for (long b : bits) d.writeLong(b);
+            }
+        }
+    }
+
+    // ---------- lecture ----------
+
+    public static ShardResult read(Path path) throws IOException {
+        try (In in = new In(new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path), 1 << 16))))) {
+            DataInputStream d = in.d;
+            if (d.readInt() != MAGIC) throw new IOException("pas un résultat partiel: " + path);
+            int version = d.readInt();
+            if (version != VERSION) throw new IOException("version de résultat partiel non supportée: " + version + " (" + path + ")");
+            int shardCount = d.readInt();
+            ShardResult r = new ShardResult(shardCount, BitSet.valueOf(in.longs()));
+
+            int nFiles = d.readInt();
+            for (int i = 0; i < nFiles; i++) r.files.add(readFile(in));
+
+            int nClasses = d.readInt();
+            for (int i = 0; i < nClasses; i++) r.calls.declaredClasses.add(in.str());
+            int nCallers = d.readInt();
+            for (int i = 0; i < nCallers; i++) {
+                NodeId caller = in.node();
+                int n = d.readInt();
+                Set<NodeId> targets = r.calls.edges.computeIfAbsent(caller, __ -> new LinkedHashSet<>());
+                for (int j = 0; j < n; j++) targets.add(in.node());
+            }
+            int nTypes = d.readInt();
+            for (int i = 0; i < nTypes; i++) {
+                Set<String> supers = r.calls.supertypes.computeIfAbsent(in.str(), __ -> new LinkedHashSet<>());
+                int n = d.readInt();
+                for (int j = 0; j < n; j++) supers.add(in.str());
+            }
+            int nCreated = d.readInt();
+            for (int i = 0; i < nCreated; i++) r.calls.instantiated.add(in.str());
+            int nFixed = d.readInt();
+            for (int i = 0; i < nFixed; i++) r.calls.nonOverridable.add(in.node());
+
+            int nEntries = d.readInt();
+            FileReport.Status[] statuses = FileReport.Status.values();
+            for (int i = 0; i < nEntries; i++) {
+                String file = in.str();
+                FileReport.Status status = statuses[d.readByte()];
+                long nanos = d.readLong();
+                long bytes = d.readLong();
+                int astNodes = d.readInt();
+                r.report.add(new FileReport.Entry(file, status, nanos, bytes, astNodes, in.str()));
+            }
+            return r;
+        }
+    }
+
+    private static FileMetrics readFile(In in) throws IOException {
+        DataInputStream d = in.d;
+        FileMetrics fm = new FileMetrics();
+        fm.fileName = in.str();
+        fm.packageName = in.str();
+        fm.fileLoc = d.readInt();
+        fm.classes = d.readInt();
+        fm.methods = d.readInt();
+        fm.fields = d.readInt();
+        fm.maxParamsInFile = d.readInt();
+        in.strIntMap(fm.methodsPerClass);
+        in.strIntMap(fm.fieldsPerClass);
+        in.nodeIntMap(fm.methodLoc);
+        in.nodeIntMap(fm.paramsPerMethod);
+        in.nodeIntMap(fm.cyclomatic);
+        in.nodeIntMap(fm.maxNesting);
+        in.nodeIntMap(fm.callSites);
+        int nInfos = d.readInt();
+        for (int i = 0; i < nInfos; i++) {
+            ClassInfo c = new ClassInfo(in.str());
+            c.superClass = in.str();
+            int nFields = d.readInt();
+            for (int j = 0; j < nFields; j++) c.addField(in.str(), in.str());
+            int nMethods = d.readInt();
+            for (int j = 0; j < nMethods; j++) c.methods.add(in.node());
+            int nUse = d.readInt();
+            for (int j = 0; j < nUse; j++) c.fieldUse.put(in.node(), BitSet.valueOf(in.longs()));
+            fm.classInfos.add(c);
+        }
+        return fm;
+    }
+
+    /**
+     * Flux avec tables de chaînes et de NodeId : indice >= 0 = déjà vu, -1 = définition qui suit,
+     * -2 = null.
+     */
+    private static final class Out implements Closeable {
+        final DataOutputStream d;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<NodeId, Integer> nodes = new HashMap<>();
+
+        Out(DataOutputStream d) { this.d = d; }
+
+        void str(String s) throws IOException {
+            if (s == null) { d.writeInt(-2); return; }
+            Integer i = strings.get(s);
+            if (i != null) { d.writeInt(i); return; }
+            strings.put(s, strings.size());
+            d.writeInt(-1);
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            d.writeInt(b.length);
+            d.write(b);
+        }
+
+        void node(NodeId n) throws IOException {
+            Integer i = nodes.get(n);
+            if (i != null) { d.writeInt(i); return; }
+            nodes.put(n, nodes.size());
+            d.writeInt(-1);
+            str(n.packageName);
+            str(n.className);
+            str(n.methodName);
+            str(n.signature);
+            d.writeInt(n.arity);
+        }
+
+        void strIntMap(Map<String, Integer> m) throws IOException {
+            d.writeInt(m.size());
+            for (var e : m.entrySet()) { str(e.getKey()); d.writeInt(e.getValue()); }
+        }
+
+        void nodeIntMap(Map<NodeId, Integer> m) throws IOException {
+            d.writeInt(m.size());
+            for (var e : m.entrySet()) { node(e.getKey()); d.writeInt(e.getValue()); }
+        }
+
+        @Override public void close() throws IOException { d.close(); }
+    }
+
+    private static final class In implements Closeable {
+        final DataInputStream d;
+        private final List<String> strings = new ArrayList<>();
+        private final List<NodeId> nodes = new ArrayList<>();
+
+        In(DataInputStream d) { this.d = d; }
+
+        String str() throws IOException {
+            int i = d.readInt();
+            if (i == -2) return null;
+            if (i >= 0) return strings.get(i);
+            byte[] b = new byte[d.readInt()];
+            d.readFully(b);
+            String s = new String(b, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        NodeId node() throws IOException {
+            int i = d.readInt();
+            if (i >= 0) return nodes.get(i);
+            String pkg = str(), cls = str(), method = str(), signature = str();
+            int arity = d.readInt();
+            NodeId n = signature != null ? NodeId.of(pkg, cls, method, signature) : NodeId.unresolved(pkg, cls, method, arity);
+            nodes.add(n);
+            return n;
+        }
+
+        long[] longs() throws IOException {
+            long[] bits = new long[d.readInt()];
+            for (int i = 0; i < bits.length; i++) bits[i] = d.readLong();
+            return bits;
+        }
+
+        void strIntMap(Map<String, Integer> m) throws IOException {
+            int n = d.readInt();
+            for (int i = 0; i < n; i++) { String k = str(); m.put(k, d.readInt()); }
+        }
+
+        void nodeIntMap(Map<NodeId, Integer> m) throws IOException {
+            int n = d.readInt();
+            for (int i = 0; i < n; i++) { NodeId k = node(); m.put(k, d.readInt()); }
+        }
+
+        @Override public void close() throws IOException { d.close(); }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.processing;
 
+import org.example.model.NodeId;
 import org.example.visitor.MetricsCollector.FileMetrics;
 import java.util.*;
 import java.util.stream.*;
@@ -27,6 +28,55 @@ public class StatisticsService {
         public Map<String,Integer> longestMethods    = new LinkedHashMap<>(); // global
         public Map<String,LinkedHashMap<String,Integer>> longestMethodsPerClass = new LinkedHashMap<>();
         public List<String> classesWithMoreThanXMethods = new ArrayList<>();
+
+        // Complexité des méthodes
+        public double avgCyclomatic;
+        public int maxCyclomatic;
+        public int maxNestingDepth;
+        public int totalCallSites;
+        public Map<String,Integer> mostComplexMethods = new LinkedHashMap<>(); // top 10% par complexité cyclomatique
+        public List<Hotspot> hotspots = new ArrayList<>();  // rempli si un graphe d'appel est fourni
+    }
+
+    /**
+     * Méthode candidate à l'optimisation / au refactoring.
+     * score = complexité cyclomatique × (1 + fan-in) : une méthode complexe appelée de nombreux
+     * endroits passe devant une méthode complexe jamais appelée.
+     */
+    public record Hotspot(NodeId method, int cyclomatic, int nesting, int callSites,
+                          int fanIn, int fanOut, long score) {}
+
+    public static final int DEFAULT_HOTSPOTS = 20;
+
+    /** Agrégation avec classement des points chauds (fan-in / fan-out issus du graphe d'appel lié). */
+    public static ProjectMetrics aggregate(List<FileMetrics> files, int thresholdX, CallGraph cg, int topHotspots) {
+        ProjectMetrics pm = aggregate(files, thresholdX);
+        pm.hotspots = hotspots(files, cg, topHotspots);
+        return pm;
+    }
+
+    /** Top K méthodes par complexité × fréquence d'appel (fan-in = nombre d'appelants distincts). */
+    public static List<Hotspot> hotspots(List<FileMetrics> files, CallGraph cg, int k) {
+        Map<NodeId,Integer> fanIn = new HashMap<>();
+        for (Set<NodeId> callees : cg.edges.values()) {
+            for (NodeId c : callees) fanIn.merge(c, 1, Integer::sum);
+        }
+        PriorityQueue<Hotspot> heap = new PriorityQueue<>(Comparator.comparingLong(Hotspot::score));
+        for (var fm : files) {
+            for (var e : fm.cyclomatic.entrySet()) {
+                NodeId m = e.getKey();
+                int cc = e.getValue();
+                int in = fanIn.getOrDefault(m, 0);
+                int out = cg.edges.getOrDefault(m, Set.of()).size();
+                heap.add(new Hotspot(m, cc, fm.maxNesting.getOrDefault(m, 0), fm.callSites.getOrDefault(m, 0),
+                        in, out, (long) cc * (1 + in)));
+                if (heap.size() > k) heap.poll();
+            }
+        }
+        List<Hotspot> out = new ArrayList<>(heap);
+        out.sort(Comparator.comparingLong(Hotspot::score).reversed()
+                .thenComparing(h -> h.method().toString()));
+        return out;
     }
 
     public static ProjectMetrics aggregate(List<FileMetrics> files, int thresholdX) {
@@ -49,18 +99,25 @@ public class StatisticsService {
         // Fusion méthodes/attributs par classe + LOC par méthode
         Map<String,Integer> methodsPerClass = new HashMap<>();
         Map<String,Integer> fieldsPerClass  = new HashMap<>();
-        Map<String,Integer> methodLocAll    = new HashMap<>();
-        Map<String,Map<String,Integer>> methodLocByClass = new HashMap<>();
+        Map<NodeId,Integer> methodLocAll    = new HashMap<>();   // identités qualifiées : pas d'écrasement entre surcharges
+        Map<String,Map<NodeId,Integer>> methodLocByClass = new HashMap<>();
+        Map<NodeId,Integer> cyclomaticAll   = new HashMap<>();
 
         for (var fm : files) {
             fm.methodsPerClass.forEach((k,v) -> methodsPerClass.merge(k, v, Integer::sum));
             fm.fieldsPerClass.forEach((k,v)  -> fieldsPerClass.merge(k, v, Integer::sum));
             fm.methodLoc.forEach((k,v) -> {
                 methodLocAll.put(k, v);
-                String cls = k.contains("#") ? k.substring(0, k.indexOf('#')) : "<unknown>";
-                methodLocByClass.computeIfAbsent(cls, __ -> new HashMap<>()).put(k, v);
+                methodLocByClass.computeIfAbsent(k.classKey(), __ -> new HashMap<>()).put(k, v);
             });
+            cyclomaticAll.putAll(fm.cyclomatic);
+            pm.maxNestingDepth = Math.max(pm.maxNestingDepth,
+                    fm.maxNesting.values().stream().mapToInt(i->i).max().orElse(0));
+            pm.totalCallSites += fm.callSites.values().stream().mapToInt(i->i).sum();
         }
+        pm.avgCyclomatic = cyclomaticAll.values().stream().mapToInt(i->i).average().orElse(0);
+        pm.maxCyclomatic = cyclomaticAll.values().stream().mapToInt(i->i).max().orElse(0);
+        pm.mostComplexMethods = topPercentMap(cyclomaticAll, 10);
 
         pm.avgMethodsPerClass = methodsPerClass.isEmpty()
                 ? 0 : methodsPerClass.values().stream().mapToInt(i->i).average().orElse(0);
@@ -84,7 +141,7 @@ public class StatisticsService {
         // Top 10% méthodes par LOC **par classe**
         for (var e : methodLocByClass.entrySet()) {
             String cls = e.getKey();
-            Map<String,Integer> m = e.getValue();
+            Map<NodeId,Integer> m = e.getValue();
             pm.longestMethodsPerClass.put(cls, topPercentMap(m, 10));
         }
 
@@ -108,14 +165,14 @@ public class StatisticsService {
                 .collect(Collectors.toList());
     }
 
-    private static LinkedHashMap<String,Integer> topPercentMap(Map<String,Integer> map, int pct) {
+    private static LinkedHashMap<String,Integer> topPercentMap(Map<NodeId,Integer> map, int pct) {
         if (map.isEmpty()) return new LinkedHashMap<>();
         int n = Math.max(1, (int)Math.ceil(map.size() * (pct/100.0)));
         return map.entrySet().stream()
                 .sorted((e1,e2)->Integer.compare(e2.getValue(), e1.getValue()))
                 .limit(n)
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey, Map.Entry::getValue,
+                        e -> e.getKey().toString(), Map.Entry::getValue,
                         (a,b)->a, LinkedHashMap::new
                 ));
     }
@@ -0,0 +1,136 @@
+package org.example.processing;
+
+import org.example.visitor.Signatures;
+
+import java.util.*;
+
+/**
+ * Index de sous-typage précalculé : chaque type (classe déclarée ou supertype référencé) reçoit un
+ * indice dense, et ses sous-types transitifs (lui compris) sont un {@link BitSet} sur ces indices.
+ * "S est-il un sous-type de T ?" est un test de bit ; parcourir les implémentations de T coûte un
+ * parcours de bits, même avec des milliers d'implémenteurs.
+ *
+ * Les noms viennent des visiteurs, sans bindings : import explicite, sinon package de la classe
+ * présumé. Un nom présumé absent des classes déclarées est rattaché à la classe déclarée de même
+ * nom simple si elle est unique (ex: type d'un autre package importé par "import pkg.*", type
+ * imbriqué "Inner" déclaré comme "Outer$Inner") ; sinon il
+ * reste un type externe (ex: java.lang.Runnable), qui a un indice mais aucune méthode déclarée.
+ *
+ * Les cibles d'appel ne sont pas qualifiées comme les supertypes : "cmp.compare(a, b)" donne
+ * "Comparator" (ni import explicite ni package connu) quand la déclaration "implements Comparator"
+ * a donné "java.util.Comparator" ; {@link #indexOfTarget} rattache alors la cible au type
+ * référencé de même nom simple s'il est unique.
+ */
+public final class TypeHierarchy {
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, String> bySimpleName = new HashMap<>();   // nom simple -> classe déclarée unique (ou null si ambigu)
+    private final Set<String> declared;
+    private final List<int[]> supers = new ArrayList<>();               // supertypes directs, superclasse en tête
+    private BitSet[] subtypes;                                          // fermeture réflexive-transitive
+    private final Map<String, Integer> anyBySimpleName = new HashMap<>(); // nom simple -> type indexé unique (-1 si ambigu)
+
+    private TypeHierarchy(Set<String> declared) {
+        this.declared = declared;
+        for (String c : declared) {
+            String simple = Signatures.innerName(ClassScope.simpleName(c));   // "Outer$Inner" -> "Inner"
+            bySimpleName.put(simple, bySimpleName.containsKey(simple) ? null : c);
+            indexOf(c, true);
+        }
+    }
+
+    public static TypeHierarchy of(CallGraph cg) {
+        return of(cg.declaredClasses, cg.supertypes);
+    }
+
+    public static TypeHierarchy of(Set<String> declaredClasses, Map<String, Set<String>> supertypes) {
+        TypeHierarchy h = new TypeHierarchy(declaredClasses);
+        for (var e : supertypes.entrySet()) {
+            int sub = h.indexOf(h.resolve(e.getKey()), true);
+            int[] direct = new int[e.getValue().size()];
+            int k = 0;
+            for (String s : e.getValue()) {
+                int sup = h.indexOf(h.resolve(s), true);
+                if (sup != sub) direct[k++] = sup;
+            }
+            h.supers.set(sub, Arrays.copyOf(direct, k));
+        }
+        h.close();
+        return h;
+    }
+
+    /** Pour chaque type, marque son indice dans les sous-types de tous ses ancêtres (cycles tolérés). */
+    private void close() {
+        int n = names.size();
+        for (int i = 0; i < n; i++) {
+            anyBySimpleName.merge(Signatures.innerName(ClassScope.simpleName(names.get(i))), i, (a, b) -> -1);
+        }
+        subtypes = new BitSet[n];
+        for (int i = 0; i < n; i++) subtypes[i] = new BitSet();
+        BitSet seen = new BitSet(n);
+        int[] stack = new int[Math.max(1, n)];
+        for (int t = 0; t < n; t++) {
+            seen.clear();
+            int top = 0;
+            stack[top++] = t;
+            seen.set(t);
+            while (top > 0) {
+                int a = stack[--top];
+                subtypes[a].set(t);
+                for (int s : supers.get(a)) {
+                    if (!seen.get(s)) { seen.set(s); stack[top++] = s; }
+                }
+            }
+        }
+    }
+
+    /** Nom présumé -> classe déclarée (exacte, sinon nom simple unique), ou le nom tel quel (externe). */
+    public String resolve(String name) {
+        if (declared.contains(name)) return name;
+        String simple = bySimpleName.get(Signatures.innerName(ClassScope.simpleName(name)));
+        return simple != null ? simple : name;
+    }
+
+    private int indexOf(String name, boolean create) {
+        Integer i = index.get(name);
+        if (i != null) return i;
+        if (!create) return -1;
+        index.put(name, names.size());
+        names.add(name);
+        supers.add(new int[0]);
+        return names.size() - 1;
+    }
+
+    /**
+     * Indice du type statique d'une cible d'appel : nom exact ou résolu ({@link #resolve}), sinon
+     * type référencé (supertype externe compris) de même nom simple s'il est unique ; -1 sinon.
+     */
+    public int indexOfTarget(String name) {
+        int i = indexOf(resolve(name));
+        if (i >= 0) return i;
+        Integer bySimple = anyBySimpleName.get(Signatures.innerName(ClassScope.simpleName(name)));
+        return bySimple == null ? -1 : bySimple;
+    }
+
+    /** Indice d'un type, -1 si inconnu (ni déclaré ni supertype référencé). */
+    public int indexOf(String name) {
+        Integer i = index.get(name);
+        return i == null ? -1 : i;
+    }
+
+    public String name(int index) { return names.get(index); }
+
+    public int size() { return names.size(); }
+
+    /** Supertypes directs (indices), superclasse en tête si elle est connue. */
+    public int[] supertypes(int type) { return supers.get(type); }
+
+    /** Sous-types transitifs de {@code type}, lui compris. Partagé : ne pas modifier. */
+    public BitSet subtypes(int type) { return subtypes[type]; }
+
+    public boolean isSubtype(String sub, String sup) {
+        int s = indexOf(sub), t = indexOf(sup);
+        return s >= 0 && t >= 0 && subtypes[t].get(s);
+    }
+}
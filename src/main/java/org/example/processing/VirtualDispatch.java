@@ -0,0 +1,145 @@
+package org.example.processing;
+
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+import org.example.visitor.Signatures;
+
+import java.util.*;
+
+/**
+ * Expansion des appels virtuels du graphe d'appel (lié) : un appel vers {@code Shape#area()} est
+ * aussi relié aux redéfinitions des sous-types ({@code Circle#area()}, {@code Rectangle#area()}),
+ * sans quoi le couplage vers les implémentations est sous-estimé.
+ *
+ *  - CHA (Class Hierarchy Analysis) : tous les sous-types du type statique de la cible ;
+ *  - RTA (Rapid Type Analysis) : seulement les sous-types instanciés quelque part dans les sources
+ *    ({@code new X(...)}), ce qui élague les implémentations mortes.
+ *
+ * Pour chaque sous-type retenu, la méthode exécutée est la déclaration la plus proche en remontant
+ * ses supertypes (superclasse d'abord) : même nom et même signature, ou même arité si la cible n'a
+ * pas été résolue (appel vers un type externe, ex: Comparator#compare/2 ; toutes les surcharges pour
+ * une référence de méthode, d'arité inconnue). Les constructeurs, les méthodes static / private et
+ * les appels super.m() ne sont pas étendus. Les arêtes d'origine sont conservées : l'expansion ne
+ * fait qu'ajouter des cibles.
+ *
+ * Les sous-types viennent de {@link TypeHierarchy} (bitsets) et l'expansion d'une cible est calculée
+ * une fois puis réutilisée par tous ses sites d'appel.
+ */
+public final class VirtualDispatch {
+
+    public enum Mode {
+        NONE, CHA, RTA;
+
+        public static Mode parse(String s) {
+            return switch (s.toLowerCase(Locale.ROOT)) {
+                case "none" -> NONE;
+                case "cha" -> CHA;
+                case "rta" -> RTA;
+                default -> throw new IllegalArgumentException("mode de répartition inconnu: " + s + " (none|cha|rta)");
+            };
+        }
+    }
+
+    private static final NodeId[] NONE = new NodeId[0];
+
+    private final CallGraph cg;
+    private final TypeHierarchy hierarchy;
+    private final BitSet live;                                  // RTA : types instanciés (null = CHA)
+    private final List<Map<String, List<NodeId>>> declared;     // type -> "m(sig)" et "m/arité" -> méthodes
+    private final Map<NodeId, NodeId[]> cache = new HashMap<>();
+
+    private VirtualDispatch(CallGraph cg, Mode mode) {
+        this.cg = cg;
+        this.hierarchy = TypeHierarchy.of(cg);
+        this.declared = new ArrayList<>(hierarchy.size());
+        for (int i = 0; i < hierarchy.size(); i++) declared.add(null);
+        for (NodeId m : cg.edges.keySet()) {
+            if (!m.isResolved()) continue;
+            int t = hierarchy.indexOf(m.classKey());
+            if (t < 0) continue;
+            Map<String, List<NodeId>> byKey = declared.get(t);
+            if (byKey == null) declared.set(t, byKey = new HashMap<>());
+            byKey.computeIfAbsent(m.methodName + "(" + m.signature + ")", __ -> new ArrayList<>(1)).add(m);
+            byKey.computeIfAbsent(m.methodName + "/" + m.arity, __ -> new ArrayList<>(1)).add(m);
+            byKey.computeIfAbsent(m.methodName + "/-1", __ -> new ArrayList<>(1)).add(m);   // référence de méthode
+        }
+        if (mode == Mode.RTA) {
+            live = new BitSet(hierarchy.size());
+            for (String c : cg.instantiated) {
+                int t = hierarchy.indexOf(hierarchy.resolve(c));
+                if (t >= 0) live.set(t);
+            }
+        } else {
+            live = null;
+        }
+    }
+
+    /**
+     * Ajoute au graphe (lié) les cibles virtuelles de chaque appel ; renvoie le nombre d'arêtes ajoutées.
+     * Sans effet en mode NONE.
+     */
+    public static int expand(CallGraph cg, Mode mode) {
+        if (mode == Mode.NONE) return 0;
+        long t0 = Instrumentation.start();
+        VirtualDispatch d = new VirtualDispatch(cg, mode);
+        int added = 0;
+        List<NodeId> extra = new ArrayList<>();
+        for (Set<NodeId> targets : cg.edges.values()) {
+            extra.clear();
+            for (NodeId t : targets) {
+                for (NodeId impl : d.targets(t)) extra.add(impl);
+            }
+            for (NodeId impl : extra) if (targets.add(impl)) added++;
+        }
+        Instrumentation.stop(Instrumentation.Stage.DISPATCH, t0);
+        return added;
+    }
+
+    /** Redéfinitions atteignables depuis un appel à {@code target} (hors {@code target} lui-même). */
+    NodeId[] targets(NodeId target) {
+        NodeId[] out = cache.get(target);
+        if (out == null) {
+            out = compute(target);
+            cache.put(target, out);
+        }
+        return out;
+    }
+
+    private NodeId[] compute(NodeId target) {
+        if (cg.nonOverridable.contains(target)) return NONE;
+        if (target.methodName.equals(Signatures.innerName(target.className)) || target.methodName.startsWith("super.")) return NONE;
+        int type = hierarchy.indexOfTarget(target.classKey());   // "Comparator" -> java.util.Comparator
+        if (type < 0) return NONE;
+
+        String key = target.isResolved()
+                ? target.methodName + "(" + target.signature + ")"
+                : target.methodName + "/" + target.arity;
+        Set<NodeId> out = new LinkedHashSet<>();
+        BitSet subs = hierarchy.subtypes(type);
+        for (int s = subs.nextSetBit(0); s >= 0; s = subs.nextSetBit(s + 1)) {
+            if (s == type || (live != null && !live.get(s))) continue;
+            for (NodeId impl : implementation(s, key)) {
+                if (impl != target && !cg.nonOverridable.contains(impl)) out.add(impl);
+            }
+        }
+        return out.isEmpty() ? NONE : out.toArray(NONE);
+    }
+
+    /** Déclaration la plus proche de {@code key} en remontant depuis {@code type} (parcours en largeur). */
+    private List<NodeId> implementation(int type, String key) {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        BitSet seen = new BitSet();
+        queue.add(type);
+        seen.set(type);
+        while (!queue.isEmpty()) {
+            int t = queue.poll();
+            Map<String, List<NodeId>> byKey = declared.get(t);
+            List<NodeId> found = byKey == null ? null : byKey.get(key);
+            if (found != null) return found;
+            for (int sup : hierarchy.supertypes(t)) {
+                if (!seen.get(sup)) { seen.set(sup); queue.add(sup); }
+            }
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.server;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.model.NodeId;
+import org.example.parser.SourceParser;
+import org.example.processing.*;
+import org.example.visitor.CallGraphVisitor;
+import org.example.visitor.MetricsCollector;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Analyse complète chargée une fois en mémoire et servie telle quelle ({@link AnalysisServer}) :
+ * métriques, graphe d'appel lié (avec l'index inverse des appelants), couplage, dendrogramme et
+ * index de requêtes. Rien n'est modifié après {@link #load} : lecture concurrente sans verrou.
+ */
+public final class Analysis {
+
+    public final List<MetricsCollector.FileMetrics> files;
+    public final int failedFiles;
+    public final StatisticsService.ProjectMetrics metrics;
+    public final CallGraph calls;
+    public final CouplingGraph coupling;
+    public final MetricsQuery query;
+    public final HierarchicalClustering clustering;     // null si le périmètre est vide
+    public final HierarchicalClustering.Node dendrogram;
+    public final long loadMillis;
+
+    private final Map<String, NodeId> methodsByName = new HashMap<>();          // "pkg.Cls#m(sig)" -> nœud
+    private final Map<NodeId, List<NodeId>> callers = new HashMap<>();          // index inverse des arêtes
+    private final Map<String, List<CouplingGraph.Pair>> pairsByClass = new HashMap<>();
+    private final List<CouplingGraph.Pair> pairsByWeight;                       // décroissant
+
+    private Analysis(List<MetricsCollector.FileMetrics> files, int failedFiles, CallGraph calls,
+                     ClassScope scope, int hotspots, long t0) {
+        this.files = Collections.unmodifiableList(files);
+        this.failedFiles = failedFiles;
+        this.calls = calls;
+        this.metrics = StatisticsService.aggregate(files, 3, calls, hotspots);
+        this.query = MetricsQuery.of(files);
+        this.coupling = CouplingGraph.fromCallGraph(calls, scope.resolve(calls.declaredClasses));
+
+        for (var e : calls.edges.entrySet()) {
+            methodsByName.put(e.getKey().toString(), e.getKey());
+            for (NodeId to : e.getValue()) {
+                methodsByName.putIfAbsent(to.toString(), to);
+                callers.computeIfAbsent(to, __ -> new ArrayList<>()).add(e.getKey());
+            }
+        }
+        for (CouplingGraph.Pair p : coupling.counts().keySet()) {
+            pairsByClass.computeIfAbsent(p.a, __ -> new ArrayList<>()).add(p);
+            pairsByClass.computeIfAbsent(p.b, __ -> new ArrayList<>()).add(p);
+        }
+        Comparator<CouplingGraph.Pair> byWeight = Comparator.<CouplingGraph.Pair>comparingLong(p -> coupling.counts().get(p))
+                .reversed().thenComparing(CouplingGraph.Pair::toString);
+        pairsByClass.values().forEach(l -> l.sort(byWeight));
+        List<CouplingGraph.Pair> all = new ArrayList<>(coupling.counts().keySet());
+        all.sort(byWeight);
+        this.pairsByWeight = Collections.unmodifiableList(all);
+
+        if (coupling.classes().isEmpty()) {
+            this.clustering = null;
+            this.dendrogram = null;
+        } else {
+            this.clustering = new HierarchicalClustering(coupling.classes(), coupling);
+            this.dendrogram = clustering.cluster();
+        }
+        this.loadMillis = (System.nanoTime() - t0) / 1_000_000;
+    }
+
+    /**
+     * Parsing parallèle des sources (même chemin que {@link org.example.CliApp} : métriques puis
+     * graphe d'appel par fichier), lien, expansion virtuelle éventuelle puis calcul des index.
+     */
+    public static Analysis load(List<Path> roots, int threads, ClassScope scope,
+                                VirtualDispatch.Mode dispatch, int hotspots) throws Exception {
+        long t0 = System.nanoTime();
+        List<Path> sources = FileExplorer.listJavaFiles(roots, IgnoreRules.defaults());
+        record Part(MetricsCollector.FileMetrics metrics, CallGraphVisitor calls) {}
+        List<Future<Part>> parts = new ArrayList<>(sources.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Path f : sources) {
+                parts.add(pool.submit(() -> {
+                    String source = Files.readString(f, StandardCharsets.UTF_8);
+                    CompilationUnit cu = SourceParser.parseSource(source);
+                    MetricsCollector.FileMetrics fm = MetricsCollector.collect(cu, source, FileExplorer.describe(f));
+                    CallGraphVisitor v = new CallGraphVisitor();
+                    cu.accept(v);
+                    return new Part(fm, v);
+                }));
+            }
+            List<MetricsCollector.FileMetrics> files = new ArrayList<>(sources.size());
+            CallGraph cg = new CallGraph();
+            int failed = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                try {
+                    Part p = parts.get(i).get();
+                    files.add(p.metrics());
+                    cg.mergeFrom(p.calls());
+                } catch (ExecutionException ex) {
+                    failed++;
+                    System.err.println("WARN " + sources.get(i) + " : " + ex.getCause());
+                }
+            }
+            cg.link();
+            VirtualDispatch.expand(cg, dispatch);
+            return new Analysis(files, failed, cg, scope, hotspots, t0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Nœud du graphe par identité ("org.example.codebase.Circle#area()"), null si inconnu. */
+    public NodeId method(String id) {
+        return methodsByName.get(id);
+    }
+
+    public Set<NodeId> callees(NodeId m) {
+        return Collections.unmodifiableSet(calls.edges.getOrDefault(m, Set.of()));
+    }
+
+    public List<NodeId> callers(NodeId m) {
+        return Collections.unmodifiableList(callers.getOrDefault(m, List.of()));
+    }
+
+    /** Paires de couplage d'une classe, par nombre d'appels décroissant. */
+    public List<CouplingGraph.Pair> pairsOf(String cls) {
+        return Collections.unmodifiableList(pairsByClass.getOrDefault(cls, List.of()));
+    }
+
+    /** Les k paires les plus couplées. */
+    public List<CouplingGraph.Pair> topPairs(int k) {
+        return pairsByWeight.subList(0, Math.min(Math.max(0, k), pairsByWeight.size()));
+    }
+
+    /** Découpe du dendrogramme au seuil {@code cp} (au plus {@code maxModules}) ; vide sans classes. */
+    public List<ModulesExtractor.Module> modules(double cp, int maxModules) {
+        if (dendrogram == null) return List.of();
+        return ModulesExtractor.cutIntoModules(dendrogram, clustering, cp, Math.max(1, maxModules));
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.model.NodeId;
+import org.example.processing.CouplingGraph;
+import org.example.processing.JsonExporter;
+import org.example.processing.MetricsQuery;
+import org.example.processing.ModulesExtractor;
+import org.example.processing.StatisticsService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serveur HTTP embarqué (com.sun.net.httpserver du JDK) qui expose une {@link Analysis} en JSON, pour
+ * les outils externes (plugins d'IDE, tableaux de bord) qui ne lancent pas d'interface Swing.
+ *
+ * Routes (GET) :
+ * <pre>
+ *   /health                                  état et taille de l'analyse
+ *   /metrics                                 ProjectMetrics (totaux, moyennes, tops, points chauds)
+ *   /calls?method=pkg.Cls#m(sig)             appelés et appelants d'une méthode
+ *   /coupling?a=pkg.A&amp;b=pkg.B               poids d'une paire
+ *   /coupling?class=pkg.A                    paires d'une classe ; sans paramètre : ?top=20 paires
+ *   /modules?cp=0.3[&amp;max=N]                  découpe du dendrogramme
+ *   /query?q=method.loc:top10                requête {@link MetricsQuery#run}
+ * </pre>
+ *
+ * Une requête par thread virtuel. L'analyse étant immuable, une réponse ne change jamais : le corps
+ * est mis en cache sous la route et les seuls paramètres qu'elle lit (/health?x=1 = /health), dans
+ * un cache LRU d'au plus {@link #CACHE_LIMIT} entrées, et porte un ETag ; If-None-Match renvoie 304
+ * sans corps.
+ */
+public final class AnalysisServer implements AutoCloseable {
+
+    public static final int CACHE_LIMIT = 4096;
+    private static final int DEFAULT_TOP = 20;
+
+    static {
+        // Sans TCP_NODELAY, en-têtes et corps partent en deux segments et chaque requête d'une connexion
+        // persistante attend l'ACK retardé du client (~40 ms) ; lu une fois, avant le premier serveur.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private record Response(int status, byte[] body, String etag) {}
+
+    private final Analysis analysis;
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final boolean caching;
+    private final Map<String, Response> cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+            return size() > CACHE_LIMIT;
+        }
+    });
+
+    public final LongAdder requests = new LongAdder();
+    public final LongAdder cacheHits = new LongAdder();
+
+    private AnalysisServer(Analysis analysis, InetSocketAddress address, boolean caching) throws IOException {
+        this.analysis = analysis;
+        this.caching = caching;
+        this.http = HttpServer.create(address, 1024);
+        http.createContext("/", this::handle);
+        http.setExecutor(executor);
+    }
+
+    /** Démarre le serveur ; port 0 = port libre choisi par le système (voir {@link #port()}). */
+    public static AnalysisServer start(Analysis analysis, InetSocketAddress address, boolean caching) throws IOException {
+        AnalysisServer s = new AnalysisServer(analysis, address, caching);
+        s.http.start();
+        return s;
+    }
+
+    public int port() { return http.getAddress().getPort(); }
+
+    @Override public void close() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ---------- traitement d'une requête ----------
+
+    private void handle(HttpExchange ex) throws IOException {
+        requests.increment();
+        try (ex) {
+            if (!ex.getRequestMethod().equals("GET")) {
+                send(ex, new Response(405, error("méthode non supportée: " + ex.getRequestMethod()), null));
+                return;
+            }
+            String path = ex.getRequestURI().getPath();
+            String rawQuery = ex.getRequestURI().getRawQuery();
+            Map<String, String> params = parameters(rawQuery);
+            String key = cacheKey(path, params);
+
+            Response r = caching && key != null ? cache.get(key) : null;
+            if (r != null) {
+                cacheHits.increment();
+            } else {
+                r = respond(path, params);
+                if (caching && key != null && r.status() == 200) cache.putIfAbsent(key, r);
+            }
+            if (r.etag() != null && r.etag().equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                ex.getResponseHeaders().set("ETag", r.etag());
+                ex.sendResponseHeaders(304, -1);
+                return;
+            }
+            send(ex, r);
+        }
+    }
+
+    /** Paramètres lus par chaque route : les autres n'entrent pas dans la clé de cache. */
+    private static final Map<String, List<String>> ROUTE_PARAMS = Map.of(
+            "/health", List.of(),
+            "/metrics", List.of(),
+            "/calls", List.of("method"),
+            "/coupling", List.of("a", "b", "class", "top"),
+            "/modules", List.of("cp", "max"),
+            "/query", List.of("q"));
+
+    /** Route + valeurs des paramètres qu'elle lit ; null pour une route inconnue (jamais en cache). */
+    static String cacheKey(String path, Map<String, String> params) {
+        List<String> names = ROUTE_PARAMS.get(path.equals("/") ? "/health" : path);
+        if (names == null) return null;
+        StringBuilder sb = new StringBuilder(path.equals("/") ? "/health" : path);
+        for (String n : names) {
+            String v = params.get(n);
+            if (v != null) sb.append('\0').append(n).append('=').append(v);
+        }
+        return sb.toString();
+    }
+
+    private Response respond(String path, Map<String, String> params) {
+        try {
+            String json = switch (path) {
+                case "/", "/health" -> health();
+                case "/metrics" -> metrics();
+                case "/calls" -> calls(required(params, "method"));
+                case "/coupling" -> coupling(params);
+                case "/modules" -> modules(params);
+                case "/query" -> query(required(params, "q"));
+                default -> null;
+            };
+            if (json == null) return new Response(404, error("route inconnue: " + path), null);
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            return new Response(200, body, "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"");
+        } catch (NoSuchElementException e) {
+            return new Response(404, error(e.getMessage()), null);
+        } catch (IllegalArgumentException e) {
+            return new Response(400, error(e.getMessage()), null);
+        }
+    }
+
+    private static void send(HttpExchange ex, Response r) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (r.etag() != null) ex.getResponseHeaders().set("ETag", r.etag());
+        ex.sendResponseHeaders(r.status(), r.body().length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(r.body());
+        }
+    }
+
+    private static byte[] error(String message) {
+        return JsonExporter.object(Map.of("error", message)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** "a=1&amp;b=x%23y" -> {a=1, b=x#y} */
+    static Map<String, String> parameters(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return Map.of();
+        Map<String, String> out = new HashMap<>();
+        for (String kv : rawQuery.split("&")) {
+            int eq = kv.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? kv : kv.substring(0, eq), StandardCharsets.UTF_8);
+            String v = eq < 0 ? "" : URLDecoder.decode(kv.substring(eq + 1), StandardCharsets.UTF_8);
+            out.put(k, v);
+        }
+        return out;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String v = params.get(name);
+        if (v == null || v.isEmpty()) throw new IllegalArgumentException("paramètre manquant: " + name);
+        return v;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int def) {
+        String v = params.get(name);
+        try {
+            return v == null ? def : Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("entier attendu pour " + name + ": " + v);
+        }
+    }
+
+    // ---------- routes ----------
+
+    private String health() {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("status", "ok");
+        o.put("files", analysis.files.size());
+        o.put("failedFiles", analysis.failedFiles);
+        o.put("methods", analysis.metrics.totalMethods);
+        o.put("classes", analysis.coupling.classes().size());
+        o.put("loadMs", analysis.loadMillis);
+        return JsonExporter.object(o);
+    }
+
+    private String metrics() {
+        StatisticsService.ProjectMetrics pm = analysis.metrics;
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("totalFiles", pm.totalFiles);
+        o.put("totalPackages", pm.totalPackages);
+        o.put("totalClasses", pm.totalClasses);
+        o.put("totalMethods", pm.totalMethods);
+        o.put("totalFields", pm.totalFields);
+        o.put("totalLoc", pm.totalLoc);
+        o.put("avgMethodsPerClass", pm.avgMethodsPerClass);
+        o.put("avgFieldsPerClass", pm.avgFieldsPerClass);
+        o.put("avgLocPerMethod", pm.avgLocPerMethod);
+        o.put("maxParams", pm.maxParams);
+        o.put("avgCyclomatic", pm.avgCyclomatic);
+        o.put("maxCyclomatic", pm.maxCyclomatic);
+        o.put("maxNesting", pm.maxNestingDepth);
+        o.put("callSites", pm.totalCallSites);
+        o.put("top10pctClassesByMethods", pm.top10pctClassesByMethods);
+        o.put("top10pctClassesByFields", pm.top10pctClassesByFields);
+        o.put("intersectionTop", pm.intersectionTop);
+        o.put("longestMethods", pm.longestMethods);
+        o.put("mostComplexMethods", pm.mostComplexMethods);
+        List<Map<String, Object>> hotspots = new ArrayList<>();
+        for (StatisticsService.Hotspot h : pm.hotspots) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("method", h.method().toString());
+            m.put("cyclomatic", h.cyclomatic());
+            m.put("fanIn", h.fanIn());
+            m.put("fanOut", h.fanOut());
+            m.put("score", h.score());
+            hotspots.add(m);
+        }
+        o.put("hotspots", hotspots);
+        return JsonExporter.object(o);
+    }
+
+    private String calls(String id) {
+        NodeId m = analysis.method(id);
+        if (m == null) throw new NoSuchElementException("méthode inconnue: " + id);
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("method", m.toString());
+        o.put("callees", names(analysis.callees(m)));
+        o.put("callers", names(analysis.callers(m)));
+        return JsonExporter.object(o);
+    }
+
+    private static List<String> names(Collection<NodeId> nodes) {
+        List<String> out = new ArrayList<>(nodes.size());
+        for (NodeId n : nodes) out.add(n.toString());
+        return out;
+    }
+
+    private String coupling(Map<String, String> params) {
+        CouplingGraph g = analysis.coupling;
+        if (params.containsKey("a") || params.containsKey("b")) {
+            String a = required(params, "a"), b = required(params, "b");
+            Map<String, Object> o = pair(new CouplingGraph.Pair(a, b));
+            return JsonExporter.object(o);
+        }
+        List<CouplingGraph.Pair> pairs = params.containsKey("class")
+                ? analysis.pairsOf(required(params, "class"))
+                : analysis.topPairs(intParam(params, "top", DEFAULT_TOP));
+        List<Map<String, Object>> out = new ArrayList<>(pairs.size());
+        for (CouplingGraph.Pair p : pairs) out.add(pair(p));
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("total", g.total());
+        o.put("pairs", out);
+        return JsonExporter.object(o);
+    }
+
+    private Map<String, Object> pair(CouplingGraph.Pair p) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("a", p.a);
+        o.put("b", p.b);
+        o.put("count", analysis.coupling.counts().getOrDefault(p, 0L));
+        o.put("weight", analysis.coupling.weight(p.a, p.b));
+        return o;
+    }
+
+    private String modules(Map<String, String> params) {
+        double cp;
+        try {
+            cp = Double.parseDouble(params.getOrDefault("cp", "0.3"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("nombre attendu pour cp: " + params.get("cp"));
+        }
+        int classes = analysis.coupling.classes().size();
+        int max = intParam(params, "max", Math.max(1, classes / 2));
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (ModulesExtractor.Module m : analysis.modules(cp, max)) {
+            Map<String, Object> o = new LinkedHashMap<>();
+            o.put("classes", m.classes);
+            o.put("avgCoupling", m.avgCoupling);
+            out.add(o);
+        }
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("cp", cp);
+        o.put("max", max);
+        o.put("modules", out);
+        return JsonExporter.object(o);
+    }
+
+    private String query(String q) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (MetricsQuery.Hit<String> h : analysis.query.run(q)) {
+            Map<String, Object> o = new LinkedHashMap<>();
+            o.put("key", h.key());
+            o.put("value", h.value());
+            out.add(o);
+        }
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("query", q);
+        o.put("hits", out);
+        return JsonExporter.object(o);
+    }
+}
@@ -2,32 +2,48 @@ package org.example.spoon;
 
 import spoon.Launcher;
 import spoon.reflect.CtModel;
+import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtExecutable;
 import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.CtScanner;
 import spoon.reflect.visitor.filter.TypeFilter;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import org.example.model.NodeId;
+import org.example.processing.CallGraph;
+import org.example.processing.ClassScope;
+import org.example.visitor.Signatures;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Construit un graphe d'appel (méthode -> méthode) avec Spoon.
- * Noeud = "Class#method", arête = invocation.
+ * Noeud = {@link NodeId} (package, classe, méthode, signature effacée), arête = invocation.
  */
 public class SpoonCallGraphExtractor {
 
     /** Construit le modèle Spoon à partir du dossier sources. */
     public static CtModel buildModel(Path srcRoot) {
+        return buildModel(List.of(srcRoot));
+    }
+
+    /**
+     * Construit le modèle Spoon à partir d'une liste de fichiers (ou dossiers) : même liste que
+     * {@link org.example.processing.FileExplorer#listJavaFiles} pour comparer à JDT sur les mêmes fichiers.
+     */
+    public static CtModel buildModel(Collection<Path> inputs) {
         Launcher launcher = new Launcher();
-        launcher.addInputResource(srcRoot.toString());
+        for (Path p : inputs) launcher.addInputResource(p.toString());
         launcher.getEnvironment().setNoClasspath(true); // tolérant aux libs absentes
         launcher.getEnvironment().setComplianceLevel(17);
         launcher.buildModel();
@@ -36,10 +52,10 @@ public class SpoonCallGraphExtractor {
 
     /**
      * Extrait les arêtes d'appel inter-méthodes.
-     * @return Map sourceNode -> Set of targetNodes (ex. Shape#area -> {Point#distanceTo})
+     * @return Map sourceNode -> Set of targetNodes (ex. Shape#area() -> {Point#distanceTo(Point)})
      */
-    public static Map<String, Set<String>> extractEdges(CtModel model) {
-        Map<String, Set<String>> edges = new LinkedHashMap<>();
+    public static Map<NodeId, Set<NodeId>> extractEdges(CtModel model) {
+        Map<NodeId, Set<NodeId>> edges = new LinkedHashMap<>();
 
         // ✅ Use TypeFilter to get a typed list of CtInvocation<?>
         for (CtInvocation<?> inv : model.getElements(new TypeFilter<>(CtInvocation.class))) {
@@ -52,33 +68,185 @@ public class SpoonCallGraphExtractor {
             CtType<?> callerType = callerMethod.getDeclaringType();
             if (callerType == null) continue;
 
-            String caller = callerType.getSimpleName() + "#" + callerMethod.getSimpleName();
+            NodeId caller = declaredNode(callerType, callerMethod);
 
             // callee (executable reference, if resolvable)
-            CtExecutableReference<?> calleeRef = inv.getExecutable();
-            if (calleeRef == null) continue;
+            NodeId callee = calleeNode(inv);
+            if (callee == null) continue;
 
-            CtTypeReference<?> declTypeRef = calleeRef.getDeclaringType();
-            String calleeOwner = (declTypeRef != null) ? declTypeRef.getSimpleName() : null;
-            String calleeName  = calleeRef.getSimpleName();
+            edges.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
+        }
+        return edges;
+    }
 
-            if (calleeOwner == null || calleeName == null) continue;
-            String callee = calleeOwner + "#" + calleeName;
+    /**
+     * Variante parallèle de {@link #extractEdges(CtModel)} : chaque type de premier niveau
+     * (avec ses types imbriqués) est parcouru par un worker, sans matérialiser la liste globale
+     * des invocations ni remonter les parents de chacune. Les workers ne font que parcourir l'arbre
+     * et relever les couples (méthode appelante, invocation) ; les identités sont calculées ensuite
+     * sur le thread appelant, dans l'ordre des types (résultat identique au mode séquentiel) : les
+     * références Spoon (getDeclaringType, getPackage, toString...) se résolvent et se mettent en cache
+     * à la demande via la factory partagée, qui n'est pas garantie thread-safe.
+     */
+    public static Map<NodeId, Set<NodeId>> extractEdges(CtModel model, int threads) {
+        List<CtType<?>> types = new ArrayList<>(model.getAllTypes());
+        Map<NodeId, Set<NodeId>> edges = new LinkedHashMap<>();
+        Map<CtMethod<?>, NodeId> callers = new IdentityHashMap<>();
+        if (threads <= 1 || types.size() <= 1) {
+            for (CtType<?> t : types) addSites(InvocationScanner.sites(t), callers, edges);
+            return edges;
+        }
 
-            edges.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, types.size()));
+        try {
+            List<Future<List<Site>>> parts = new ArrayList<>(types.size());
+            for (CtType<?> t : types) parts.add(pool.submit(() -> InvocationScanner.sites(t)));
+            for (Future<List<Site>> f : parts) addSites(f.get(), callers, edges);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Extraction Spoon interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de l'extraction Spoon", e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
         return edges;
     }
 
+    /** Invocation relevée par un worker, avec la méthode qui la contient. */
+    private record Site(CtMethod<?> caller, CtInvocation<?> invocation) {}
+
+    /** Résout les sites d'un type en arêtes (thread appelant uniquement). */
+    private static void addSites(List<Site> sites, Map<CtMethod<?>, NodeId> callers, Map<NodeId, Set<NodeId>> edges) {
+        for (Site s : sites) {
+            NodeId caller = callers.computeIfAbsent(s.caller, m -> {
+                CtType<?> callerType = m.getDeclaringType();
+                return callerType == null ? null : declaredNode(callerType, m);
+            });
+            if (caller == null) continue;
+            NodeId callee = calleeNode(s.invocation);
+            if (callee == null) continue;
+            edges.computeIfAbsent(caller, k -> new LinkedHashSet<>()).add(callee);
+        }
+    }
+
+    /**
+     * Parcours d'un type : pile des exécutables englobants (méthode, constructeur, lambda,
+     * bloc d'initialisation) ; une invocation n'est retenue que si l'exécutable le plus proche
+     * est une méthode, comme avec getParent(CtExecutable.class). Ne lit que la structure de l'arbre.
+     */
+    private static final class InvocationScanner extends CtScanner {
+        private final List<Site> sites = new ArrayList<>();
+        private final Deque<CtExecutable<?>> executables = new ArrayDeque<>();
+
+        static List<Site> sites(CtType<?> type) {
+            InvocationScanner s = new InvocationScanner();
+            s.scan(type);
+            return s.sites;
+        }
+
+        @Override
+        protected void enter(CtElement e) {
+            if (e instanceof CtExecutable<?> ex) { executables.push(ex); return; }
+            if (!(e instanceof CtInvocation<?> inv)) return;
+            if (executables.peek() instanceof CtMethod<?> callerMethod) sites.add(new Site(callerMethod, inv));
+        }
+
+        @Override
+        protected void exit(CtElement e) {
+            if (e instanceof CtExecutable<?>) executables.pop();
+        }
+    }
+
+    /** Identité d'une méthode déclarée : package, classe (ex: "Outer$Inner"), nom, signature effacée. */
+    static NodeId declaredNode(CtType<?> type, CtMethod<?> m) {
+        StringBuilder sig = new StringBuilder();
+        for (CtParameter<?> p : m.getParameters()) {
+            if (sig.length() > 0) sig.append(',');
+            sig.append(p.getType() == null ? "?" : Signatures.erasure(p.getType().toString()));
+        }
+        String pkg = packageOf(type);
+        return NodeId.of(pkg, classNameIn(type.getQualifiedName(), pkg), m.getSimpleName(), sig.toString());
+    }
+
+    /** Identité de la cible d'une invocation ; signature connue si les paramètres sont résolus. */
+    static NodeId calleeNode(CtInvocation<?> inv) {
+        CtExecutableReference<?> calleeRef = inv.getExecutable();
+        if (calleeRef == null) return null;
+
+        CtTypeReference<?> declTypeRef = calleeRef.getDeclaringType();
+        String calleeName = calleeRef.getSimpleName();
+        if (declTypeRef == null || calleeName == null) return null;
+
+        String pkg = declTypeRef.getPackage() != null ? declTypeRef.getPackage().getQualifiedName() : "";
+        String cls = classNameIn(declTypeRef.getQualifiedName(), pkg);
+        int arity = inv.getArguments().size();
+
+        List<CtTypeReference<?>> params = calleeRef.getParameters();
+        if (params == null || params.size() != arity) return NodeId.unresolved(pkg, cls, calleeName, arity);
+        StringBuilder sig = new StringBuilder();
+        for (CtTypeReference<?> p : params) {
+            if (sig.length() > 0) sig.append(',');
+            sig.append(p == null ? "?" : Signatures.erasure(p.toString()));
+        }
+        return NodeId.of(pkg, cls, calleeName, sig.toString());
+    }
+
+    private static String packageOf(CtType<?> t) {
+        return (t.getPackage() == null || t.getPackage().isUnnamedPackage()) ? "" : t.getPackage().getQualifiedName();
+    }
+
+    /** "org.example.Outer$Inner" dans "org.example" -> "Outer$Inner" ; classe anonyme "Outer$1" -> "Outer". */
+    private static String classNameIn(String qualified, String pkg) {
+        String cls = pkg.isEmpty() || !qualified.startsWith(pkg + ".") ? qualified : qualified.substring(pkg.length() + 1);
+        String folded = Signatures.sourceClassName(cls);
+        return folded == null ? cls : folded;
+    }
+
+    /** Classes déclarées dans le modèle (y compris imbriquées, hors anonymes), noms qualifiés. */
+    public static Set<String> declaredClasses(CtModel model) {
+        Set<String> out = new LinkedHashSet<>();
+        for (CtType<?> t : model.getElements(new TypeFilter<>(CtType.class))) {
+            if (Signatures.isAnonymous(t.getQualifiedName())) continue;
+            out.add(t.getQualifiedName());
+        }
+        return out;
+    }
+
+    /**
+     * Renseigne la hiérarchie d'un graphe pour {@link org.example.processing.VirtualDispatch} :
+     * supertypes directs (superclasse en tête), types instanciés et méthodes static / private.
+     */
+    public static void addHierarchy(CtModel model, CallGraph cg) {
+        for (CtType<?> t : model.getElements(new TypeFilter<>(CtType.class))) {
+            Set<String> supers = new LinkedHashSet<>();
+            if (t.getSuperclass() != null) supers.add(t.getSuperclass().getQualifiedName());
+            for (CtTypeReference<?> i : t.getSuperInterfaces()) supers.add(i.getQualifiedName());
+            if (!supers.isEmpty()) cg.supertypes.computeIfAbsent(t.getQualifiedName(), k -> new LinkedHashSet<>()).addAll(supers);
+            for (CtMethod<?> m : t.getMethods()) {
+                if (m.isStatic() || m.isPrivate()) cg.nonOverridable.add(declaredNode(t, m));
+            }
+        }
+        for (CtConstructorCall<?> c : model.getElements(new TypeFilter<>(CtConstructorCall.class))) {
+            if (c.getType() != null) cg.instantiated.add(c.getType().getQualifiedName());
+        }
+    }
+
+    /** Limite les arêtes aux classes d'un périmètre (package, glob, classes déclarées...). */
+    public static Map<NodeId, Set<NodeId>> filterToClasses(Map<NodeId, Set<NodeId>> edges,
+                                                           ClassScope scope,
+                                                           Set<String> declaredClasses) {
+        return filterToClasses(edges, scope.resolve(declaredClasses));
+    }
 
-    /** Utilitaire pour limiter aux classes "autorisées" (ex: Shape, Point, Rectangle, Circle) et virer les externes. */
-    public static Map<String, Set<String>> filterToClasses(Map<String, Set<String>> edges, Set<String> allowedClasses) {
-        Map<String, Set<String>> out = new LinkedHashMap<>();
+    /** Utilitaire pour limiter aux classes "autorisées" (noms qualifiés) et virer les externes. */
+    public static Map<NodeId, Set<NodeId>> filterToClasses(Map<NodeId, Set<NodeId>> edges, Set<String> allowedClasses) {
+        Map<NodeId, Set<NodeId>> out = new LinkedHashMap<>();
         for (var e : edges.entrySet()) {
-            String callerClass = e.getKey().substring(0, e.getKey().indexOf('#'));
+            String callerClass = e.getKey().classKey();
             if (!allowedClasses.contains(callerClass)) continue;
-            for (String callee : e.getValue()) {
-                String calleeClass = callee.substring(0, callee.indexOf('#'));
+            for (NodeId callee : e.getValue()) {
+                String calleeClass = callee.classKey();
                 if (!allowedClasses.contains(calleeClass)) continue;
                 if (callerClass.equals(calleeClass)) continue; // inter-classes uniquement
                 out.computeIfAbsent(e.getKey(), k -> new LinkedHashSet<>()).add(callee);
@@ -88,13 +256,13 @@ public class SpoonCallGraphExtractor {
     }
 
     /** Agrège les arêtes en paires de classes (non orientées) et renvoie (pair -> count, total). */
-    public static CouplingData toClassPairs(Map<String, Set<String>> edges) {
+    public static CouplingData toClassPairs(Map<NodeId, Set<NodeId>> edges) {
         Map<Pair, Integer> counts = new LinkedHashMap<>();
         int total = 0;
         for (var e : edges.entrySet()) {
-            String aClass = e.getKey().substring(0, e.getKey().indexOf('#'));
-            for (String tgt : e.getValue()) {
-                String bClass = tgt.substring(0, tgt.indexOf('#'));
+            String aClass = e.getKey().classKey();
+            for (NodeId tgt : e.getValue()) {
+                String bClass = tgt.classKey();
                 if (aClass.equals(bClass)) continue;
                 Pair p = new Pair(aClass, bClass);
                 counts.merge(p, 1, Integer::sum);
@@ -1,5 +1,7 @@
 package org.example.spoon;
 
+import org.example.model.NodeId;
+import org.example.processing.ClassScope;
 import spoon.reflect.CtModel;
 
 import java.nio.file.*;
@@ -10,12 +12,16 @@ import static org.example.spoon.SpoonCallGraphExtractor.*;
 
 public class SpoonClusteringApp {
 
+    static final String DEFAULT_SCOPE = "names:Shape,Point,Rectangle,Circle";
+
     public static void main(String[] args) throws Exception {
         Path srcRoot = detectSrcRoot(args);
         CtModel model = SpoonCallGraphExtractor.buildModel(srcRoot);
-        Map<String, Set<String>> edges = SpoonCallGraphExtractor.extractEdges(model);
+        Map<NodeId, Set<NodeId>> edges = SpoonCallGraphExtractor.extractEdges(model, Runtime.getRuntime().availableProcessors());
 
-        Set<String> allowed = new LinkedHashSet<>(List.of("Shape","Point","Rectangle","Circle"));
+        // Périmètre : 2e argument (ex: "declared", "pkg:org.example"), par défaut les 4 classes du sujet
+        ClassScope scope = ClassScope.parse(args != null && args.length > 1 ? args[1] : DEFAULT_SCOPE);
+        Set<String> allowed = scope.resolve(SpoonCallGraphExtractor.declaredClasses(model));
         edges = SpoonCallGraphExtractor.filterToClasses(edges, allowed);
 
         CouplingData cd = SpoonCallGraphExtractor.toClassPairs(edges);
@@ -1,5 +1,8 @@
 package org.example.spoon;
 
+import org.example.model.NodeId;
+import org.example.processing.ClassScope;
+
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.Files;
@@ -9,16 +12,19 @@ import static org.example.spoon.SpoonCallGraphExtractor.*;
 
 public class SpoonCouplingApp {
 
+    static final String DEFAULT_SCOPE = "names:Shape,Point,Rectangle,Circle";
+
     public static void main(String[] args) throws Exception {
         // 1) Racine des sources (auto si non fourni)
         Path srcRoot = detectSrcRoot(args);
 
         // 2) Modèle Spoon + extraction appels
         var model = SpoonCallGraphExtractor.buildModel(srcRoot);
-        Map<String, Set<String>> edges = SpoonCallGraphExtractor.extractEdges(model);
+        Map<NodeId, Set<NodeId>> edges = SpoonCallGraphExtractor.extractEdges(model, Runtime.getRuntime().availableProcessors());
 
-        // 3) On restreint aux 4 classes du sujet (modifie si tu veux élargir)
-        Set<String> allowed = new LinkedHashSet<>(List.of("Shape","Point","Rectangle","Circle"));
+        // 3) On restreint au périmètre (2e argument, par défaut les 4 classes du sujet)
+        ClassScope scope = ClassScope.parse(args != null && args.length > 1 ? args[1] : DEFAULT_SCOPE);
+        Set<String> allowed = scope.resolve(SpoonCallGraphExtractor.declaredClasses(model));
         edges = SpoonCallGraphExtractor.filterToClasses(edges, allowed);
 
         // 4) Couplage (paires non orientées)
@@ -1,83 +1,289 @@
 package org.example.visitor;
 
 import org.eclipse.jdt.core.dom.*;
+import org.example.model.NodeId;
+
 import java.util.*;
 
-public class CallGraphVisitor extends ASTVisitor {
-    private String currentClass = null;
-    private String currentMethod = null;
+/**
+ * Extraction des appels d'une unité de compilation, en un seul parcours.
+ *
+ * Types : voir {@link ScopedVisitor} (classes, enums, records, annotations ; "Outer$Inner").
+ * Appelant : la méthode (ou le constructeur) qui contient l'appel ; le code des initialiseurs
+ * (champs, blocs d'initialisation) est rattaché à une méthode synthétique "&lt;init&gt;" (instance)
+ * ou "&lt;clinit&gt;" (static, arguments des constantes d'enum compris) de la classe, créée au premier appel. Le corps d'une lambda appartient à
+ * la méthode qui la contient ; de même, les méthodes et initialiseurs d'une classe anonyme ne sont
+ * pas des nœuds déclarés : leurs appels sont attribués à l'appelant englobant (méthode ou
+ * initialiseur qui contient le "new X() {...}"), ce qui évite de confondre un run() anonyme avec un
+ * Outer#run() réel ou d'inventer une redéfinition dans Outer pour la répartition virtuelle.
+ *
+ * Cibles (non résolues, voir CallGraph.link) : invocations de méthodes, constructeurs
+ * (new X(...), this(...), super(...)) et références de méthode (x::m, Type::m, super::m, X::new),
+ * dont l'arité est inconnue (-1 : toutes les surcharges).
+ */
+public class CallGraphVisitor extends ScopedVisitor {
+
+    /** Portée d'un type en cours de visite : champs et appelants (les classes anonymes ont la leur). */
+    private static final class TypeScope {
+        final String name;
+        final String superName;                                 // superclasse (nom simple), null si aucune
+        final Map<String,String> fieldTypes = new HashMap<>();  // varName -> TypeName (ex: "center" -> "Point")
+        final int callerDepth;                                  // hauteur de la pile d'appelants à l'entrée
+
+        TypeScope(String name, String superName, int callerDepth) {
+            this.name = name;
+            this.superName = superName;
+            this.callerDepth = callerDepth;
+        }
+    }
+
+    private static final int UNKNOWN_ARITY = -1;
+
+    private final ArrayDeque<TypeScope> types = new ArrayDeque<>();
+    private final ArrayDeque<NodeId> callers = new ArrayDeque<>();   // méthodes et initialiseurs englobants
+
+    // imports simples : "Point" -> "org.example.codebase"
+    private final Map<String,String> imports = new HashMap<>();
 
-    // varName -> TypeName  (ex: "center" -> "Point")
-    private final Map<String,String> fieldTypes = new HashMap<>();
+    // edges: méthode appelante -> méthodes appelées (cibles non résolues, voir CallGraph.link)
+    public final Map<NodeId,Set<NodeId>> edges = new HashMap<>();
 
-    // edges: "Class#method" -> set("TargetClass#targetMethod")
-    public final Map<String,Set<String>> edges = new HashMap<>();
+    // classes déclarées dans le fichier (noms qualifiés)
+    public final Set<String> declaredClasses = new LinkedHashSet<>();
 
-    private String key(String cls, String mth) { return cls + "#" + mth; }
+    // hiérarchie pour la répartition virtuelle (VirtualDispatch) : classe -> supertypes directs,
+    // classes instanciées (new X(...)), méthodes non redéfinissables (static, private, constructeurs).
+    // Noms présumés : import explicite, sinon package courant (voir TypeHierarchy pour la résolution).
+    public final Map<String,Set<String>> supertypes = new LinkedHashMap<>();
+    public final Set<String> instantiated = new LinkedHashSet<>();
+    public final Set<NodeId> nonOverridable = new LinkedHashSet<>();
 
-    @Override public boolean visit(TypeDeclaration node) {
-        currentClass = node.getName().getIdentifier();
-        fieldTypes.clear();
+    @Override public boolean visit(ImportDeclaration node) {
+        if (!node.isStatic() && !node.isOnDemand()) {
+            String fqn = node.getName().getFullyQualifiedName();
+            int dot = fqn.lastIndexOf('.');
+            if (dot > 0) imports.put(fqn.substring(dot + 1), fqn.substring(0, dot));
+        }
+        return false;
+    }
+
+    // ---------- portées : types ----------
+
+    @Override protected boolean enterType(AbstractTypeDeclaration node) {
+        String qualified = qualifiedType();
+        declaredClasses.add(qualified);
+        Type superclass = superclassOf(node);
+        Set<String> supers = new LinkedHashSet<>();
+        if (superclass != null) supers.add(qualify(superclass));   // superclasse en tête
+        for (Type t : interfacesOf(node)) supers.add(qualify(t));
+        if (!supers.isEmpty()) supertypes.computeIfAbsent(qualified, __ -> new LinkedHashSet<>()).addAll(supers);
+        String superName = superclass == null ? null : Signatures.erasure(superclass.toString());
+        types.push(new TypeScope(currentType(), superName, callers.size()));
         return true;
     }
-    @Override public void endVisit(TypeDeclaration node) {
-        currentClass = null;
-        fieldTypes.clear();
+    @Override protected void exitType(AbstractTypeDeclaration node) {
+        types.pop();
     }
 
+    @Override protected boolean enterAnonymous(AnonymousClassDeclaration node) {
+        String superName = node.getParent() instanceof ClassInstanceCreation c ? Signatures.erasure(c.getType().toString()) : null;
+        types.push(new TypeScope(currentType(), superName, callers.size()));
+        return true;
+    }
+    @Override protected void exitAnonymous(AnonymousClassDeclaration node) {
+        types.pop();
+    }
+
+    // ---------- portées : appelants ----------
+
     @Override public boolean visit(FieldDeclaration node) {
-        String type = node.getType().toString(); // ex: Point
+        TypeScope scope = types.peek();
+        if (scope == null) return false;
+        String type = Signatures.erasure(node.getType().toString()); // ex: Point
         @SuppressWarnings("unchecked")
         List<VariableDeclarationFragment> frags = node.fragments();
-        for (var f : frags) fieldTypes.put(f.getName().getIdentifier(), type);
+        for (var f : frags) scope.fieldTypes.put(f.getName().getIdentifier(), type);
+        callers.push(inAnonymous() ? enclosingCaller() : initializer(scope, Modifier.isStatic(node.getModifiers())));
         return true;
     }
+    @Override public void endVisit(FieldDeclaration node) {
+        if (!types.isEmpty()) callers.pop();
+    }
+
+    @Override public boolean visit(Initializer node) {
+        TypeScope scope = types.peek();
+        if (scope == null) return false;
+        callers.push(inAnonymous() ? enclosingCaller() : initializer(scope, Modifier.isStatic(node.getModifiers())));
+        return true;
+    }
+    @Override public void endVisit(Initializer node) {
+        if (!types.isEmpty()) callers.pop();
+    }
+
+    @Override public boolean visit(EnumConstantDeclaration node) {
+        TypeScope scope = types.peek();
+        if (scope == null) return false;
+        callers.push(initializer(scope, true));
+        return true;
+    }
+    @Override public void endVisit(EnumConstantDeclaration node) {
+        if (!types.isEmpty()) callers.pop();
+    }
 
     @Override public boolean visit(MethodDeclaration node) {
-        currentMethod = node.getName().getIdentifier();
-        edges.computeIfAbsent(key(currentClass, currentMethod), __ -> new LinkedHashSet<>());
+        TypeScope scope = types.peek();
+        if (scope == null) return false;
+        if (inAnonymous()) {
+            callers.push(enclosingCaller());   // comme une lambda : pas de nœud propre
+            return true;
+        }
+        NodeId method = Signatures.declared(packageName, scope.name, node);
+        edges.computeIfAbsent(method, __ -> new LinkedHashSet<>());
+        int mods = node.getModifiers();
+        if (node.isConstructor() || Modifier.isStatic(mods) || Modifier.isPrivate(mods)) nonOverridable.add(method);
+        callers.push(method);
         return true;
     }
     @Override public void endVisit(MethodDeclaration node) {
-        // Réinitialise la méthode courante à la fin de la visite
-        currentMethod = null;
+        if (!types.isEmpty()) callers.pop();
     }
 
-    @Override public boolean visit(MethodInvocation node) {
-        // Ignore les appels hors d'une méthode (cas anormal)
-        if (currentClass == null || currentMethod == null) return true;
+    /** Méthode synthétique portant le code des initialiseurs (déclarée seulement si elle appelle). */
+    private NodeId initializer(TypeScope scope, boolean isStatic) {
+        return NodeId.of(packageName, scope.name, isStatic ? "<clinit>" : "<init>", "");
+    }
+
+    /**
+     * Appelant qui contient la classe anonyme courante (empilé à nouveau pour ses membres). Une
+     * classe anonyme est toujours créée dans un corps ; sinon, initialiseur d'instance du type.
+     */
+    private NodeId enclosingCaller() {
+        return callers.isEmpty() ? initializer(types.peek(), false) : callers.peek();
+    }
+
+    /** Appelant courant ; null hors de tout corps (ex: arguments d'annotation). */
+    private NodeId caller() {
+        TypeScope scope = types.peek();
+        if (scope == null || callers.size() <= scope.callerDepth) return null;
+        return callers.peek();
+    }
 
+    private void addCall(NodeId target) {
+        NodeId caller = caller();
+        if (caller != null) edges.computeIfAbsent(caller, __ -> new LinkedHashSet<>()).add(target);
+    }
+
+    // ---------- appels ----------
+
+    @Override public boolean visit(MethodInvocation node) {
+        if (caller() == null) return true;
         String targetClass = resolveTargetClass(node.getExpression());
-        String targetMethod = node.getName().getIdentifier();
-        edges.computeIfAbsent(key(currentClass, currentMethod), __ -> new LinkedHashSet<>())
-                .add(key(targetClass, targetMethod));
+        addCall(NodeId.unresolved(packageOf(targetClass), targetClass,
+                node.getName().getIdentifier(), node.arguments().size()));
         return true;
     }
 
     @Override public boolean visit(SuperMethodInvocation node) {
-        if (currentClass == null || currentMethod == null) return true;
-        String targetMethod = node.getName().getIdentifier();
-        edges.computeIfAbsent(key(currentClass, currentMethod), __ -> new LinkedHashSet<>())
-                .add(key(currentClass, "super."+targetMethod));
+        if (caller() == null) return true;
+        addCall(NodeId.unresolved(packageName, types.peek().name,
+                "super." + node.getName().getIdentifier(), node.arguments().size()));
         return true;
     }
 
+    @Override public boolean visit(ClassInstanceCreation node) {
+        instantiated.add(qualify(node.getType()));
+        if (caller() != null) addCall(constructor(Signatures.erasure(node.getType().toString()), node.arguments().size()));
+        return true;
+    }
+
+    @Override public boolean visit(ConstructorInvocation node) {
+        if (caller() != null) addCall(constructor(types.peek().name, node.arguments().size()));
+        return true;
+    }
+
+    @Override public boolean visit(SuperConstructorInvocation node) {
+        TypeScope scope = types.peek();
+        if (caller() != null && scope.superName != null) addCall(constructor(scope.superName, node.arguments().size()));
+        return true;
+    }
+
+    @Override public boolean visit(ExpressionMethodReference node) {
+        if (caller() == null) return true;
+        String targetClass = referenceTargetClass(node.getExpression());
+        addCall(NodeId.unresolved(packageOf(targetClass), targetClass, node.getName().getIdentifier(), UNKNOWN_ARITY));
+        return true;
+    }
+
+    @Override public boolean visit(TypeMethodReference node) {
+        if (caller() == null) return true;
+        String targetClass = Signatures.erasure(node.getType().toString());
+        addCall(NodeId.unresolved(packageOf(targetClass), targetClass, node.getName().getIdentifier(), UNKNOWN_ARITY));
+        return true;
+    }
+
+    @Override public boolean visit(SuperMethodReference node) {
+        if (caller() == null) return true;
+        addCall(NodeId.unresolved(packageName, types.peek().name, "super." + node.getName().getIdentifier(), UNKNOWN_ARITY));
+        return true;
+    }
+
+    @Override public boolean visit(CreationReference node) {
+        if (caller() != null) addCall(constructor(Signatures.erasure(node.getType().toString()), UNKNOWN_ARITY));
+        return true;
+    }
+
+    /** Constructeur de {@code cls}, même convention que les méthodes déclarées (Outer$Inner#Inner). */
+    private NodeId constructor(String cls, int arity) {
+        return NodeId.unresolved(packageOf(cls), cls, Signatures.innerName(cls), arity);
+    }
+
+    /** Nom qualifié présumé d'un type : import explicite, sinon package courant. */
+    private String qualify(Type type) {
+        String cls = Signatures.erasure(type.toString());
+        String imported = imports.get(cls);
+        if (imported != null) return imported + "." + cls;
+        return packageName.isEmpty() ? cls : packageName + "." + cls;
+    }
+
+    /** Package présumé d'une classe cible : import explicite, sinon package courant, sinon inconnu (""). */
+    private String packageOf(String cls) {
+        if ("<external>".equals(cls)) return "";
+        String imported = imports.get(cls);
+        if (imported != null) return imported;
+        for (TypeScope t : types) {
+            if (cls.equals(t.name) || cls.equals(Signatures.innerName(t.name))) return packageName;
+        }
+        return "";
+    }
+
+    /** Type d'un champ visible depuis la portée courante (types englobants compris). */
+    private String fieldType(String name) {
+        for (TypeScope t : types) {
+            String type = t.fieldTypes.get(name);
+            if (type != null) return type;
+        }
+        return null;
+    }
+
     private String resolveTargetClass(Expression expr) {
+        String currentClass = types.peek().name;
         if (expr == null) return currentClass;                // appel interne
         if (expr instanceof ThisExpression) return currentClass;
-        if (expr instanceof SimpleName sn) {
-            String name = sn.getIdentifier();                 // ex: center
-            return fieldTypes.getOrDefault(name, "<external>");
-        }
-        if (expr instanceof FieldAccess fa) {
-            String name = fa.getName().getIdentifier();       // ex: this.center  (-> "center")
-            return fieldTypes.getOrDefault(name, "<external>");
-        }
-        if (expr instanceof QualifiedName qn) {
-            String left = qn.getQualifier().getFullyQualifiedName(); // ex: obj.m (-> "obj")
-            return fieldTypes.getOrDefault(left, "<external>");
+        String field = null;
+        if (expr instanceof SimpleName sn) field = sn.getIdentifier();              // ex: center
+        else if (expr instanceof FieldAccess fa) field = fa.getName().getIdentifier();   // ex: this.center (-> "center")
+        else if (expr instanceof QualifiedName qn) field = qn.getQualifier().getFullyQualifiedName(); // ex: obj.m (-> "obj")
+        String type = field == null ? null : fieldType(field);
+        return type != null ? type : "<external>";
+    }
+
+    /** Comme {@link #resolveTargetClass}, mais "Point::getX" désigne le type Point (nom en majuscule). */
+    private String referenceTargetClass(Expression expr) {
+        String target = resolveTargetClass(expr);
+        if (target.equals("<external>") && expr instanceof Name n) {
+            String last = n instanceof QualifiedName qn ? qn.getName().getIdentifier() : n.getFullyQualifiedName();
+            if (!last.isEmpty() && Character.isUpperCase(last.charAt(0))) return last;
         }
-        return "<external>";
+        return target;
     }
 }
-
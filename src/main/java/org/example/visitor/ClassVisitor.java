@@ -1,48 +1,189 @@
 package org.example.visitor;
 
 import org.eclipse.jdt.core.dom.*;
+import org.example.model.NodeId;
+
 import java.util.*;
 
 //Compter le nombre de classes dans le fichier
 //Enregistrer combien de méthodes et d’attributs chaque classe possède
+//Relever, pour les métriques de classe (LCOM4, CBO, RFC, DIT, NOC), la super-classe, les types
+//des attributs et les attributs utilisés par chaque méthode (un bit par attribut)
 
 //Ce visiteur permet de savoir combien de classes, méthodes, et attributs existent, par classe.
-public class ClassVisitor extends ASTVisitor {
+//Tous les types sont comptés (classes, interfaces, enums, records, annotations), imbriqués compris ("Outer$Inner").
+public class ClassVisitor extends ScopedVisitor {
     public int classCount = 0;
+    // clés = noms qualifiés (ex: "org.example.codebase.Point", "org.example.Outer$Inner")
     public final Map<String, Integer> methodsPerClass = new HashMap<>();
     public final Map<String, Integer> fieldsPerClass  = new HashMap<>();
+    public final List<ClassInfo> classInfos = new ArrayList<>();
+
+    /** Structure d'une classe déclarée, utilisée par processing.ClassMetrics. */
+    public static final class ClassInfo {
+        public final String name;                                      // nom qualifié
+        public String superClass;                                      // nom présumé (qualifié si possible), null si pas d'extends
+        public final List<String> fields = new ArrayList<>();          // index = bit dans fieldUse
+        public final List<String> fieldTypes = new ArrayList<>();      // types effacés des attributs (ex: "Point")
+        public final List<NodeId> methods = new ArrayList<>();         // toutes les méthodes et constructeurs
+        public final Map<NodeId, BitSet> fieldUse = new LinkedHashMap<>(); // méthodes à corps, hors constructeurs
+        final Map<String, Integer> fieldIndex = new HashMap<>();
+
+        public ClassInfo(String name) { this.name = name; }
 
-    private String currentClass = null;
+        /** Déclare un attribut (son bit est sa position dans {@link #fields}). */
+        public void addField(String field, String type) {
+            fieldIndex.putIfAbsent(field, fields.size());
+            fields.add(field);
+            fieldTypes.add(type);
+        }
+    }
+
+    /** Méthode en cours : attributs utilisés et noms locaux (paramètres, variables) qui les masquent. */
+    private static final class MethodFrame {
+        final BitSet used;
+        final Set<String> locals = new HashSet<>();
+        MethodFrame(BitSet used) { this.used = used; }
+    }
+
+    private final Map<String, String> imports = new HashMap<>();
+    private final Deque<ClassInfo> classes = new ArrayDeque<>();
+    private final Deque<MethodFrame> methods = new ArrayDeque<>();
 
     @Override
-    public boolean visit(TypeDeclaration node) {
-        currentClass = node.getName().getIdentifier();
+    public boolean visit(ImportDeclaration node) {
+        if (!node.isStatic() && !node.isOnDemand()) {
+            String fqn = node.getName().getFullyQualifiedName();
+            int dot = fqn.lastIndexOf('.');
+            if (dot > 0) imports.put(fqn.substring(dot + 1), fqn);
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean enterType(AbstractTypeDeclaration node) {
+        String qualified = qualifiedType();
         classCount++;
-        methodsPerClass.putIfAbsent(currentClass, 0);
-        fieldsPerClass.putIfAbsent(currentClass, 0);
+        methodsPerClass.putIfAbsent(qualified, 0);
+        fieldsPerClass.putIfAbsent(qualified, 0);
+
+        ClassInfo info = new ClassInfo(qualified);
+        Type superclass = superclassOf(node);
+        if (superclass != null) info.superClass = qualify(Signatures.erasure(superclass.toString()));
+        if (node instanceof RecordDeclaration rd) {
+            // composants d'un record : attributs implicites (cohésion, couplage)
+            for (Object o : rd.recordComponents()) {
+                SingleVariableDeclaration c = (SingleVariableDeclaration) o;
+                info.addField(c.getName().getIdentifier(), Signatures.erasure(c.getType().toString()));
+            }
+        }
+        classInfos.add(info);
+        classes.push(info);
+        // initialiseurs du type : accès hors méthode, non comptés (et isolés d'une méthode englobante)
+        methods.push(new MethodFrame(new BitSet()));
         return true;
     }
 
     @Override
-    public void endVisit(TypeDeclaration node) {
-        currentClass = null;
+    protected void exitType(AbstractTypeDeclaration node) {
+        methods.pop();
+        classes.pop();
     }
 
     @Override
     public boolean visit(MethodDeclaration node) {
-        if (currentClass != null) {
-            methodsPerClass.merge(currentClass, 1, Integer::sum);
+        // méthode d'une classe anonyme : ni comptée pour le type englobant, ni dans son ClassInfo
+        String owner = qualifiedType();
+        if (owner != null && !inAnonymous()) {
+            methodsPerClass.merge(owner, 1, Integer::sum);
         }
+        ClassInfo info = classes.peek();
+        if (info == null || inAnonymous()) {
+            // méthode d'une classe anonyme : ses accès comptent pour la méthode englobante
+            methods.push(methods.isEmpty() ? new MethodFrame(new BitSet()) : methods.peek());
+            return true;
+        }
+        NodeId id = Signatures.declared(packageName, currentType(), node);
+        info.methods.add(id);
+        BitSet used = new BitSet();
+        if (node.getBody() != null && !node.isConstructor()) info.fieldUse.put(id, used);
+        methods.push(new MethodFrame(used));
         return true;
     }
 
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        methods.pop();
+    }
+
     @Override
     public boolean visit(FieldDeclaration node) {
-        if (currentClass != null) {
-            int varCount = node.fragments().size(); // int a,b,c; -> 3
-            fieldsPerClass.merge(currentClass, varCount, Integer::sum);
+        ClassInfo info = classes.peek();
+        String type = Signatures.erasure(node.getType().toString());
+        @SuppressWarnings("unchecked")
+        List<VariableDeclarationFragment> frags = node.fragments();
+        String owner = qualifiedType();
+        if (owner != null && !inAnonymous()) {
+            int varCount = frags.size(); // int a,b,c; -> 3
+            fieldsPerClass.merge(owner, varCount, Integer::sum);
+        }
+        if (info != null && !inAnonymous()) {
+            for (var f : frags) info.addField(f.getName().getIdentifier(), type);
         }
         return true;
     }
-}
 
+    // ---------- usage des attributs dans les méthodes ----------
+
+    @Override
+    public boolean visit(SingleVariableDeclaration node) {
+        if (!methods.isEmpty()) methods.peek().locals.add(node.getName().getIdentifier());
+        return true;
+    }
+
+    @Override
+    public boolean visit(VariableDeclarationFragment node) {
+        // les fragments d'un FieldDeclaration ne sont pas des variables locales
+        if (!methods.isEmpty() && !(node.getParent() instanceof FieldDeclaration)) {
+            methods.peek().locals.add(node.getName().getIdentifier());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean visit(FieldAccess node) {
+        // this.x : toujours l'attribut, même masqué par un paramètre
+        if (node.getExpression() instanceof ThisExpression) markField(node.getName().getIdentifier(), true);
+        return true;
+    }
+
+    @Override
+    public boolean visit(SimpleName node) {
+        if (methods.isEmpty() || node.isDeclaration()) return false;
+        ASTNode parent = node.getParent();
+        if (parent instanceof FieldAccess) return false;                                   // traité ci-dessus
+        if (parent instanceof QualifiedName qn && qn.getName() == node) return false;      // obj.x : attribut d'un autre objet
+        if (parent instanceof MethodInvocation mi && mi.getName() == node) return false;   // nom de méthode
+        markField(node.getIdentifier(), false);
+        return false;
+    }
+
+    /** Approximation sans bindings : les noms locaux masquent l'attribut sur toute la méthode. */
+    private void markField(String name, boolean explicitThis) {
+        ClassInfo info = classes.peek();
+        MethodFrame frame = methods.peek();
+        if (info == null || frame == null) return;
+        Integer bit = info.fieldIndex.get(name);
+        if (bit == null) return;
+        if (!explicitThis && frame.locals.contains(name)) return;
+        frame.used.set(bit);
+    }
+
+    /** Nom présumé d'un type : déjà qualifié, importé, sinon dans le package courant. */
+    private String qualify(String type) {
+        if (type.indexOf('.') >= 0) return type;
+        String imported = imports.get(type);
+        if (imported != null) return imported;
+        return packageName.isEmpty() ? type : packageName + "." + type;
+    }
+}
@@ -1,21 +1,45 @@
 package org.example.visitor;
 
 import org.eclipse.jdt.core.dom.*;
+import org.example.model.NodeId;
+
 import java.util.*;
 
 //Compter le nombre total de méthodes
 //→ Trouver la méthode ayant le plus de paramètres
 //→ Calculer la taille (nombre de lignes) de chaque méthode
-public class MethodVisitor extends ASTVisitor {
+//→ Complexité cyclomatique, profondeur d'imbrication et nombre de sites d'appel (même parcours)
+public class MethodVisitor extends ScopedVisitor {
     private final String source;
     public int totalMethods = 0;
     public int maxParams = 0;
-    public final Map<String, Integer> methodLoc = new HashMap<>(); // key: Class#method
+    public final Map<NodeId, Integer> methodLoc = new HashMap<>();    // key: identité qualifiée (surcharges distinctes)
+    public final Map<NodeId, Integer> paramsPerMethod = new HashMap<>();
+    public final Map<NodeId, Integer> cyclomatic = new HashMap<>();   // 1 + points de décision
+    public final Map<NodeId, Integer> maxNesting = new HashMap<>();   // imbrication max des structures de contrôle
+    public final Map<NodeId, Integer> callSites = new HashMap<>();    // appels de méthode / constructeur
+
+    /**
+     * Méthode en cours (pile : les méthodes de classes locales ont leurs propres compteurs). Une
+     * méthode de classe anonyme n'est pas une entrée à part : comme une lambda, son corps compte
+     * pour la méthode englobante (même cadre), sans écraser une méthode homonyme du type englobant.
+     */
+    private static final class Frame {
+        final NodeId key;
+        int cc = 1, depth = 0, maxDepth = 0, calls = 0;
+        Frame(NodeId key) { this.key = key; }
+    }
+    private final Deque<Frame> frames = new ArrayDeque<>();
 
     public MethodVisitor(String source) { this.source = source; }
 
     @Override
     public boolean visit(MethodDeclaration node) {
+        if (inAnonymous()) {
+            // initialiseur de champ (pas de méthode englobante) : cadre jetable
+            frames.push(frames.isEmpty() ? new Frame(null) : frames.peek());
+            return true;
+        }
         totalMethods++;
 
         // max paramètres
@@ -28,13 +52,78 @@ public class MethodVisitor extends ASTVisitor {
         String snippet = source.substring(start, start + len);
         int loc = (int) snippet.lines().count();
 
-        String owner = (node.getParent() instanceof TypeDeclaration)
-                ? ((TypeDeclaration) node.getParent()).getName().getIdentifier()
-                : "<unknown>";
-        String key = owner + "#" + node.getName().getIdentifier();
+        // type englobant ("Outer$Inner")
+        NodeId key = Signatures.declared(packageName, currentType(), node);
 
         methodLoc.put(key, loc);
+        paramsPerMethod.put(key, params);
+        frames.push(new Frame(key));
+        return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        Frame f = frames.pop();
+        if (inAnonymous()) return;   // compté dans la méthode englobante
+        cyclomatic.put(f.key, f.cc);
+        maxNesting.put(f.key, f.maxDepth);
+        callSites.put(f.key, f.calls);
+    }
+
+    // ---------- points de décision (+1) et imbrication ----------
+
+    @Override
+    public boolean visit(IfStatement node) {
+        decision(1);
+        // "else if" reste au niveau du if qui le porte
+        boolean elseIf = node.getParent() instanceof IfStatement p && p.getElseStatement() == node;
+        if (!elseIf) enter();
         return true;
     }
-}
 
+    @Override
+    public void endVisit(IfStatement node) {
+        boolean elseIf = node.getParent() instanceof IfStatement p && p.getElseStatement() == node;
+        if (!elseIf) exit();
+    }
+
+    @Override public boolean visit(ForStatement node)         { decision(1); enter(); return true; }
+    @Override public void endVisit(ForStatement node)         { exit(); }
+    @Override public boolean visit(EnhancedForStatement node) { decision(1); enter(); return true; }
+    @Override public void endVisit(EnhancedForStatement node) { exit(); }
+    @Override public boolean visit(WhileStatement node)       { decision(1); enter(); return true; }
+    @Override public void endVisit(WhileStatement node)       { exit(); }
+    @Override public boolean visit(DoStatement node)          { decision(1); enter(); return true; }
+    @Override public void endVisit(DoStatement node)          { exit(); }
+    @Override public boolean visit(SwitchStatement node)      { enter(); return true; }
+    @Override public void endVisit(SwitchStatement node)      { exit(); }
+    @Override public boolean visit(TryStatement node)         { enter(); return true; }
+    @Override public void endVisit(TryStatement node)         { exit(); }
+
+    @Override public boolean visit(SwitchCase node)            { if (!node.isDefault()) decision(1); return true; }
+    @Override public boolean visit(CatchClause node)           { decision(1); return true; }
+    @Override public boolean visit(ConditionalExpression node) { decision(1); return true; }
+
+    @Override
+    public boolean visit(InfixExpression node) {
+        InfixExpression.Operator op = node.getOperator();
+        if (op == InfixExpression.Operator.CONDITIONAL_AND || op == InfixExpression.Operator.CONDITIONAL_OR) {
+            decision(1 + node.extendedOperands().size());   // a && b && c : 2 décisions
+        }
+        return true;
+    }
+
+    // ---------- sites d'appel ----------
+
+    @Override public boolean visit(MethodInvocation node)           { call(); return true; }
+    @Override public boolean visit(SuperMethodInvocation node)      { call(); return true; }
+    @Override public boolean visit(ClassInstanceCreation node)      { call(); return true; }
+    @Override public boolean visit(ConstructorInvocation node)      { call(); return true; }
+    @Override public boolean visit(SuperConstructorInvocation node) { call(); return true; }
+
+    // hors méthode (initialiseurs de champs, blocs static) : rien n'est compté
+    private void decision(int n) { Frame f = frames.peek(); if (f != null) f.cc += n; }
+    private void call()          { Frame f = frames.peek(); if (f != null) f.calls++; }
+    private void enter()         { Frame f = frames.peek(); if (f != null) f.maxDepth = Math.max(f.maxDepth, ++f.depth); }
+    private void exit()          { Frame f = frames.peek(); if (f != null) f.depth--; }
+}
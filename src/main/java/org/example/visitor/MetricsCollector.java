@@ -1,6 +1,9 @@
 package org.example.visitor;
 
 import org.eclipse.jdt.core.dom.*;
+import org.example.instrumentation.Instrumentation;
+import org.example.model.NodeId;
+
 import java.util.*;
 
 //Centraliser les résultats des trois visiteurs ci-dessuss
@@ -12,11 +15,15 @@ public class MetricsCollector {
         public int classes;
         public int methods;
         public int fields;
-        public Map<String,Integer> methodsPerClass = new HashMap<>();
-        public Map<String,Integer> fieldsPerClass  = new HashMap<>();
-        public Map<String,Integer> methodLoc       = new HashMap<>(); // Class#method -> LOC
-        public Map<String,Integer> paramsPerMethod = new HashMap<>(); // Class#method -> #params
+        public Map<String,Integer> methodsPerClass = new HashMap<>(); // classe qualifiée -> #méthodes
+        public Map<String,Integer> fieldsPerClass  = new HashMap<>(); // classe qualifiée -> #attributs
+        public Map<NodeId,Integer> methodLoc       = new HashMap<>(); // méthode -> LOC
+        public Map<NodeId,Integer> paramsPerMethod = new HashMap<>(); // méthode -> #params
+        public Map<NodeId,Integer> cyclomatic      = new HashMap<>(); // méthode -> complexité cyclomatique
+        public Map<NodeId,Integer> maxNesting      = new HashMap<>(); // méthode -> imbrication max
+        public Map<NodeId,Integer> callSites       = new HashMap<>(); // méthode -> #sites d'appel
         public int maxParamsInFile = 0;
+        public List<ClassVisitor.ClassInfo> classInfos = new ArrayList<>(); // structure des classes (LCOM4, CBO, RFC...)
     }
 
     private static int countNonEmptyLoc(String source) {
@@ -29,6 +36,7 @@ public class MetricsCollector {
     }
 
     public static FileMetrics collect(CompilationUnit cu, String source, String fileName) {
+        long t0 = Instrumentation.start();
         ClassVisitor  cv = new ClassVisitor();
         FieldVisitor  fv = new FieldVisitor();
         MethodVisitor mv = new MethodVisitor(source);
@@ -50,11 +58,18 @@ public class MetricsCollector {
 
         fm.methodsPerClass.putAll(cv.methodsPerClass);
         fm.fieldsPerClass.putAll(cv.fieldsPerClass);
+        fm.classInfos.addAll(cv.classInfos);
         fm.methodLoc.putAll(mv.methodLoc);
         fm.maxParamsInFile = mv.maxParams;
 
-        // (optionnel) stocker nb params par méthode
-        mv.methodLoc.forEach((k, v) -> {}); // rien à faire ici, déjà calculé dans mv
+        // nb params par méthode
+        fm.paramsPerMethod.putAll(mv.paramsPerMethod);
+
+        // complexité (calculée par MethodVisitor dans son parcours)
+        fm.cyclomatic.putAll(mv.cyclomatic);
+        fm.maxNesting.putAll(mv.maxNesting);
+        fm.callSites.putAll(mv.callSites);
+        Instrumentation.stop(Instrumentation.Stage.METRICS, t0);
         return fm;
     }
 }
\ No newline at end of file
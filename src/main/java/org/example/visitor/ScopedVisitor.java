@@ -0,0 +1,150 @@
+package org.example.visitor;
+
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base commune des visiteurs : package courant et pile des types englobants.
+ *
+ * Tous les types sont suivis (classes, interfaces, enums, records, annotations) et nommés comme
+ * dans le bytecode, sans le package : "Outer", "Outer$Inner", "Outer$1Local" pour une classe locale
+ * (numéro de javac : premier indice libre pour ce nom dans la classe englobante). Une classe anonyme
+ * est rattachée au type englobant (même nom, "Outer$1" -> Outer) pour le graphe d'appel ;
+ * {@link #inAnonymous()} permet de la distinguer : les métriques par méthode et par classe ne
+ * comptent pas ses méthodes pour le type englobant.
+ *
+ * Les sous-classes n'implémentent pas visit/endVisit des déclarations de type mais les points
+ * d'extension {@link #enterType}, {@link #exitType}, {@link #enterAnonymous}, {@link #exitAnonymous}
+ * (appelés après l'empilement / avant le dépilement). La pile est un tableau : une entrée par type
+ * imbriqué, sans allocation par nœud visité.
+ */
+public abstract class ScopedVisitor extends ASTVisitor {
+
+    protected String packageName = "";
+
+    private String[] names = new String[8];        // noms binaires sans package
+    private boolean[] anonymous = new boolean[8];
+    private int depth = 0;
+    private Map<String, Integer> localNames;       // classes locales déjà numérotées (créé au besoin)
+
+    @Override public boolean visit(PackageDeclaration node) {
+        packageName = node.getName().getFullyQualifiedName();
+        return false;
+    }
+
+    // ---------- pile des types ----------
+
+    @Override public final boolean visit(TypeDeclaration node)           { return push(node); }
+    @Override public final void endVisit(TypeDeclaration node)           { pop(node); }
+    @Override public final boolean visit(EnumDeclaration node)           { return push(node); }
+    @Override public final void endVisit(EnumDeclaration node)           { pop(node); }
+    @Override public final boolean visit(RecordDeclaration node)         { return push(node); }
+    @Override public final void endVisit(RecordDeclaration node)         { pop(node); }
+    @Override public final boolean visit(AnnotationTypeDeclaration node) { return push(node); }
+    @Override public final void endVisit(AnnotationTypeDeclaration node) { pop(node); }
+
+    @Override public final boolean visit(AnonymousClassDeclaration node) {
+        if (depth == 0) return false;                 // hors de tout type (cas anormal)
+        ensureCapacity();
+        names[depth] = names[depth - 1];
+        anonymous[depth] = true;
+        depth++;
+        return enterAnonymous(node);
+    }
+    @Override public final void endVisit(AnonymousClassDeclaration node) {
+        if (depth == 0 || !anonymous[depth - 1]) return;
+        exitAnonymous(node);
+        depth--;
+    }
+
+    private boolean push(AbstractTypeDeclaration node) {
+        String simple = node.getName().getIdentifier();
+        String name;
+        if (depth == 0) {
+            name = simple;
+        } else if (node.getParent() instanceof TypeDeclarationStatement) {
+            // classe locale : Outer$1Local, Outer$2Local pour un homonyme dans la même classe
+            if (localNames == null) localNames = new HashMap<>();
+            String prefix = names[depth - 1] + "$";
+            int n = localNames.merge(prefix + simple, 1, Integer::sum);
+            name = prefix + n + simple;
+        } else {
+            name = names[depth - 1] + "$" + simple;
+        }
+        ensureCapacity();
+        names[depth] = name;
+        anonymous[depth] = false;
+        depth++;
+        return enterType(node);
+    }
+
+    private void pop(AbstractTypeDeclaration node) {
+        exitType(node);
+        depth--;
+    }
+
+    private void ensureCapacity() {
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            anonymous = Arrays.copyOf(anonymous, depth * 2);
+        }
+    }
+
+    // ---------- points d'extension ----------
+
+    /** Entrée dans un type déclaré ({@link #currentType()} est déjà le sien) ; false = ne pas visiter son contenu. */
+    protected boolean enterType(AbstractTypeDeclaration node) { return true; }
+
+    /** Sortie d'un type déclaré ({@link #currentType()} est encore le sien). */
+    protected void exitType(AbstractTypeDeclaration node) {}
+
+    protected boolean enterAnonymous(AnonymousClassDeclaration node) { return true; }
+
+    protected void exitAnonymous(AnonymousClassDeclaration node) {}
+
+    // ---------- accès ----------
+
+    /** Nom du type courant sans package ("Outer$Inner"), null hors de tout type. */
+    protected final String currentType() {
+        return depth == 0 ? null : names[depth - 1];
+    }
+
+    /** Nom qualifié du type courant ("org.example.Outer$Inner"), null hors de tout type. */
+    protected final String qualifiedType() {
+        String t = currentType();
+        return t == null ? null : packageName.isEmpty() ? t : packageName + "." + t;
+    }
+
+    /** Le type courant est-il une classe anonyme (rattachée au type englobant) ? */
+    protected final boolean inAnonymous() {
+        return depth > 0 && anonymous[depth - 1];
+    }
+
+    /** Nombre de types englobants (anonymes compris). */
+    protected final int typeDepth() {
+        return depth;
+    }
+
+    /** Un nom de type de la pile (0 = le plus externe), pour les recherches dans les types englobants. */
+    protected final String typeAt(int level) {
+        return names[level];
+    }
+
+    /** Supertype explicite d'une déclaration : superclasse d'une classe (null sinon). */
+    protected static Type superclassOf(AbstractTypeDeclaration node) {
+        return node instanceof TypeDeclaration td ? td.getSuperclassType() : null;
+    }
+
+    /** Interfaces implémentées (ou étendues) explicitement ; vide pour une annotation. */
+    @SuppressWarnings("unchecked")
+    protected static List<Type> interfacesOf(AbstractTypeDeclaration node) {
+        if (node instanceof TypeDeclaration td) return td.superInterfaceTypes();
+        if (node instanceof EnumDeclaration ed) return ed.superInterfaceTypes();
+        if (node instanceof RecordDeclaration rd) return rd.superInterfaceTypes();
+        return List.of();
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.visitor;
+
+import org.eclipse.jdt.core.dom.*;
+import org.example.model.NodeId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Signatures effacées calculées sur la syntaxe (sans bindings) :
+ * génériques retirés, noms simples, varargs et dimensions supplémentaires notés "[]".
+ * Ex: "void f(java.util.List<String> l, int... xs)" -> "List,int[]".
+ */
+public final class Signatures {
+
+    private Signatures() {}
+
+    /** Identité de la méthode déclarée {@code node} dans la classe {@code cls} du package {@code pkg}. */
+    public static NodeId declared(String pkg, String cls, MethodDeclaration node) {
+        return NodeId.of(pkg, cls, node.getName().getIdentifier(), erasedSignature(node));
+    }
+
+    public static String erasedSignature(MethodDeclaration node) {
+        @SuppressWarnings("unchecked")
+        List<SingleVariableDeclaration> params = node.parameters();
+        StringBuilder sb = new StringBuilder();
+        for (SingleVariableDeclaration p : params) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(erasure(p.getType().toString()));
+            for (int d = 0; d < p.getExtraDimensions(); d++) sb.append("[]");
+            if (p.isVarargs()) sb.append("[]");
+        }
+        return sb.toString();
+    }
+
+    /** "java.util.Map<K, List<V>>[]" -> "Map[]" */
+    public static String erasure(String typeName) {
+        StringBuilder sb = new StringBuilder(typeName.length());
+        int depth = 0;
+        for (int i = 0; i < typeName.length(); i++) {
+            char c = typeName.charAt(i);
+            if (c == '<') depth++;
+            else if (c == '>') depth--;
+            else if (depth == 0 && !Character.isWhitespace(c)) sb.append(c);
+        }
+        String raw = sb.toString();
+        int dims = raw.indexOf('[');
+        String base = dims < 0 ? raw : raw.substring(0, dims);
+        String suffix = dims < 0 ? "" : raw.substring(dims);
+        int dot = base.lastIndexOf('.');
+        return (dot < 0 ? base : base.substring(dot + 1)) + suffix;
+    }
+
+    /**
+     * Nom de classe source d'un nom binaire simple (bytecode, profils JFR), au format des visiteurs
+     * ({@link ScopedVisitor}) : "Outer$Inner" -> "Outer$Inner", "Outer$1" (anonyme) -> "Outer",
+     * "Outer$1Local" -> "Outer$1Local", "Outer$1$Inner" -> "Outer$Inner" (les classes anonymes sont
+     * rattachées au type englobant) ; null pour une classe cachée ("Outer$$Lambda" : la frame utile
+     * est la méthode lambda$...).
+     */
+    public static String sourceClassName(String binarySimple) {
+        if (binarySimple.contains("$$")) return null;
+        if (binarySimple.indexOf('$') < 0) return binarySimple;
+        StringBuilder sb = new StringBuilder(binarySimple.length());
+        for (String part : binarySimple.split("\\$")) {
+            if (part.isEmpty() || isNumber(part)) continue;    // segment d'une classe anonyme
+            if (sb.length() > 0) sb.append('$');
+            sb.append(part);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    /** Nom binaire simple d'une classe anonyme ("Outer$1", "Outer$Inner$2") ? */
+    public static boolean isAnonymous(String binarySimple) {
+        int dollar = binarySimple.lastIndexOf('$');
+        return dollar >= 0 && dollar + 1 < binarySimple.length() && isNumber(binarySimple.substring(dollar + 1));
+    }
+
+    /**
+     * Nom le plus interne d'une classe, tel qu'écrit dans le source :
+     * "Outer$Inner" -> "Inner", "Outer$1Local" -> "Local", "Point" -> "Point".
+     */
+    public static String innerName(String className) {
+        int dollar = className.lastIndexOf('$');
+        if (dollar < 0) return className;
+        int k = dollar + 1;
+        while (k < className.length() && Character.isDigit(className.charAt(k))) k++;
+        return className.substring(k);
+    }
+
+    private static boolean isNumber(String s) {
+        for (int i = 0; i < s.length(); i++) if (!Character.isDigit(s.charAt(i))) return false;
+        return !s.isEmpty();
+    }
+
+    /** Descripteur JVM -> types des paramètres au format de {@link #erasure} : "(ILjava/lang/String;[[D)V" -> [int, String, double[][]]. */
+    public static List<String> descriptorParameters(String descriptor) {
+        List<String> out = new ArrayList<>();
+        int i = descriptor.indexOf('(') + 1;
+        int end = descriptor.indexOf(')');
+        while (i > 0 && i < end) {
+            int dims = 0;
+            while (descriptor.charAt(i) == '[') { dims++; i++; }
+            String base;
+            char c = descriptor.charAt(i);
+            if (c == 'L') {
+                int semi = descriptor.indexOf(';', i);
+                String internal = descriptor.substring(i + 1, semi);
+                base = internal.substring(Math.max(internal.lastIndexOf('/'), internal.lastIndexOf('$')) + 1);
+                i = semi + 1;
+            } else {
+                base = switch (c) {
+                    case 'Z' -> "boolean";
+                    case 'B' -> "byte";
+                    case 'C' -> "char";
+                    case 'S' -> "short";
+                    case 'I' -> "int";
+                    case 'J' -> "long";
+                    case 'F' -> "float";
+                    case 'D' -> "double";
+                    default -> "?";
+                };
+                i++;
+            }
+            out.add(base + "[]".repeat(dims));
+        }
+        return out;
+    }
+}